@@ -0,0 +1,107 @@
+// One synchronized segment of a striped LRU cache, bounded by summed entry weight
+// Shared by the j10 entity cache and the j12 product cache; callers stripe keys over several segments
+
+package cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Access-order {@link LinkedHashMap} that evicts its least recently used entries while their
+ * summed weight exceeds {@code capacity}. With a weigher of {@code v -> 1} the bound is an
+ * entry count. Every method holds the segment's monitor; values must be immutable.
+ *
+ * <p>Read-through caches guard against caching a row that changed while it was being loaded
+ * with an epoch that every write bumps: the loader reads the epoch before loading and
+ * {@link #putIfUnchanged} compares it under the lock, so a write either stops the put or
+ * removes the entry after it. Checking after the put would leave a window in which the stale
+ * value is served.
+ */
+public final class LruSegment<K, V> {
+
+    private final LinkedHashMap<K, V> map;
+    private final long capacity;
+    private final ToIntFunction<? super V> weigher;
+    private long weight;
+
+    /** @param weigher weight of one value, at least 1 and the same every time it is asked */
+    public LruSegment(long capacity, ToIntFunction<? super V> weigher) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.weigher = weigher;
+        this.map = new LinkedHashMap<>((int) Math.min(capacity, 1024), 0.75f, true);
+    }
+
+    /** An array for striping keys over {@code length} segments, to be filled by the caller. */
+    @SuppressWarnings("unchecked")
+    public static <K, V> LruSegment<K, V>[] newArray(int length) {
+        return (LruSegment<K, V>[]) new LruSegment<?, ?>[length];
+    }
+
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    /** The value of {@code key}, or null after removing it when {@code stale} holds (e.g. expired). */
+    public synchronized V getUnless(K key, Predicate<? super V> stale) {
+        V value = map.get(key);
+        if (value == null || !stale.test(value)) return value;
+        map.remove(key);
+        weight -= weigher.applyAsInt(value);
+        return null;
+    }
+
+    /**
+     * Caches {@code value} unless {@code epoch} moved past {@code expected}. Returns how many
+     * least recently used entries were evicted to make room.
+     */
+    public synchronized int putIfUnchanged(K key, V value, AtomicLong epoch, long expected) {
+        if (epoch.get() != expected) return 0;
+        V previous = map.put(key, value);
+        weight += weigher.applyAsInt(value) - (previous == null ? 0 : weigher.applyAsInt(previous));
+        int evicted = 0;
+        for (Iterator<V> eldest = map.values().iterator(); weight > capacity && eldest.hasNext(); evicted++) {
+            weight -= weigher.applyAsInt(eldest.next());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    /** Returns 1 if {@code key} was cached, else 0. */
+    public synchronized int remove(K key) {
+        V value = map.remove(key);
+        if (value == null) return 0;
+        weight -= weigher.applyAsInt(value);
+        return 1;
+    }
+
+    /** Removes every value matching {@code predicate} and returns how many there were. */
+    public synchronized int removeIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        for (Iterator<V> values = map.values().iterator(); values.hasNext(); ) {
+            V value = values.next();
+            if (predicate.test(value)) {
+                values.remove();
+                weight -= weigher.applyAsInt(value);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+}
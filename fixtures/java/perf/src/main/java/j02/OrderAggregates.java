@@ -0,0 +1,245 @@
+// Incrementally maintained order aggregates for OrderProcessor dashboards
+// O(1) updates on process/cancel; consistent snapshots via optimistic (StampedLock) reads
+
+package j02;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Revenue and order count per customer email, order count per status and totals per payment
+ * method, updated as orders are processed and cancelled. Amounts are net of refunds.
+ *
+ * <p>Writers take a short write lock for a constant number of map updates. {@link #snapshot()}
+ * copies the aggregates under an optimistic read stamp and retries when a writer interleaved,
+ * so readers never hold writers back; only after repeated interference does it fall back to a
+ * read lock to guarantee progress. Either way only keys and primitive values are copied into
+ * flat arrays while the stamp is held; the {@link Snapshot} maps are built after it is released,
+ * so the fallback blocks writers for a field-by-field copy rather than a map rebuild.
+ */
+public final class OrderAggregates {
+
+    /** Order count and net amount for one key. */
+    public record Totals(long orders, double amount) {}
+
+    /** Point-in-time copy of every aggregate, taken atomically with respect to updates. */
+    public record Snapshot(Map<String, Totals> byCustomer, Map<String, Long> byStatus,
+                           Map<String, Totals> byPaymentMethod) {
+
+        public Totals customer(String email) {
+            return byCustomer.getOrDefault(email, ZERO);
+        }
+
+        public long status(String status) {
+            return byStatus.getOrDefault(status, 0L);
+        }
+
+        public Totals paymentMethod(String method) {
+            return byPaymentMethod.getOrDefault(method, ZERO);
+        }
+
+        /** Nested maps of strings, longs and doubles that {@link OrderCodec} can write. */
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("byCustomer", totalsToMap(byCustomer));
+            map.put("byStatus", new HashMap<>(byStatus));
+            map.put("byPaymentMethod", totalsToMap(byPaymentMethod));
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Snapshot fromMap(Map<String, Object> map) {
+            Map<String, Long> statuses = new HashMap<>();
+            ((Map<String, Object>) map.get("byStatus")).forEach((k, v) -> statuses.put(k, ((Number) v).longValue()));
+            return new Snapshot(totalsFromMap((Map<String, Object>) map.get("byCustomer")), Collections.unmodifiableMap(statuses),
+                    totalsFromMap((Map<String, Object>) map.get("byPaymentMethod")));
+        }
+
+        private static Map<String, Object> totalsToMap(Map<String, Totals> totals) {
+            Map<String, Object> map = new HashMap<>(totals.size() * 4 / 3 + 1);
+            totals.forEach((k, v) -> map.put(k, List.of(v.orders(), v.amount())));
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Totals> totalsFromMap(Map<String, Object> map) {
+            Map<String, Totals> totals = new HashMap<>(map.size() * 4 / 3 + 1);
+            map.forEach((k, v) -> {
+                List<Object> pair = (List<Object>) v;
+                totals.put(k, new Totals(((Number) pair.get(0)).longValue(), ((Number) pair.get(1)).doubleValue()));
+            });
+            return Collections.unmodifiableMap(totals);
+        }
+    }
+
+    private static final Totals ZERO = new Totals(0, 0);
+    private static final String UNKNOWN = "unknown";
+    private static final int OPTIMISTIC_ATTEMPTS = 8;
+
+    private static final class Accumulator {
+        long orders;
+        double amount;
+    }
+
+    private static final class Count {
+        long value;
+    }
+
+    private final StampedLock lock = new StampedLock();
+    // Concurrent maps so that optimistic readers can iterate while a writer inserts a key
+    private final Map<String, Accumulator> byCustomer = new ConcurrentHashMap<>();
+    private final Map<String, Count> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, Accumulator> byPaymentMethod = new ConcurrentHashMap<>();
+
+    /** Counts a newly processed order (status, customer and payment method). */
+    public void onProcessed(Map<String, Object> order) {
+        double total = amountOf(order, "total");
+        String email = emailOf(order);
+        String method = keyOf(order.get("paymentMethod"));
+        String status = keyOf(order.get("status"));
+        long stamp = lock.writeLock();
+        try {
+            if (email != null) add(byCustomer, email, 1, total);
+            add(byPaymentMethod, method, 1, total);
+            byStatus.computeIfAbsent(status, k -> new Count()).value++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Moves a cancelled order out of {@code previousStatus} and subtracts its refund. */
+    public void onCancelled(Map<String, Object> order, String previousStatus) {
+        double refund = amountOf(order, "refundAmount");
+        String email = emailOf(order);
+        String method = keyOf(order.get("paymentMethod"));
+        String from = keyOf(previousStatus);
+        String to = keyOf(order.get("status"));
+        long stamp = lock.writeLock();
+        try {
+            if (email != null) add(byCustomer, email, 0, -refund);
+            add(byPaymentMethod, method, 0, -refund);
+            byStatus.computeIfAbsent(from, k -> new Count()).value--;
+            byStatus.computeIfAbsent(to, k -> new Count()).value++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Replaces every aggregate with the contents of {@code snapshot}, e.g. one loaded from disk. */
+    void restore(Snapshot snapshot) {
+        long stamp = lock.writeLock();
+        try {
+            byCustomer.clear();
+            byStatus.clear();
+            byPaymentMethod.clear();
+            snapshot.byCustomer().forEach((k, v) -> add(byCustomer, k, v.orders(), v.amount()));
+            snapshot.byStatus().forEach((k, v) -> byStatus.computeIfAbsent(k, c -> new Count()).value = v);
+            snapshot.byPaymentMethod().forEach((k, v) -> add(byPaymentMethod, k, v.orders(), v.amount()));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Snapshot snapshot() {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Columns customers = Columns.of(byCustomer);
+            Columns statuses = Columns.ofCounts(byStatus);
+            Columns methods = Columns.of(byPaymentMethod);
+            if (lock.validate(stamp)) return snapshotOf(customers, statuses, methods);
+        }
+        Columns customers;
+        Columns statuses;
+        Columns methods;
+        long stamp = lock.readLock();
+        try {
+            customers = Columns.of(byCustomer);
+            statuses = Columns.ofCounts(byStatus);
+            methods = Columns.of(byPaymentMethod);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return snapshotOf(customers, statuses, methods);
+    }
+
+    private static Snapshot snapshotOf(Columns customers, Columns statuses, Columns methods) {
+        Map<String, Long> counts = new HashMap<>();
+        for (int i = 0; i < statuses.size; i++) {
+            if (statuses.orders[i] != 0) counts.put(statuses.keys[i], statuses.orders[i]);
+        }
+        return new Snapshot(customers.totals(), Collections.unmodifiableMap(counts), methods.totals());
+    }
+
+    /** Keys and values of one aggregate map, copied without allocating per entry. */
+    private static final class Columns {
+        String[] keys;
+        long[] orders;
+        double[] amounts;
+        int size;
+
+        private Columns(int capacity) {
+            keys = new String[capacity];
+            orders = new long[capacity];
+            amounts = new double[capacity];
+        }
+
+        static Columns of(Map<String, Accumulator> map) {
+            Columns columns = new Columns(map.size() + 8);              // slack for keys inserted mid-copy
+            map.forEach((k, v) -> columns.add(k, v.orders, v.amount));
+            return columns;
+        }
+
+        static Columns ofCounts(Map<String, Count> map) {
+            Columns columns = new Columns(map.size() + 8);
+            map.forEach((k, v) -> columns.add(k, v.value, 0));
+            return columns;
+        }
+
+        private void add(String key, long count, double amount) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                orders = Arrays.copyOf(orders, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            keys[size] = key;
+            orders[size] = count;
+            amounts[size++] = amount;
+        }
+
+        Map<String, Totals> totals() {
+            Map<String, Totals> map = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) map.put(keys[i], new Totals(orders[i], amounts[i]));
+            return Collections.unmodifiableMap(map);
+        }
+    }
+
+    private static void add(Map<String, Accumulator> map, String key, long orders, double amount) {
+        Accumulator acc = map.computeIfAbsent(key, k -> new Accumulator());
+        acc.orders += orders;
+        acc.amount += amount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String emailOf(Map<String, Object> order) {
+        Object customer = order.get("customer");
+        return customer instanceof Map ? (String) ((Map<String, Object>) customer).get("email") : null;
+    }
+
+    private static double amountOf(Map<String, Object> order, String field) {
+        Object value = order.get(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    private static String keyOf(Object value) {
+        return value == null ? UNKNOWN : value.toString();
+    }
+}
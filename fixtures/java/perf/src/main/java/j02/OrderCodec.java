@@ -0,0 +1,109 @@
+// Compact binary encoding for the Map-based orders used by OrderProcessor
+// Supports the value types an order actually carries: null, String, numbers, Boolean, Map and List
+
+package j02;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class OrderCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte MAP = 7;
+    private static final byte LIST = 8;
+
+    private OrderCodec() {}
+
+    /** Writes {@code map} at the buffer position; throws BufferOverflowException if it does not fit. */
+    static void writeMap(ByteBuffer out, Map<?, ?> map) {
+        out.putInt(map.size());
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            writeString(out, String.valueOf(e.getKey()));
+            writeValue(out, e.getValue());
+        }
+    }
+
+    static Map<String, Object> readMap(ByteBuffer in) {
+        int size = in.getInt();
+        Map<String, Object> map = new HashMap<>(Math.max(4, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    static void writeString(ByteBuffer out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(ByteBuffer out, Object value) {
+        if (value == null) {
+            out.put(NULL);
+        } else if (value instanceof String) {
+            out.put(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.put(INT);
+            out.putInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.put(LONG);
+            out.putLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.put(DOUBLE);
+            out.putDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.put((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Map) {
+            out.put(MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.put(LIST);
+            out.putInt(list.size());
+            for (Object element : list) writeValue(out, element);
+        } else {
+            throw new IllegalArgumentException("Unsupported order value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL: return null;
+            case STRING: return readString(in);
+            case INT: return in.getInt();
+            case LONG: return in.getLong();
+            case DOUBLE: return in.getDouble();
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            case MAP: return readMap(in);
+            case LIST: {
+                int size = in.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) list.add(readValue(in));
+                return list;
+            }
+            default:
+                throw new IllegalStateException("Corrupt order encoding, unknown tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+// Primitive open-addressing index: order id hash -> journal locations
+// Keeps ~24 bytes per order on the heap instead of a String key plus an entry object
+
+package j02;
+
+final class OrderIndex {
+
+    /** Resolves hash collisions by comparing the id stored in the journal at a location. */
+    interface IdCheck {
+        boolean idEquals(long processedLocation, byte[] id, int length);
+    }
+
+    private static final long EMPTY = 0L;
+
+    private long[] hashes;
+    private long[] processed;
+    private long[] cancelled;
+    private int mask;
+    private int size;
+
+    OrderIndex(int expectedOrders) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedOrders * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    int size() { return size; }
+
+    /** Returns the slot holding {@code id}, or -1 when it is not indexed. */
+    int find(long hash, byte[] id, int length, IdCheck check) {
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long h = hashes[slot];
+            if (h == EMPTY) return -1;
+            if (h == hash && check.idEquals(processed[slot], id, length)) return slot;
+        }
+    }
+
+    long processedAt(int slot) { return processed[slot]; }
+
+    long cancelledAt(int slot) { return cancelled[slot]; }
+
+    /** Records a processed order; re-processing an id replaces its previous locations. */
+    void putProcessed(long hash, byte[] id, int length, long location, IdCheck check) {
+        int slot = find(hash, id, length, check);
+        if (slot < 0) {
+            slot = insert(hash);
+        }
+        processed[slot] = location;
+        cancelled[slot] = 0L;
+    }
+
+    /** Returns false when the order is unknown (e.g. it predates the journal). */
+    boolean putCancelled(long hash, byte[] id, int length, long location, IdCheck check) {
+        int slot = find(hash, id, length, check);
+        if (slot < 0) return false;
+        cancelled[slot] = location;
+        return true;
+    }
+
+    /** Copies the live entries as (hash, processed, cancelled) triples. */
+    long[] toTriples() {
+        long[] triples = new long[size * 3];
+        int n = 0;
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] == EMPTY) continue;
+            triples[n++] = hashes[slot];
+            triples[n++] = processed[slot];
+            triples[n++] = cancelled[slot];
+        }
+        return triples;
+    }
+
+    /** Restores an entry from a snapshot; snapshot entries are distinct by construction. */
+    void restore(long hash, long processedLocation, long cancelledLocation) {
+        int slot = insert(hash);
+        processed[slot] = processedLocation;
+        cancelled[slot] = cancelledLocation;
+    }
+
+    static long hash(byte[] id, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h ^= id[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        // murmur3 fmix64 so that the low bits used for the slot are well mixed
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1L : h;
+    }
+
+    private int insert(long hash) {
+        if ((size + 1) * 2 > hashes.length) grow();
+        int slot = (int) hash & mask;
+        while (hashes[slot] != EMPTY) slot = (slot + 1) & mask;
+        hashes[slot] = hash;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        long[] oldProcessed = processed;
+        long[] oldCancelled = cancelled;
+        int liveEntries = size;
+        allocate(oldHashes.length << 1);
+        size = liveEntries;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] == EMPTY) continue;
+            int slot = (int) oldHashes[i] & mask;
+            while (hashes[slot] != EMPTY) slot = (slot + 1) & mask;
+            hashes[slot] = oldHashes[i];
+            processed[slot] = oldProcessed[i];
+            cancelled[slot] = oldCancelled[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        processed = new long[capacity];
+        cancelled = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+}
@@ -0,0 +1,526 @@
+// Append-only, memory-mapped journal of order events for OrderProcessor
+// Orders live on disk; the heap only keeps a primitive index and a bounded set of hot orders
+
+package j02;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal of order events written through memory-mapped segment files.
+ *
+ * <p>Record layout: {@code int bodyLength, int crc32c(body), body}, where the body is
+ * {@code byte type, int idLength, id (UTF-8), payload map}. A zero length marks the end of
+ * the data in a segment. Appends return a commit token; {@link #commit(long)} makes every
+ * record up to that token durable, and concurrent committers share a single {@code force()}
+ * (group commit).
+ *
+ * <p>On open the journal loads the latest snapshot of its index and replays only the records
+ * written after it. Order bodies are decoded on demand by {@link #find(String)} and cached in
+ * a bounded LRU of hot orders.
+ *
+ * <p>The journal also maintains the {@link OrderAggregates} of its orders, updated under the
+ * append lock together with the index and saved in the same snapshot. On open only the
+ * processed and cancelled records after the snapshot are decoded to bring them up to date.
+ */
+public final class OrderJournal implements Closeable {
+
+    public static final byte PROCESSED = 1;
+    public static final byte CANCELLED = 2;
+    public static final byte UPDATE_SENT = 3;
+
+    /**
+     * @param segmentBytes  size of each mapped segment file
+     * @param hotOrders     number of decoded orders kept on the heap
+     * @param snapshotEvery events between background index snapshots (0 disables them)
+     */
+    public record Config(int segmentBytes, int hotOrders, long snapshotEvery) {
+        public static final Config DEFAULT = new Config(128 << 20, 10_000, 1_000_000);
+
+        public Config {
+            if (segmentBytes < 4096) throw new IllegalArgumentException("segmentBytes must be at least 4096");
+            if (hotOrders < 0 || snapshotEvery < 0) throw new IllegalArgumentException("hotOrders and snapshotEvery cannot be negative");
+        }
+    }
+
+    private static final int HEADER = 8;
+    private static final long SNAPSHOT_MAGIC = 0x4f52444a524e4c32L; // "ORDJRNL2"; older snapshots are replayed over
+    private static final String SNAPSHOT_FILE = "index.snapshot";
+
+    private final Path dir;
+    private final Config config;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final OrderIndex index;
+    private final OrderIndex.IdCheck idCheck = this::idEquals;
+    private final OrderAggregates aggregates = new OrderAggregates();
+    private final Map<String, Map<String, Object>> hot;
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1024));
+    private final ExecutorService snapshotter;
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+
+    // Appended under appendLock, read lock-free by find()
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    // Guarded by appendLock
+    private Segment current;
+    private long eventsSinceSnapshot;
+    private byte[] idBuffer = new byte[64];
+
+    private volatile long written;   // end location of the last appended record
+    private volatile long flushed;   // end location of the last durable record
+    private volatile boolean closed;
+
+    private OrderJournal(Path dir, Config config) {
+        this.dir = dir;
+        this.config = config;
+        this.index = new OrderIndex(1024);
+        this.hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > config.hotOrders();
+            }
+        };
+        this.snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "order-journal-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static OrderJournal open(Path dir) throws IOException {
+        return open(dir, Config.DEFAULT);
+    }
+
+    /** Opens (or creates) the journal in {@code dir} and rebuilds the index from snapshot + replay. */
+    public static OrderJournal open(Path dir, Config config) throws IOException {
+        Files.createDirectories(dir);
+        OrderJournal journal = new OrderJournal(dir, config);
+        journal.recover();
+        return journal;
+    }
+
+    // --- Appends ---
+
+    /** Appends a PROCESSED event carrying the full order; returns its commit token. */
+    public long appendProcessed(Map<String, Object> order) {
+        Object id = order.get("id");
+        if (id == null) throw new IllegalArgumentException("Order has no id");
+        long token = append(PROCESSED, id.toString(), order, order);
+        cacheHot(id.toString(), order);
+        return token;
+    }
+
+    /**
+     * Appends a CANCELLED event with the fields cancelOrder changed on the order. The first
+     * cancellation of an order moves it out of its processed status in the aggregates and
+     * subtracts {@code refundAmount}; later ones leave them alone.
+     */
+    public long appendCancelled(String orderId, Map<String, Object> changes) {
+        return append(CANCELLED, orderId, changes, changes);
+    }
+
+    public long appendUpdateSent(String orderId, String updateType) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("updateType", updateType);
+        return append(UPDATE_SENT, orderId, payload, null);
+    }
+
+    private long append(byte type, String orderId, Map<String, Object> payload, Map<String, Object> decoded) {
+        ByteBuffer body = encode(type, orderId, payload);
+        int bodyLength = body.remaining();
+        if (HEADER + bodyLength > config.segmentBytes()) {
+            throw new IllegalArgumentException("Order event of " + bodyLength + " bytes exceeds the segment size");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+
+        long token;
+        boolean snapshotDue;
+        appendLock.lock();
+        try {
+            ensureOpen();
+            if (current.offset + HEADER + bodyLength > current.capacity()) roll();
+            Segment segment = current;
+            long location = location(segment.id, segment.offset);
+            ByteBuffer map = segment.map;
+            map.putInt(segment.offset + 4, (int) crc.getValue());
+            map.put(segment.offset + HEADER, body, body.position(), bodyLength);
+            // Length is written last so a torn record is never mistaken for a complete one
+            map.putInt(segment.offset, bodyLength);
+            segment.offset += HEADER + bodyLength;
+            applyToIndex(type, body, location, decoded);
+            token = location(segment.id, segment.offset);
+            written = token;
+            snapshotDue = config.snapshotEvery() > 0 && ++eventsSinceSnapshot >= config.snapshotEvery();
+            if (snapshotDue) eventsSinceSnapshot = 0;
+        } finally {
+            appendLock.unlock();
+        }
+        if (snapshotDue) scheduleSnapshot();
+        return token;
+    }
+
+    private ByteBuffer encode(byte type, String orderId, Map<String, Object> payload) {
+        ByteBuffer buf = scratch.get();
+        while (true) {
+            try {
+                buf.clear();
+                buf.put(type);
+                OrderCodec.writeString(buf, orderId);
+                OrderCodec.writeMap(buf, payload);
+                buf.flip();
+                return buf;
+            } catch (BufferOverflowException e) {
+                buf = ByteBuffer.allocate(buf.capacity() * 2);
+                scratch.set(buf);
+            }
+        }
+    }
+
+    // --- Group commit ---
+
+    /** Blocks until every record up to {@code token} is durable on disk. */
+    public void commit(long token) {
+        if (flushed >= token) return;
+        flushLock.lock();
+        try {
+            if (flushed >= token) return;
+            // Everything appended so far is flushed together, covering concurrent committers
+            long target = written;
+            int segmentId = segmentOf(target);
+            int from = segmentOf(flushed) == segmentId ? offsetOf(flushed) : 0;
+            Segment segment = segment(segmentId);
+            segment.map.force(from, offsetOf(target) - from);
+            if (target > flushed) flushed = target;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void commitAll() {
+        commit(written);
+    }
+
+    // --- Reads ---
+
+    /** Returns the order (with later cancellations applied), or null when it was never journaled. */
+    public Map<String, Object> find(String orderId) {
+        synchronized (hot) {
+            Map<String, Object> cached = hot.get(orderId);
+            if (cached != null) return cached;
+        }
+        byte[] id = orderId.getBytes(StandardCharsets.UTF_8);
+        long processedAt;
+        long cancelledAt;
+        appendLock.lock();
+        try {
+            int slot = index.find(OrderIndex.hash(id, id.length), id, id.length, idCheck);
+            if (slot < 0) return null;
+            processedAt = index.processedAt(slot);
+            cancelledAt = index.cancelledAt(slot);
+        } finally {
+            appendLock.unlock();
+        }
+        Map<String, Object> order = readPayload(processedAt);
+        if (cancelledAt != 0) order.putAll(readPayload(cancelledAt));
+        cacheHot(orderId, order);
+        return order;
+    }
+
+    /** Number of distinct orders in the index. */
+    public int size() {
+        appendLock.lock();
+        try {
+            return index.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** Revenue, status and payment-method aggregates over every journaled order. */
+    public OrderAggregates aggregates() {
+        return aggregates;
+    }
+
+    private void cacheHot(String orderId, Map<String, Object> order) {
+        if (config.hotOrders() == 0) return;
+        synchronized (hot) {
+            hot.put(orderId, order);
+        }
+    }
+
+    private Map<String, Object> readPayload(long location) {
+        ByteBuffer in = segment(segmentOf(location)).map.duplicate();
+        int offset = offsetOf(location);
+        in.limit(offset + HEADER + in.getInt(offset));
+        in.position(offset + HEADER + 1);
+        in.position(in.position() + 4 + in.getInt());
+        return OrderCodec.readMap(in);
+    }
+
+    // --- Snapshots ---
+
+    /**
+     * Writes the index and the aggregates to disk so that the next open only replays later
+     * records. Both are captured under the append lock with the position they cover, since
+     * replaying an event into the aggregates twice would count it twice.
+     */
+    public void snapshot() throws IOException {
+        long coveredUpTo;
+        long[] triples;
+        OrderAggregates.Snapshot totals;
+        appendLock.lock();
+        try {
+            coveredUpTo = written;
+            triples = index.toTriples();
+            totals = aggregates.snapshot();
+        } finally {
+            appendLock.unlock();
+        }
+        commit(coveredUpTo);
+        ByteBuffer encodedTotals = encodeMap(totals.toMap());
+
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        int bytes = 8 + 8 + 4 + triples.length * 8 + 4 + encodedTotals.remaining() + 4;
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            out.putLong(SNAPSHOT_MAGIC).putLong(coveredUpTo).putInt(triples.length / 3);
+            out.asLongBuffer().put(triples);
+            out.position(out.position() + triples.length * 8);
+            out.putInt(encodedTotals.remaining()).put(encodedTotals);
+            CRC32C crc = new CRC32C();
+            crc.update(out.duplicate().flip());
+            out.putInt((int) crc.getValue());
+            out.force();
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void scheduleSnapshot() {
+        if (!snapshotPending.compareAndSet(false, true)) return;
+        snapshotter.execute(() -> {
+            try {
+                if (!closed) snapshot();
+            } catch (IOException | RuntimeException e) {
+                // The next snapshot retries; recovery falls back to a longer replay meanwhile
+            } finally {
+                snapshotPending.set(false);
+            }
+        });
+    }
+
+    // --- Recovery ---
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted()::iterator) {
+                String name = file.getFileName().toString();
+                int id = Integer.parseInt(name.substring("journal-".length(), name.length() - ".seg".length()));
+                segments.add(Segment.map(file, id, (int) Math.max(Files.size(file), config.segmentBytes())));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(Segment.map(segmentPath(1), 1, config.segmentBytes()));
+        }
+        long replayFrom = loadSnapshot();
+        replay(replayFrom);
+        current = segments.get(segments.size() - 1);
+        written = location(current.id, current.offset);
+        flushed = written;
+    }
+
+    private long loadSnapshot() throws IOException {
+        Path file = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) return location(segments.get(0).id, 0);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            CRC32C crc = new CRC32C();
+            crc.update(in.duplicate().limit(in.limit() - 4));
+            if (in.limit() < 24 || in.getLong(0) != SNAPSHOT_MAGIC || in.getInt(in.limit() - 4) != (int) crc.getValue()) {
+                return location(segments.get(0).id, 0); // unusable snapshot: full replay
+            }
+            long coveredUpTo = in.getLong(8);
+            int count = in.getInt(16);
+            int pos = 20;
+            for (int i = 0; i < count; i++, pos += 24) {
+                index.restore(in.getLong(pos), in.getLong(pos + 8), in.getLong(pos + 16));
+            }
+            in.position(pos + 4);
+            aggregates.restore(OrderAggregates.Snapshot.fromMap(OrderCodec.readMap(in)));
+            return coveredUpTo;
+        }
+    }
+
+    private void replay(long from) {
+        CRC32C crc = new CRC32C();
+        for (Segment segment : segments) {
+            if (segment.id < segmentOf(from)) continue;
+            int offset = segment.id == segmentOf(from) ? offsetOf(from) : 0;
+            ByteBuffer map = segment.map;
+            ByteBuffer view = map.duplicate();
+            boolean last = segment == segments.get(segments.size() - 1);
+            while (offset + HEADER <= segment.capacity()) {
+                int length = map.getInt(offset);
+                if (length <= 0 || offset + HEADER + length > segment.capacity()) break;
+                view.limit(offset + HEADER + length).position(offset + HEADER);
+                crc.reset();
+                crc.update(view);
+                if (map.getInt(offset + 4) != (int) crc.getValue()) break;
+                view.position(offset + HEADER);
+                applyToIndex(view.get(offset + HEADER), view, location(segment.id, offset), null);
+                offset += HEADER + length;
+            }
+            if (last && offset + HEADER <= segment.capacity() && map.getInt(offset) != 0) {
+                // Torn tail from a crash mid-append: wipe it so new records start on clean bytes
+                for (int i = offset; i < segment.capacity(); i++) map.put(i, (byte) 0);
+            }
+            segment.offset = offset;
+        }
+    }
+
+    /**
+     * Applies one event body (positioned at its type byte) to the index and the aggregates;
+     * position is preserved. {@code payload} is the event's map when the caller has it, else
+     * null and it is decoded from the journal (replay).
+     */
+    private void applyToIndex(byte type, ByteBuffer body, long location, Map<String, Object> payload) {
+        int start = body.position();
+        int idLength = body.getInt(start + 1);
+        if (idBuffer.length < idLength) idBuffer = new byte[Math.max(idLength, idBuffer.length * 2)];
+        body.get(start + 5, idBuffer, 0, idLength);
+        long hash = OrderIndex.hash(idBuffer, idLength);
+        if (type == PROCESSED) {
+            aggregates.onProcessed(payload != null ? payload : readPayload(location));
+            index.putProcessed(hash, idBuffer, idLength, location, idCheck);
+        } else if (type == CANCELLED) {
+            int slot = index.find(hash, idBuffer, idLength, idCheck);
+            if (slot >= 0 && index.cancelledAt(slot) == 0) {
+                Map<String, Object> order = readPayload(index.processedAt(slot));
+                Object previousStatus = order.get("status");
+                order.putAll(payload != null ? payload : readPayload(location));
+                aggregates.onCancelled(order, previousStatus == null ? null : previousStatus.toString());
+            }
+            index.putCancelled(hash, idBuffer, idLength, location, idCheck);
+        }
+    }
+
+    private static ByteBuffer encodeMap(Map<String, Object> map) {
+        for (int capacity = 4096; ; capacity *= 2) {
+            ByteBuffer buf = ByteBuffer.allocate(capacity);
+            try {
+                OrderCodec.writeMap(buf, map);
+                return buf.flip();
+            } catch (BufferOverflowException e) {
+                // retry with twice the room
+            }
+        }
+    }
+
+    private boolean idEquals(long location, byte[] id, int length) {
+        ByteBuffer map = segment(segmentOf(location)).map;
+        int offset = offsetOf(location) + HEADER + 1;
+        if (map.getInt(offset) != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (map.get(offset + 4 + i) != id[i]) return false;
+        }
+        return true;
+    }
+
+    // --- Segments ---
+
+    private void roll() {
+        // Older segments are forced here, so group commit only ever flushes the current one
+        current.map.force();
+        Segment next;
+        try {
+            next = Segment.map(segmentPath(current.id + 1), current.id + 1, config.segmentBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment", e);
+        }
+        segments.add(next);
+        flushLock.lock();
+        try {
+            flushed = Math.max(flushed, location(current.id, current.offset));
+        } finally {
+            flushLock.unlock();
+        }
+        current = next;
+    }
+
+    private Segment segment(int id) {
+        // Segment ids are contiguous, starting from the first file that exists
+        return segments.get(id - segments.get(0).id);
+    }
+
+    private Path segmentPath(int id) {
+        return dir.resolve(String.format("journal-%08d.seg", id));
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    private static int segmentOf(long location) { return (int) (location >>> 32); }
+
+    private static int offsetOf(long location) { return (int) location; }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Order journal is closed");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        commitAll();
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+        closed = true;
+    }
+
+    private static final class Segment {
+        final int id;
+        final MappedByteBuffer map;
+        int offset;
+
+        private Segment(int id, MappedByteBuffer map) {
+            this.id = id;
+            this.map = map;
+        }
+
+        int capacity() { return map.capacity(); }
+
+        static Segment map(Path file, int id, int bytes) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(id, ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+// Lock-free sliding-window counter: "how many increments in the last 1s / 10s / 60s"
+// A fixed ring of time buckets; stale buckets are recycled by the incrementing thread itself
+
+package j03;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts events over a sliding time window using a ring of {@code buckets} time buckets,
+ * each {@code bucketMillis} wide. Each bucket is a single long packing the bucket epoch
+ * (high 32 bits) and its count (low 32 bits), so claiming a stale bucket for the current
+ * epoch and counting into it is one atomic operation.
+ *
+ * <ul>
+ *   <li>Every increment is a CAS on the packed word that expects the bucket's current epoch,
+ *       so a thread that stalled while the bucket was recycled for a later lap fails the CAS
+ *       and drops its (by then expired) event instead of adding it to the newer bucket. The
+ *       first increment of a new bucket recycles it in the same CAS.</li>
+ *   <li>{@link #count(long)} is O(buckets) and only sums buckets whose epoch lies inside the
+ *       window, so expired buckets never need a background sweeper.</li>
+ *   <li>Memory is fixed at one long per bucket. A bucket holds at most 2^32 - 1 events; it
+ *       saturates there rather than carrying into the epoch.</li>
+ * </ul>
+ *
+ * <p>Windows are aligned to bucket boundaries: the current, partially elapsed bucket is
+ * included, so a window is accurate to within one bucket.
+ */
+public class SlidingWindowCounter {
+
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long COUNT_MASK = 0xffffffffL;
+
+    private final long[] buckets;
+    private final long bucketMillis;
+    private final LongSupplier clockMillis;
+
+    /** 600 buckets of 100 ms: windows up to one minute at 100 ms resolution. */
+    public SlidingWindowCounter() {
+        this(100, 600);
+    }
+
+    public SlidingWindowCounter(long bucketMillis, int buckets) {
+        this(bucketMillis, buckets, () -> System.nanoTime() / 1_000_000);
+    }
+
+    /** @param clockMillis monotonic millisecond clock (injectable for tests) */
+    public SlidingWindowCounter(long bucketMillis, int buckets, LongSupplier clockMillis) {
+        if (bucketMillis <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("bucketMillis and buckets must be positive");
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = new long[buckets];
+        this.clockMillis = clockMillis;
+        // Start every bucket one full lap in the past, so none of them is inside any window
+        long lapAgo = Math.floorDiv(clockMillis.getAsLong(), bucketMillis) - buckets;
+        for (long epoch = lapAgo - buckets + 1; epoch <= lapAgo; epoch++) {
+            this.buckets[(int) Math.floorMod(epoch, (long) buckets)] = pack((int) epoch, 0);
+        }
+        VarHandle.releaseFence();
+    }
+
+    public void increment() {
+        incrementCounter(1);
+    }
+
+    public void incrementCounter(int times) {
+        if (times < 0) throw new IllegalArgumentException("times cannot be negative");
+        long epoch = Math.floorDiv(clockMillis.getAsLong(), bucketMillis);
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+        int tag = (int) epoch;
+        long current = (long) BUCKETS.getVolatile(buckets, slot);
+        while (true) {
+            long next;
+            if (epochOf(current) == tag) {
+                next = pack(tag, Math.min((current & COUNT_MASK) + times, COUNT_MASK));
+            } else if (epochOf(current) - tag > 0) {
+                // This thread stalled for a full lap; its event is older than any window
+                return;
+            } else {
+                // Stale bucket from a previous lap of the ring: recycle it for this epoch
+                next = pack(tag, times);
+            }
+            long witness = (long) BUCKETS.compareAndExchange(buckets, slot, current, next);
+            if (witness == current) return;
+            current = witness;
+        }
+    }
+
+    /** Events counted in the last {@code windowMillis} (rounded up to whole buckets). */
+    public long count(long windowMillis) {
+        if (windowMillis <= 0) return 0;
+        long span = Math.min(buckets.length, (windowMillis + bucketMillis - 1) / bucketMillis);
+        long now = Math.floorDiv(clockMillis.getAsLong(), bucketMillis);
+        long sum = 0;
+        for (long epoch = now - span + 1; epoch <= now; epoch++) {
+            long value = (long) BUCKETS.getVolatile(buckets, (int) Math.floorMod(epoch, (long) buckets.length));
+            if (epochOf(value) == (int) epoch) sum += value & COUNT_MASK;
+        }
+        return sum;
+    }
+
+    public long lastSecond() { return count(1_000); }
+
+    public long last10Seconds() { return count(10_000); }
+
+    public long lastMinute() { return count(60_000); }
+
+    /** Longest window this counter can answer. */
+    public long maxWindowMillis() {
+        return bucketMillis * buckets.length;
+    }
+
+    private static long pack(int epoch, long count) {
+        return ((long) epoch << 32) | (count & COUNT_MASK);
+    }
+
+    private static int epochOf(long value) {
+        return (int) (value >>> 32);
+    }
+}
@@ -0,0 +1,48 @@
+// Striped int counter: drop-in for the j03 Counter API (incrementCounter/getCounter/resetCounter)
+// Uses LongStripedCounter cells and wraps to int on read, like an int field would
+
+package j03;
+
+/**
+ * Int-width view of {@link LongStripedCounter} with the same method names as the j03
+ * {@code Counter}. Unlike the fixture, {@code incrementCounter} never sleeps or blocks, so it
+ * does not declare {@code InterruptedException}.
+ */
+public class StripedCounter {
+
+    private final LongStripedCounter cells;
+
+    public StripedCounter() {
+        this.cells = new LongStripedCounter();
+    }
+
+    public StripedCounter(int stripes) {
+        this.cells = new LongStripedCounter(stripes);
+    }
+
+    public void incrementCounter(int times) {
+        cells.incrementCounter(times);
+    }
+
+    public void increment() {
+        cells.increment();
+    }
+
+    public int getCounter() {
+        return (int) cells.getCounter();
+    }
+
+    /** See {@link LongStripedCounter#sumThenReset()}. */
+    public int sumThenReset() {
+        return (int) cells.sumThenReset();
+    }
+
+    public void resetCounter() {
+        cells.resetCounter();
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(getCounter());
+    }
+}
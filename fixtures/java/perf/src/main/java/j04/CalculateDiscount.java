@@ -0,0 +1,103 @@
+// Runnable copy of the j04 CalculateDiscount fixture (fixtures/java/j04/Fixture.java)
+// Adds batch variants over primitive arrays for quote engines that price millions of lines
+
+package j04;
+
+/**
+ * Calculate discount for an order.
+ *
+ * Rules:
+ * - quantity > 50 items: 15% base discount
+ * - quantity > 10 items: 5% base discount
+ * - VIP customer: additional +10% on top of base discount
+ * - Maximum total discount: 30%
+ *
+ * @param quantity Number of items ordered
+ * @param isVip    Whether the customer is VIP
+ * @return Discount as a decimal (e.g., 0.15 = 15%)
+ * @throws IllegalArgumentException if quantity is negative
+ * @throws IllegalArgumentException if quantity is not a valid number (e.g. NaN)
+ */
+public class CalculateDiscount {
+
+    // Discount per (tier, vip) cell, computed by the scalar rules so both paths agree exactly.
+    // tier 0: <= 10 items, 1: 11..50, 2: > 50; VIP cells are offset by 3.
+    private static final double[] DISCOUNTS = {
+        calculateDiscount(0, false), calculateDiscount(11, false), calculateDiscount(51, false),
+        calculateDiscount(0, true), calculateDiscount(11, true), calculateDiscount(51, true),
+    };
+
+    public static double calculateDiscount(int quantity, boolean isVip) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity cannot be negative");
+        }
+
+        double discount = 0;
+
+        if (quantity > 50) {
+            discount = 0.15;
+        } else if (quantity > 10) {
+            discount = 0.05;
+        }
+
+        if (isVip) {
+            discount += 0.10;
+        }
+
+        return Math.min(discount, 0.30);
+    }
+
+    /**
+     * Batch form of {@link #calculateDiscount(int, boolean)}: {@code out[i]} receives the
+     * discount for {@code quantities[i]} and {@code vip[i]}, bit-for-bit equal to the scalar
+     * result. All quantities are validated before anything is written, so a rejected batch
+     * leaves {@code out} untouched.
+     *
+     * @throws IllegalArgumentException if a quantity is negative (the message names the first
+     *                                  offending index) or the arrays are shorter than {@code quantities}
+     */
+    public static void calculateDiscounts(int[] quantities, boolean[] vip, double[] out) {
+        int n = quantities.length;
+        if (vip.length < n || out.length < n) {
+            throw new IllegalArgumentException("vip and out must hold at least " + n + " elements");
+        }
+        validate(quantities);
+        for (int i = 0; i < n; i++) {
+            out[i] = DISCOUNTS[tier(quantities[i]) + (vip[i] ? 3 : 0)];
+        }
+    }
+
+    /**
+     * Same as {@link #calculateDiscounts(int[], boolean[], double[])} with the VIP flags packed
+     * into a bitset: element {@code i} is VIP when bit {@code i % 64} of {@code vipBits[i / 64]}
+     * is set (the {@link java.util.BitSet#toLongArray()} layout).
+     */
+    public static void calculateDiscounts(int[] quantities, long[] vipBits, double[] out) {
+        int n = quantities.length;
+        if (vipBits.length < (n + 63) >>> 6 || out.length < n) {
+            throw new IllegalArgumentException("vipBits and out must cover " + n + " elements");
+        }
+        validate(quantities);
+        for (int i = 0; i < n; i++) {
+            int vipOffset = 3 * ((int) (vipBits[i >>> 6] >>> i) & 1);
+            out[i] = DISCOUNTS[tier(quantities[i]) + vipOffset];
+        }
+    }
+
+    /** 0, 1 or 2 for a validated (non-negative) quantity, computed without branches. */
+    private static int tier(int quantity) {
+        return ((10 - quantity) >>> 31) + ((50 - quantity) >>> 31);
+    }
+
+    private static void validate(int[] quantities) {
+        // OR-reduce the sign bits first: the common all-valid batch costs one branch-free pass
+        int signs = 0;
+        for (int q : quantities) signs |= q;
+        if (signs >= 0) return;
+        for (int i = 0; i < quantities.length; i++) {
+            if (quantities[i] < 0) {
+                throw new IllegalArgumentException("quantity cannot be negative (index " + i + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+// Outcome of a chunked batch write: rows affected by each committed chunk
+
+package j05;
+
+import java.util.Arrays;
+
+record BatchResult(int[] rowsPerChunk) {
+
+    int chunks() {
+        return rowsPerChunk.length;
+    }
+
+    long totalRows() {
+        long total = 0;
+        for (int rows : rowsPerChunk) total += rows;
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BatchResult other && Arrays.equals(rowsPerChunk, other.rowsPerChunk);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rowsPerChunk);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult" + Arrays.toString(rowsPerChunk);
+    }
+}
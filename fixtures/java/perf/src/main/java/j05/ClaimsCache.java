@@ -0,0 +1,218 @@
+// Bounded, concurrent cache of verified JWT claims keyed by the SHA-256 digest of the token
+// Signature verification runs once per token; later requests with the same token are a map hit
+
+package j05;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import metrics.CounterMetric;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the {@link Claims} of tokens that passed {@link JwtParser#parseClaimsJws(String)}.
+ *
+ * <ul>
+ *   <li>Keys are SHA-256 digests, so raw bearer tokens are never retained.</li>
+ *   <li>An entry lives until the token's {@code exp}, capped at {@code maxTtlMillis} (also the
+ *       lifetime of tokens without {@code exp}); expired entries are dropped on access.</li>
+ *   <li>The cache is split into 16 segments, each a synchronized access-order
+ *       {@link LinkedHashMap} evicting its least recently used entry once full.</li>
+ *   <li>{@link #revoke(String)} rejects a token from then on, even if it is still cached. A
+ *       revocation is forgotten once the token has expired; each revoke drops only those that
+ *       ran out, taken from the head of a queue ordered by expiry.</li>
+ * </ul>
+ *
+ * Cached claims are shared between requests and must be treated as read-only.
+ */
+final class ClaimsCache {
+
+    private static final int SEGMENTS = 16;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final long maxTtlMillis;
+    private final LongSupplier clockMillis;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    // Revoked digests, each kept until the token would have expired anyway
+    private final ConcurrentHashMap<Digest, Long> revoked = new ConcurrentHashMap<>();
+    // The same revocations by expiry, earliest first; guarded by itself
+    private final PriorityQueue<Revocation> revocationExpiries = new PriorityQueue<>();
+
+    private final CounterMetric hits;
+    private final CounterMetric misses;
+    private final CounterMetric evictions;
+    private final LatencyHistogram verifyLatency;
+
+    /**
+     * @param parser        a parser configured with the signing key (and the same clock)
+     * @param maxEntries    upper bound on cached tokens
+     * @param metricsPrefix prefix for the {@code .hits}, {@code .misses} and {@code .evictions}
+     *                      counters and the {@code .verify.latency} histogram in {@code metrics}
+     */
+    ClaimsCache(JwtParser parser, int maxEntries, long maxTtlMillis, LongSupplier clockMillis,
+                MetricsRegistry metrics, String metricsPrefix) {
+        if (maxEntries < SEGMENTS || maxTtlMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries must be at least " + SEGMENTS + " and maxTtlMillis positive");
+        }
+        this.parser = parser;
+        this.maxTtlMillis = maxTtlMillis;
+        this.clockMillis = clockMillis;
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(maxEntries / SEGMENTS);
+        this.hits = metrics.counter(metricsPrefix + ".hits");
+        this.misses = metrics.counter(metricsPrefix + ".misses");
+        this.evictions = metrics.counter(metricsPrefix + ".evictions");
+        this.verifyLatency = metrics.histogram(metricsPrefix + ".verify.latency");
+    }
+
+    /**
+     * Claims of a valid, unrevoked token.
+     *
+     * @throws JwtException if the token is malformed, badly signed, expired or revoked
+     */
+    Claims verify(String token) {
+        Digest digest = Digest.of(token);
+        if (revoked.containsKey(digest)) throw new JwtException("Token has been revoked");
+        long now = clockMillis.getAsLong();
+        Segment segment = segmentFor(digest);
+        Claims cached = segment.get(digest, now);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        verifyLatency.recordSince(start);
+
+        Date exp = claims.getExpiration();
+        long expiresAt = exp == null ? now + maxTtlMillis : Math.min(exp.getTime(), now + maxTtlMillis);
+        if (expiresAt > now) {
+            if (segment.put(digest, new Entry(claims, expiresAt))) evictions.increment();
+            // A revoke that raced with this verification must not be undone by the put
+            if (revoked.containsKey(digest)) segment.remove(digest);
+        }
+        return claims;
+    }
+
+    /** Rejects {@code token} from now on, whether or not it is cached or still valid. */
+    void revoke(String token) {
+        Digest digest = Digest.of(token);
+        Entry entry = segmentFor(digest).remove(digest);
+        long now = clockMillis.getAsLong();
+        long until = entry != null ? entry.expiresAt : now + maxTtlMillis;
+        try {
+            Date exp = entry == null ? parser.parseClaimsJws(token).getBody().getExpiration() : null;
+            if (exp != null) until = exp.getTime();
+        } catch (JwtException e) {
+            // Invalid or already expired tokens are rejected by verify() anyway
+        }
+        revoked.put(digest, until);
+        synchronized (revocationExpiries) {
+            revocationExpiries.add(new Revocation(until, digest));
+            for (Revocation head = revocationExpiries.peek(); head != null && head.until <= now; head = revocationExpiries.peek()) {
+                revocationExpiries.poll();
+                revoked.remove(head.digest, head.until);                // unless revoked again with a later expiry
+            }
+        }
+    }
+
+    /** Revocations still remembered: those whose token has not expired yet, and a few just expired. */
+    int revokedCount() {
+        return revoked.size();
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    Stats stats() {
+        return new Stats(hits.count(), misses.count(), evictions.count(), size(), verifyLatency.snapshot());
+    }
+
+    private Segment segmentFor(Digest digest) {
+        return segments[(int) (digest.a >>> 60)];
+    }
+
+    record Stats(long hits, long misses, long evictions, int size, LatencyHistogram.Snapshot verifyLatency) {
+        double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAt) {}
+
+    private record Revocation(long until, Digest digest) implements Comparable<Revocation> {
+        @Override
+        public int compareTo(Revocation other) {
+            return Long.compare(until, other.until);
+        }
+    }
+
+    /** The 256-bit token digest as four longs: cheap equals/hashCode, no retained token bytes. */
+    private record Digest(long a, long b, long c, long d) {
+        static Digest of(String token) {
+            ByteBuffer hash = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new Digest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Digest, Entry> map;
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true);
+        }
+
+        synchronized Claims get(Digest digest, long now) {
+            Entry entry = map.get(digest);
+            if (entry == null) return null;
+            if (entry.expiresAt <= now) {
+                map.remove(digest);
+                return null;
+            }
+            return entry.claims;
+        }
+
+        /** Returns true if an entry had to be evicted to make room. */
+        synchronized boolean put(Digest digest, Entry entry) {
+            map.put(digest, entry);
+            if (map.size() <= capacity) return false;
+            Map.Entry<Digest, Entry> eldest = map.entrySet().iterator().next();
+            map.remove(eldest.getKey());
+            return true;
+        }
+
+        synchronized Entry remove(Digest digest) {
+            return map.remove(digest);
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+// Fixed-size JDBC connection pool with a per-connection LRU cache of prepared statements
+// Connections are opened up front and handed out as leases that return themselves on close()
+
+package j05;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small pool for embedded databases: {@code size} connections are opened eagerly and kept
+ * for the pool's lifetime, so there is no validation, growth or idle eviction to manage.
+ * Each connection caches up to {@code statementsPerConnection} prepared statements keyed by
+ * SQL text; the least recently used statement is closed when the cache is full.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    private final BlockingQueue<Lease> idle;
+    private final List<Lease> all = new ArrayList<>();
+    private final long acquireTimeoutMillis;
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private volatile boolean closed;
+
+    ConnectionPool(String url, int size, int statementsPerConnection, long acquireTimeoutMillis) throws SQLException {
+        if (size <= 0 || statementsPerConnection <= 0) {
+            throw new IllegalArgumentException("size and statementsPerConnection must be positive");
+        }
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        try {
+            for (int i = 0; i < size; i++) {
+                Lease lease = new Lease(DriverManager.getConnection(url), statementsPerConnection);
+                all.add(lease);
+                idle.add(lease);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /** Borrows a connection, waiting up to the acquire timeout; close the lease to return it. */
+    Lease lease() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        Lease lease;
+        try {
+            lease = idle.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        }
+        if (lease == null) {
+            throw new SQLTransientConnectionException("No connection available within " + acquireTimeoutMillis + " ms");
+        }
+        lease.inUse = true;
+        return lease;
+    }
+
+    int size() {
+        return all.size();
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+
+    long statementHits() {
+        return statementHits.sum();
+    }
+
+    long statementMisses() {
+        return statementMisses.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Lease lease : all) {
+            try {
+                lease.connection.close();
+            } catch (SQLException e) {
+                // Closing an embedded connection only fails if it is already gone
+            }
+        }
+    }
+
+    /** A borrowed connection. Not thread-safe: one lease belongs to one thread at a time. */
+    final class Lease implements AutoCloseable {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        private boolean inUse;
+
+        private Lease(Connection connection, int capacity) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= capacity) return false;
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        /** The cached statement for {@code sql}, prepared on first use. Do not close it. */
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement != null) {
+                statementHits.increment();
+                statement.clearParameters();
+                return statement;
+            }
+            statementMisses.increment();
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+            return statement;
+        }
+
+        @Override
+        public void close() {
+            if (!inUse) return;
+            inUse = false;
+            if (closed) return;
+            try {
+                // Never hand out a connection with a transaction left open by the borrower
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                // Leave it in the pool; the next borrower's statement will surface the error
+            }
+            idle.add(this);
+        }
+
+        private void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Evicted statements are discarded either way
+            }
+        }
+    }
+}
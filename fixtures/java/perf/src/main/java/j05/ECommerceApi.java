@@ -0,0 +1,319 @@
+// Runnable copy of the j05 ECommerceApi fixture (fixtures/java/j05/Fixture.java)
+// Bearer tokens are verified once and cached; queries run cached statements on pooled connections
+
+package j05;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import metrics.MetricsRegistry;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+class ECommerceApi implements AutoCloseable {
+
+    static final String SELECT_USER_ORDERS = "SELECT id, user_id, amount FROM orders WHERE user_id = ?";
+    static final String SELECT_USER_BY_EMAIL = "SELECT id, email, role FROM users WHERE email = ?";
+    static final String SELECT_USER_ORDERS_STREAM = SELECT_USER_ORDERS + " ORDER BY id";
+    static final String SELECT_USER_ORDERS_PAGE =
+            "SELECT id, user_id, amount FROM orders WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?";
+    static final String SELECT_USERS_BY_EMAIL_PAGE =
+            "SELECT id, email, role FROM users WHERE email = ? AND id > ? ORDER BY id LIMIT ?";
+    static final String DELETE_USER = "DELETE FROM users WHERE id = ?";
+    static final String INSERT_USER = "INSERT INTO users (id, email, role, password) VALUES (?, ?, ?, ?)";
+    static final String INSERT_ORDER = "INSERT INTO orders (id, user_id, amount) VALUES (?, ?, ?)";
+    static final String UPDATE_ROLE = "UPDATE users SET role = ? WHERE id = ?";
+
+    static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final ConnectionPool pool;
+    private final ClaimsCache claimsCache;
+
+    /** Signs with the HMAC secret in {@code ECOMMERCE_JWT_SECRET} (at least 32 bytes). */
+    ECommerceApi() throws Exception {
+        this(Math.max(4, Runtime.getRuntime().availableProcessors()), secretFromEnvironment());
+    }
+
+    /**
+     * Every instance gets its own named in-memory database in shared-cache mode, so all
+     * pooled connections see the same tables (a plain {@code :memory:} URL would give each
+     * connection a private, empty database).
+     */
+    ECommerceApi(int poolSize, Key signingKey) throws Exception {
+        this.claimsCache = new ClaimsCache(
+                Jwts.parserBuilder().setSigningKey(signingKey).build(),
+                10_000, 15 * 60_000, System::currentTimeMillis,
+                MetricsRegistry.global(), "j05.claimsCache");  // stats are shared by all instances
+        String url = "jdbc:sqlite:file:ecommerce-" + DATABASES.incrementAndGet() + "?mode=memory&cache=shared";
+        pool = new ConnectionPool(url, poolSize, 32, 5_000);
+        try (ConnectionPool.Lease lease = pool.lease(); Statement stmt = lease.connection().createStatement()) {
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY, email TEXT, role TEXT, password TEXT)");
+            stmt.execute("CREATE TABLE orders (id INTEGER PRIMARY KEY, user_id INTEGER, amount REAL)");
+            // (key, id) indexes serve both the lookups and the keyset pages in id order
+            stmt.execute("CREATE INDEX orders_user_id ON orders (user_id, id)");
+            stmt.execute("CREATE INDEX users_email ON users (email, id)");
+        }
+    }
+
+    // Auth filter
+    Claims authenticate(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null; // 401 No token
+        }
+        String token = authHeader.substring(7);
+        try {
+            return claimsCache.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null; // 401 Invalid, expired or revoked token
+        }
+    }
+
+    /** Logs a token out: later requests carrying it are rejected. */
+    void revokeToken(String token) {
+        claimsCache.revoke(token);
+    }
+
+    ClaimsCache claimsCache() {
+        return claimsCache;
+    }
+
+    /**
+     * Get user orders. Rows are copied out before the connection goes back to the pool, so
+     * callers get a list rather than a {@link ResultSet} tied to a borrowed connection.
+     */
+    List<OrderRow> getUserOrders(HttpServletRequest request, String userId) throws Exception {
+        Claims user = authenticate(request);
+        if (user == null) return null;
+        return findOrdersByUser(userId);
+    }
+
+    // Search users: returns the first match without its password hash, and logs nothing about it
+    UserRow searchUser(HttpServletRequest request, String email) throws Exception {
+        Claims user = authenticate(request);
+        if (user == null) return null;
+        return findUserByEmail(email);
+    }
+
+    /**
+     * Streams all orders of a user in id order without materializing them. The cursor keeps a
+     * pooled connection until it is exhausted or closed, so close it (try-with-resources).
+     */
+    RowCursor<OrderRow> streamUserOrders(HttpServletRequest request, String userId, int fetchSize) throws Exception {
+        if (authenticate(request) == null) return null;
+        ConnectionPool.Lease lease = pool.lease();
+        PreparedStatement ps;
+        try {
+            ps = lease.prepare(SELECT_USER_ORDERS_STREAM);
+            ps.setString(1, userId);
+        } catch (SQLException e) {
+            lease.close();
+            throw e;
+        }
+        return RowCursor.open(lease, ps, fetchSize, OrderRow::from);
+    }
+
+    /** Up to {@code limit} orders with id greater than {@code afterId} (start with 0). */
+    Page<OrderRow> getUserOrdersPage(HttpServletRequest request, String userId, long afterId, int limit) throws Exception {
+        if (authenticate(request) == null) return null;
+        return page(SELECT_USER_ORDERS_PAGE, userId, afterId, limit, OrderRow::from, OrderRow::id);
+    }
+
+    /** Users with exactly this email, a page at a time (emails are not unique in this schema). */
+    Page<UserRow> searchUsersPage(HttpServletRequest request, String email, long afterId, int limit) throws Exception {
+        if (authenticate(request) == null) return null;
+        return page(SELECT_USERS_BY_EMAIL_PAGE, email, afterId, limit, UserRow::from, UserRow::id);
+    }
+
+    private <T> Page<T> page(String sql, String key, long afterId, int limit,
+                             RowMapper<T> mapper, ToLongFunction<T> idOf) throws SQLException {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            PreparedStatement ps = lease.prepare(sql);
+            ps.setString(1, key);
+            ps.setLong(2, afterId);
+            ps.setInt(3, limit + 1);               // one extra row tells us whether another page exists
+            List<T> rows = new ArrayList<>(Math.min(limit, 1_024));
+            boolean hasMore = false;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rows.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    rows.add(mapper.map(rs));
+                }
+            }
+            long nextAfterId = rows.isEmpty() ? afterId : idOf.applyAsLong(rows.get(rows.size() - 1));
+            return new Page<>(rows, nextAfterId, hasMore);
+        }
+    }
+
+    List<OrderRow> findOrdersByUser(String userId) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            PreparedStatement ps = lease.prepare(SELECT_USER_ORDERS);
+            ps.setString(1, userId);
+            List<OrderRow> orders = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) orders.add(OrderRow.from(rs));
+            }
+            return orders;
+        }
+    }
+
+    UserRow findUserByEmail(String email) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            PreparedStatement ps = lease.prepare(SELECT_USER_BY_EMAIL);
+            ps.setString(1, email);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? UserRow.from(rs) : null;
+            }
+        }
+    }
+
+    // VULNERABILITY 5: Admin endpoint with no authentication check
+    void deleteUser(String id) throws Exception {
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            PreparedStatement ps = lease.prepare(DELETE_USER);
+            ps.setInt(1, Integer.parseInt(id));
+            ps.executeUpdate();
+        }
+        // returns { deleted: id } equivalent
+    }
+
+    BatchResult deleteUsers(Collection<String> ids) throws SQLException {
+        return deleteUsers(ids, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Deletes users in chunks of {@code batchSize}, one JDBC batch and one transaction per
+     * chunk. Ids are parsed up front, so a malformed id fails before anything is deleted.
+     */
+    BatchResult deleteUsers(Collection<String> ids, int batchSize) throws SQLException {
+        List<Integer> parsed = new ArrayList<>(ids.size());
+        for (String id : ids) parsed.add(Integer.parseInt(id));
+        return writeInChunks(DELETE_USER, parsed, batchSize, (ps, id) -> ps.setInt(1, id));
+    }
+
+    BatchResult updateRoles(Map<String, String> rolesById) throws SQLException {
+        return updateRoles(rolesById, DEFAULT_BATCH_SIZE);
+    }
+
+    BatchResult updateRoles(Map<String, String> rolesById, int batchSize) throws SQLException {
+        List<Map.Entry<Integer, String>> updates = new ArrayList<>(rolesById.size());
+        for (Map.Entry<String, String> e : rolesById.entrySet()) {
+            updates.add(Map.entry(Integer.parseInt(e.getKey()), e.getValue()));
+        }
+        return writeInChunks(UPDATE_ROLE, updates, batchSize, (ps, update) -> {
+            ps.setString(1, update.getValue());
+            ps.setInt(2, update.getKey());
+        });
+    }
+
+    BatchResult insertOrders(Collection<OrderRow> orders) throws SQLException {
+        return insertOrders(orders, DEFAULT_BATCH_SIZE);
+    }
+
+    BatchResult insertOrders(Collection<OrderRow> orders, int batchSize) throws SQLException {
+        return writeInChunks(INSERT_ORDER, orders, batchSize, (ps, order) -> {
+            ps.setLong(1, order.id());
+            ps.setLong(2, order.userId());
+            ps.setDouble(3, order.amount());
+        });
+    }
+
+    @FunctionalInterface
+    private interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /**
+     * Runs {@code sql} once per item as JDBC batches of {@code batchSize}, committing each
+     * chunk on its own. If a chunk fails it is rolled back and the exception names it;
+     * earlier chunks stay committed.
+     */
+    private <T> BatchResult writeInChunks(String sql, Collection<T> items, int batchSize, Binder<T> binder)
+            throws SQLException {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        int chunks = (items.size() + batchSize - 1) / batchSize;
+        int[] rowsPerChunk = new int[chunks];
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            Connection connection = lease.connection();
+            PreparedStatement ps = lease.prepare(sql);
+            connection.setAutoCommit(false);
+            Iterator<T> it = items.iterator();
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                try {
+                    for (int i = 0; i < batchSize && it.hasNext(); i++) {
+                        binder.bind(ps, it.next());
+                        ps.addBatch();
+                    }
+                    for (int count : ps.executeBatch()) {
+                        if (count > 0) rowsPerChunk[chunk] += count;
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    ps.clearBatch();
+                    connection.rollback();
+                    throw new SQLException("Chunk " + (chunk + 1) + " of " + chunks + " failed and was rolled back; "
+                            + chunk + " earlier chunks were committed", e);
+                }
+            }
+            connection.setAutoCommit(true);
+        }
+        return new BatchResult(rowsPerChunk);
+    }
+
+    void createUser(int id, String email, String role, String password) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            PreparedStatement ps = lease.prepare(INSERT_USER);
+            ps.setInt(1, id);
+            ps.setString(2, email);
+            ps.setString(3, role);
+            ps.setString(4, password);
+            ps.executeUpdate();
+        }
+    }
+
+    void createOrder(int id, int userId, double amount) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.lease()) {
+            PreparedStatement ps = lease.prepare(INSERT_ORDER);
+            ps.setInt(1, id);
+            ps.setInt(2, userId);
+            ps.setDouble(3, amount);
+            ps.executeUpdate();
+        }
+    }
+
+    ConnectionPool pool() {
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    private static Key secretFromEnvironment() {
+        String secret = System.getenv("ECOMMERCE_JWT_SECRET");
+        if (secret == null) throw new IllegalStateException("ECOMMERCE_JWT_SECRET is not set");
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,13 @@
+// One row of the orders table, copied out of the ResultSet
+
+package j05;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+record OrderRow(long id, long userId, double amount) {
+
+    static OrderRow from(ResultSet rs) throws SQLException {
+        return new OrderRow(rs.getLong("id"), rs.getLong("user_id"), rs.getDouble("amount"));
+    }
+}
@@ -0,0 +1,12 @@
+// One keyset page: the rows plus the id to pass as afterId for the next page
+
+package j05;
+
+import java.util.List;
+
+/**
+ * @param rows        at most {@code limit} rows, ordered by id
+ * @param nextAfterId id of the last row, to pass as {@code afterId} for the next page
+ * @param hasMore     whether at least one more row followed this page when it was read
+ */
+record Page<T>(List<T> rows, long nextAfterId, boolean hasMore) {}
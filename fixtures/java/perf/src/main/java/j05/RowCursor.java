@@ -0,0 +1,94 @@
+// Forward-only cursor over a query result that owns its pooled connection until closed
+// Rows are mapped one at a time, so memory stays constant however many rows match
+
+package j05;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates a {@link ResultSet} as typed rows. The cursor holds a connection lease from the
+ * pool, so it must be closed: it closes itself once the last row has been read, and
+ * {@link #close()} (or try-with-resources) releases it early. Not thread-safe.
+ */
+final class RowCursor<T> implements Iterator<T>, AutoCloseable {
+
+    private final ConnectionPool.Lease lease;
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+    private boolean advanced;
+    private boolean hasRow;
+    private boolean closed;
+
+    /** Takes ownership of {@code lease}; the statement must come from the lease's cache. */
+    static <T> RowCursor<T> open(ConnectionPool.Lease lease, PreparedStatement statement, int fetchSize,
+                                 RowMapper<T> mapper) throws SQLException {
+        try {
+            statement.setFetchSize(fetchSize);
+            return new RowCursor<>(lease, statement.executeQuery(), mapper);
+        } catch (SQLException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    private RowCursor(ConnectionPool.Lease lease, ResultSet rs, RowMapper<T> mapper) {
+        this.lease = lease;
+        this.rs = rs;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        if (!advanced) {
+            try {
+                hasRow = rs.next();
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException("Failed to read the next row", e);
+            }
+            advanced = true;
+            if (!hasRow) close();
+        }
+        return hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        advanced = false;
+        try {
+            return mapper.map(rs);
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Failed to map the current row", e);
+        }
+    }
+
+    /** A sequential stream over the remaining rows; closing the stream closes the cursor. */
+    Stream<T> stream() {
+        Spliterator<T> rows = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(rows, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            // The statement stays cached; closing its result set only fails if the connection is gone
+        } finally {
+            lease.close();
+        }
+    }
+}
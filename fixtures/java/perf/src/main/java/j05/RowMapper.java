@@ -0,0 +1,11 @@
+// Maps the current row of a ResultSet to a value; must not advance or close the ResultSet
+
+package j05;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
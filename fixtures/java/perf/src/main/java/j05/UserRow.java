@@ -0,0 +1,13 @@
+// One row of the users table as returned to API callers: the password column is never read
+
+package j05;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+record UserRow(long id, String email, String role) {
+
+    static UserRow from(ResultSet rs) throws SQLException {
+        return new UserRow(rs.getLong("id"), rs.getString("email"), rs.getString("role"));
+    }
+}
@@ -0,0 +1,112 @@
+// Single-pass, allocation-free CPF check digit validation, over text, bytes and CSV columns
+// Same verdicts as Fixture.validateCPF without its replaceAll/matches regexes
+
+package j07;
+
+import java.util.BitSet;
+
+/**
+ * Validates Brazilian CPF numbers. As in {@code Fixture.validateCPF}, every character that is
+ * not an ASCII digit is ignored, the remaining digits must be exactly 11, not all equal, and
+ * end with the two mod-11 check digits of the first nine.
+ *
+ * <p>The digits are packed four bits each into a {@code long} while scanning, so a check is one
+ * pass over the input plus a few shifts, with no intermediate strings.
+ */
+public final class CpfValidator {
+
+    private static final int DIGITS = 11;
+    private static final long REPEATED_ONES = 0x111_1111_1111L;   // one nibble set per digit
+
+    private CpfValidator() {}
+
+    public static boolean isValid(CharSequence cpf) {
+        long packed = 0;
+        int count = 0;
+        for (int i = 0, n = cpf.length(); i < n; i++) {
+            int digit = cpf.charAt(i) - '0';
+            if (digit >= 0 && digit <= 9) {
+                if (++count > DIGITS) return false;
+                packed = packed << 4 | digit;
+            }
+        }
+        return count == DIGITS && checkDigits(packed);
+    }
+
+    /** Validates the ASCII/UTF-8 bytes {@code data[from, to)}. */
+    public static boolean isValid(byte[] data, int from, int to) {
+        long packed = 0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int digit = data[i] - '0';
+            if (digit >= 0 && digit <= 9) {
+                if (++count > DIGITS) return false;
+                packed = packed << 4 | digit;
+            }
+        }
+        return count == DIGITS && checkDigits(packed);
+    }
+
+    /** Validates a field of the current CSV record in place. */
+    public static boolean isValid(CsvRow row, int field) {
+        long packed = 0;
+        int count = 0;
+        for (int i = 0, n = row.length(field); i < n; i++) {
+            int digit = row.byteAt(field, i) - '0';
+            if (digit >= 0 && digit <= 9) {
+                if (++count > DIGITS) return false;
+                packed = packed << 4 | digit;
+            }
+        }
+        return count == DIGITS && checkDigits(packed);
+    }
+
+    /**
+     * Validates a column stored back to back in {@code data}: value {@code i} is
+     * {@code data[offsets[i], offsets[i + 1])}. Bit {@code i} of the result is set if it is valid.
+     */
+    public static BitSet validateAll(byte[] data, int[] offsets, int count) {
+        if (count < 0 || offsets.length <= count) {
+            throw new IllegalArgumentException("offsets needs count + 1 entries, got " + offsets.length + " for " + count);
+        }
+        BitSet valid = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            if (isValid(data, offsets[i], offsets[i + 1])) valid.set(i);
+        }
+        return valid;
+    }
+
+    /** Validates {@code field} of every record of {@code reader}; bit {@code i} is record {@code i}. */
+    public static BitSet validateColumn(CsvReader reader, int field) {
+        BitSet valid = new BitSet();
+        long[] index = new long[1];
+        reader.forEach(row -> {
+            if (isValid(row, field)) valid.set(Math.toIntExact(index[0]));
+            index[0]++;
+        });
+        return valid;
+    }
+
+    /** Digit {@code i} (0-based from the left) of an 11-digit nibble-packed CPF. */
+    private static int digit(long packed, int i) {
+        return (int) (packed >>> (4 * (DIGITS - 1 - i))) & 0xf;
+    }
+
+    private static boolean checkDigits(long packed) {
+        if (packed == digit(packed, 0) * REPEATED_ONES) return false;
+        int first = 0;
+        int second = 0;
+        for (int i = 0; i < 9; i++) {
+            int d = digit(packed, i);
+            first += d * (10 - i);
+            second += d * (11 - i);
+        }
+        first = 11 - first % 11;
+        if (first >= 10) first = 0;
+        if (first != digit(packed, 9)) return false;
+        second += first * 2;
+        second = 11 - second % 11;
+        if (second >= 10) second = 0;
+        return second == digit(packed, 10);
+    }
+}
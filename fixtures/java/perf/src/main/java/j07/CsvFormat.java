@@ -0,0 +1,54 @@
+// Dialect and projection settings for CsvReader
+
+package j07;
+
+import java.util.List;
+
+/**
+ * @param delimiter field separator; must be ASCII and not a quote or line break
+ * @param hasHeader whether the first record holds column names
+ * @param trim      strip spaces and tabs around unquoted fields (as {@code Fixture.parseCSV} does)
+ * @param columns   names of the columns to project, in output order; empty for all columns
+ * @param indexes   zero-based indexes of the columns to project when there is no header
+ */
+public record CsvFormat(char delimiter, boolean hasHeader, boolean trim, List<String> columns, List<Integer> indexes) {
+
+    /** RFC 4180: comma-separated, header row, fields taken verbatim. */
+    public static final CsvFormat RFC4180 = new CsvFormat(',', true, false, List.of(), List.of());
+
+    public CsvFormat {
+        if (delimiter >= 0x80 || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+        columns = List.copyOf(columns);
+        indexes = List.copyOf(indexes);
+        if (!columns.isEmpty() && !indexes.isEmpty()) {
+            throw new IllegalArgumentException("Project by column names or by indexes, not both");
+        }
+        if (!columns.isEmpty() && !hasHeader) {
+            throw new IllegalArgumentException("Projecting by column name requires a header");
+        }
+    }
+
+    public CsvFormat withDelimiter(char delimiter) {
+        return new CsvFormat(delimiter, hasHeader, trim, columns, indexes);
+    }
+
+    public CsvFormat withHeader(boolean hasHeader) {
+        return new CsvFormat(delimiter, hasHeader, trim, columns, indexes);
+    }
+
+    public CsvFormat withTrim(boolean trim) {
+        return new CsvFormat(delimiter, hasHeader, trim, columns, indexes);
+    }
+
+    /** Only parse the named columns; rows then expose them at positions 0..n-1. */
+    public CsvFormat select(String... columns) {
+        return new CsvFormat(delimiter, hasHeader, trim, List.of(columns), List.of());
+    }
+
+    /** Only parse the columns at these indexes; rows then expose them at positions 0..n-1. */
+    public CsvFormat selectIndexes(Integer... indexes) {
+        return new CsvFormat(delimiter, hasHeader, trim, List.of(), List.of(indexes));
+    }
+}
@@ -0,0 +1,382 @@
+// Streaming RFC 4180 CSV reader over a FileChannel, sequential or parallel by chunk
+// Replaces Fixture.parseCSV for inputs that do not fit in a String (multi-GB exports)
+
+package j07;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a CSV file without loading it: the file is cut into chunks of about
+ * {@code chunkBytes} that each start and end on a record boundary, and every chunk is read
+ * with one positional read into a per-thread buffer and parsed into a reused {@link CsvRow}.
+ * Rows point into that buffer, so fields are never copied unless they contain escapes.
+ *
+ * <p>Record boundaries are found without parsing the whole file first: the quotes in each raw
+ * chunk are counted in parallel, and since {@code ""} escapes always come in pairs, the parity
+ * of the quote count before an offset tells whether that offset is inside a quoted field. The
+ * first line break after a raw chunk boundary with even parity starts the next record.
+ *
+ * <p>Parsing follows RFC 4180: fields may be quoted, quoted fields may contain delimiters,
+ * line breaks and {@code ""}-escaped quotes, and records end with LF or CRLF. Blank lines are
+ * skipped. Delimiter and line-break scans test 8 bytes at a time.
+ */
+public final class CsvReader implements Closeable {
+
+    static final long DEFAULT_CHUNK_BYTES = 64L << 20;
+
+    private static final int SCAN_BYTES = 1 << 20;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW7 = 0x7f7f7f7f7f7f7f7fL;
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final FileChannel channel;
+    private final CsvFormat format;
+    private final List<String> header;
+    private final int[] slotOfColumn;             // column index -> row position, -1 to skip; null = all
+    private final int width;                      // row size under projection, 0 without one
+    private final long[] boundaries;              // chunk i is [boundaries[i], boundaries[i + 1])
+
+    public static CsvReader open(Path path, CsvFormat format) throws IOException {
+        return open(path, format, DEFAULT_CHUNK_BYTES);
+    }
+
+    /** @param chunkBytes target chunk size; also the unit of parallel work */
+    public static CsvReader open(Path path, CsvFormat format, long chunkBytes) throws IOException {
+        if (chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("chunkBytes must be in (0, " + Integer.MAX_VALUE / 2 + "]");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new CsvReader(channel, format, chunkBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private CsvReader(FileChannel channel, CsvFormat format, long chunkBytes) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        long size = channel.size();
+
+        long dataStart = 0;
+        List<String> names = List.of();
+        if (format.hasHeader() && size > 0) {
+            int end = (int) nextRecordStart(0, size, false);
+            byte[] first = new byte[end];
+            read(first, 0, end);
+            CsvRow row = new CsvRow();
+            Parser headerParser = new Parser((byte) format.delimiter(), format.trim(), null, 0);
+            headerParser.parseRecord(first, 0, end, row);
+            dataStart = end;
+            names = row.toList();
+        }
+        this.header = Collections.unmodifiableList(new ArrayList<>(names));
+
+        if (!format.columns().isEmpty()) {
+            slotOfColumn = new int[header.size()];
+            Arrays.fill(slotOfColumn, -1);
+            for (int slot = 0; slot < format.columns().size(); slot++) {
+                int column = header.indexOf(format.columns().get(slot));
+                if (column < 0) throw new IllegalArgumentException("No column named " + format.columns().get(slot));
+                slotOfColumn[column] = slot;
+            }
+            width = format.columns().size();
+        } else if (!format.indexes().isEmpty()) {
+            slotOfColumn = new int[Collections.max(format.indexes()) + 1];
+            Arrays.fill(slotOfColumn, -1);
+            for (int slot = 0; slot < format.indexes().size(); slot++) slotOfColumn[format.indexes().get(slot)] = slot;
+            width = format.indexes().size();
+        } else {
+            slotOfColumn = null;
+            width = 0;
+        }
+        this.boundaries = split(dataStart, size, chunkBytes);
+    }
+
+    /** Column names from the header record, or an empty list without a header. */
+    public List<String> header() {
+        return header;
+    }
+
+    /** Number of chunks the file was split into. */
+    public int chunks() {
+        return boundaries.length - 1;
+    }
+
+    /** Visits every record in file order on the calling thread; returns the record count. */
+    public long forEach(Consumer<CsvRow> action) {
+        CsvRow row = new CsvRow();
+        Parser parser = newParser();
+        byte[] buffer = new byte[0];
+        long records = 0;
+        for (int chunk = 0; chunk < chunks(); chunk++) {
+            buffer = readChunk(chunk, buffer);
+            records += parser.parseChunk(buffer, chunkLength(chunk), row, action);
+        }
+        return records;
+    }
+
+    /**
+     * Parses chunks in parallel on the common fork-join pool. Each chunk gets its own
+     * accumulator from {@code newAccumulator}; {@code action} sees that chunk's records in file
+     * order. The accumulators are returned in file order, ready to be merged.
+     */
+    public <A> List<A> parallelForEach(Supplier<A> newAccumulator, BiConsumer<A, CsvRow> action) {
+        List<A> accumulators = new ArrayList<>(Collections.nCopies(chunks(), null));
+        ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[0]);
+        IntStream.range(0, chunks()).parallel().forEach(chunk -> {
+            A accumulator = newAccumulator.get();
+            byte[] buffer = readChunk(chunk, buffers.get());
+            buffers.set(buffer);
+            newParser().parseChunk(buffer, chunkLength(chunk), new CsvRow(), row -> action.accept(accumulator, row));
+            accumulators.set(chunk, accumulator);
+        });
+        return accumulators;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Parser newParser() {
+        return new Parser((byte) format.delimiter(), format.trim(), slotOfColumn, width);
+    }
+
+    private int chunkLength(int chunk) {
+        long length = boundaries[chunk + 1] - boundaries[chunk];
+        if (length > Integer.MAX_VALUE - 8) throw new IllegalStateException("Record larger than 2 GB at offset " + boundaries[chunk]);
+        return (int) length;
+    }
+
+    /** Reads chunk {@code chunk} into {@code reuse}, or into a larger replacement it returns. */
+    private byte[] readChunk(int chunk, byte[] reuse) {
+        int length = chunkLength(chunk);
+        byte[] buffer = reuse.length >= length ? reuse : new byte[length];
+        try {
+            read(buffer, boundaries[chunk], length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chunk " + chunk, e);
+        }
+        return buffer;
+    }
+
+    /** Positional read of {@code length} bytes at {@code position}; safe to call concurrently. */
+    private int read(byte[] buffer, long position, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) break;
+        }
+        return target.position();
+    }
+
+    /**
+     * Chunk boundaries: {@code dataStart}, then the first record start after each multiple of
+     * {@code chunkBytes}, then {@code size}.
+     */
+    private long[] split(long dataStart, long size, long chunkBytes) throws IOException {
+        int rawChunks = (int) Math.max(1, (size - dataStart + chunkBytes - 1) / chunkBytes);
+        long[] quotes = new long[rawChunks];
+        IntStream.range(0, rawChunks).parallel().forEach(i -> {
+            long start = dataStart + i * chunkBytes;
+            long end = Math.min(size, start + chunkBytes);
+            byte[] window = new byte[(int) Math.min(SCAN_BYTES, end - start)];
+            try {
+                for (long at = start; at < end; ) {
+                    int read = read(window, at, (int) Math.min(window.length, end - at));
+                    if (read == 0) break;
+                    quotes[i] += countQuotes(window, read);
+                    at += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        long[] result = new long[rawChunks + 1];
+        int count = 0;
+        result[count++] = dataStart;
+        long quotesBefore = 0;
+        for (int i = 1; i < rawChunks; i++) {
+            quotesBefore += quotes[i - 1];
+            long boundary = nextRecordStart(dataStart + i * chunkBytes, size, (quotesBefore & 1) != 0);
+            if (boundary > result[count - 1] && boundary < size) result[count++] = boundary;
+        }
+        result[count++] = size;
+        return Arrays.copyOf(result, count);
+    }
+
+    /** First offset at or after {@code from} that starts a record, given the quote state at {@code from}. */
+    private long nextRecordStart(long from, long size, boolean inQuotes) throws IOException {
+        byte[] window = new byte[64 << 10];
+        long base = from;
+        while (base < size) {
+            int read = read(window, base, (int) Math.min(window.length, size - base));
+            if (read == 0) break;
+            for (int i = 0; i < read; i++) {
+                byte b = window[i];
+                if (b == QUOTE) inQuotes = !inQuotes;
+                else if (b == LF && !inQuotes) return base + i + 1;
+            }
+            base += read;
+        }
+        return size;
+    }
+
+    static long countQuotes(byte[] data, int limit) {
+        long count = 0;
+        int i = 0;
+        for (; i + 8 <= limit; i += 8) {
+            count += Long.bitCount(exactZeroBytes((long) LONGS.get(data, i) ^ (ONES * QUOTE)));
+        }
+        for (; i < limit; i++) {
+            if (data[i] == QUOTE) count++;
+        }
+        return count;
+    }
+
+    /** High bit set in every byte of {@code x} that is zero, and only in those. */
+    private static long exactZeroBytes(long x) {
+        long y = (x & LOW7) + LOW7;
+        return ~(y | x | LOW7);
+    }
+
+    static int indexOf(byte[] data, int from, int limit, byte a) {
+        return indexOfEither(data, from, limit, a, a);
+    }
+
+    /** Index of the first byte equal to {@code a} or {@code b} in [from, limit), or -1. */
+    static int indexOfEither(byte[] data, int from, int limit, byte a, byte b) {
+        long patternA = ONES * (a & 0xff);
+        long patternB = ONES * (b & 0xff);
+        int i = from;
+        for (; i + 8 <= limit; i += 8) {
+            long x = (long) LONGS.get(data, i);
+            long matches = exactZeroBytes(x ^ patternA) | exactZeroBytes(x ^ patternB);
+            if (matches != 0) return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+        }
+        for (; i < limit; i++) {
+            byte c = data[i];
+            if (c == a || c == b) return i;
+        }
+        return -1;
+    }
+
+    /** Per-thread parsing state: the dialect plus the projection. */
+    static final class Parser {
+        private final byte delimiter;
+        private final boolean trim;
+        private final int[] slotOfColumn;
+        private final int width;
+
+        Parser(byte delimiter, boolean trim, int[] slotOfColumn, int width) {
+            this.delimiter = delimiter;
+            this.trim = trim;
+            this.slotOfColumn = slotOfColumn;
+            this.width = width;
+        }
+
+        /** Parses the records in {@code data[0, limit)}; returns how many were visited. */
+        long parseChunk(byte[] data, int limit, CsvRow row, Consumer<CsvRow> action) {
+            int pos = 0;
+            long records = 0;
+            while (pos < limit) {
+                int next = parseRecord(data, pos, limit, row);
+                if (next < 0) {
+                    pos = -next;                    // blank line
+                    continue;
+                }
+                pos = next;
+                action.accept(row);
+                records++;
+            }
+            return records;
+        }
+
+        /**
+         * Parses the record at {@code pos} into {@code row} and returns the offset after it, or
+         * the negated offset if the record was a blank line.
+         */
+        int parseRecord(byte[] data, int pos, int limit, CsvRow row) {
+            row.reset(data, width);
+            int column = 0;
+            while (true) {
+                int slot = slotOfColumn == null ? column : column < slotOfColumn.length ? slotOfColumn[column] : -1;
+                boolean quoted = pos < limit && data[pos] == QUOTE;
+                if (quoted) {
+                    int contentStart = pos + 1;
+                    int p = contentStart;
+                    boolean escaped = false;
+                    int close;
+                    while (true) {
+                        close = indexOf(data, p, limit, QUOTE);
+                        if (close < 0) {
+                            throw new IllegalStateException("Unterminated quoted field at chunk offset " + pos);
+                        }
+                        if (close + 1 < limit && data[close + 1] == QUOTE) {
+                            escaped = true;
+                            p = close + 2;
+                        } else {
+                            break;
+                        }
+                    }
+                    // Anything between the closing quote and the delimiter is not RFC 4180; ignore it
+                    int stop = indexOfEither(data, close + 1, limit, delimiter, LF);
+                    pos = stop < 0 ? limit : stop;
+                    if (slot >= 0) {
+                        if (escaped) row.setEscaped(slot, contentStart, close);
+                        else row.set(slot, contentStart, close);
+                    }
+                } else {
+                    int stop = indexOfEither(data, pos, limit, delimiter, LF);
+                    if (stop < 0) stop = limit;
+                    int end = stop;
+                    if (end > pos && data[end - 1] == CR && (stop == limit || data[stop] == LF)) end--;
+                    if (column == 0 && end == pos && (stop == limit || data[stop] == LF)) {
+                        return -(stop == limit ? limit : stop + 1);
+                    }
+                    if (slot >= 0) {
+                        int start = pos;
+                        if (trim) {
+                            while (start < end && isBlank(data[start])) start++;
+                            while (end > start && isBlank(data[end - 1])) end--;
+                        }
+                        row.set(slot, start, end);
+                    }
+                    pos = stop;
+                }
+                column++;
+                if (pos < limit && data[pos] == delimiter) {
+                    pos++;
+                    continue;
+                }
+                return pos < limit ? pos + 1 : limit;
+            }
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// Reusable, zero-copy view of one parsed CSV record
+// Fields are (start, end) offsets into the chunk buffer; only quoted fields with "" escapes are copied
+
+package j07;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The record currently being visited by a {@link CsvReader} callback. The same instance is
+ * reused for every record of a chunk, so it is only valid during the callback: copy what you
+ * need to keep (e.g. with {@link #getString(int)}).
+ *
+ * <p>Field contents are the raw bytes of the file (UTF-8 is assumed when decoding strings).
+ * Quoted fields are exposed without their quotes; fields containing {@code ""} escapes are
+ * unescaped into a scratch buffer owned by the row.
+ */
+public final class CsvRow {
+
+    // 10^0 .. 10^22 are the powers of ten a double represents exactly
+    private static final double[] EXACT_POWERS_OF_TEN = new double[23];
+
+    static {
+        for (int i = 0; i < EXACT_POWERS_OF_TEN.length; i++) EXACT_POWERS_OF_TEN[i] = Double.parseDouble("1e" + i);
+    }
+
+    private byte[] data;
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] inScratch = new boolean[16];
+    private int size;
+
+    /** Number of fields: the projection width, or the field count of this record. */
+    public int size() {
+        return size;
+    }
+
+    /** Length of the field in bytes. */
+    public int length(int field) {
+        check(field);
+        return ends[field] - starts[field];
+    }
+
+    public byte byteAt(int field, int index) {
+        check(field);
+        int at = starts[field] + index;
+        if (index < 0 || at >= ends[field]) throw new IndexOutOfBoundsException(index);
+        return inScratch[field] ? scratch[at] : data[at];
+    }
+
+    /** Copies the field's bytes into {@code dst} at {@code offset} and returns the length. */
+    public int copyTo(int field, byte[] dst, int offset) {
+        int length = length(field);
+        System.arraycopy(inScratch[field] ? scratch : data, starts[field], dst, offset, length);
+        return length;
+    }
+
+    /** Decodes the field as UTF-8 into a new String. */
+    public String getString(int field) {
+        int length = length(field);
+        return new String(inScratch[field] ? scratch : data, starts[field], length, StandardCharsets.UTF_8);
+    }
+
+    /** Compares the field with an ASCII string without decoding it. */
+    public boolean contentEquals(int field, String ascii) {
+        int length = length(field);
+        if (length != ascii.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (byteAt(field, i) != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Parses an optionally signed decimal integer without allocating. */
+    public long getLong(int field) {
+        int length = length(field);
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (raw(field, 0) == '-' || raw(field, 0) == '+')) {
+            negative = raw(field, 0) == '-';
+            i = 1;
+        }
+        if (i == length) throw new NumberFormatException("Not a number: \"" + getString(field) + "\"");
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = raw(field, i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("Not a number: \"" + getString(field) + "\"");
+            // Accumulate negatively so Long.MIN_VALUE parses; overflow is detected on the way
+            if (value < (Long.MIN_VALUE + digit) / 10) throw new NumberFormatException("Out of range: \"" + getString(field) + "\"");
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Long.MIN_VALUE) throw new NumberFormatException("Out of range: \"" + getString(field) + "\"");
+        return negative ? value : -value;
+    }
+
+    /**
+     * Parses a decimal number. Plain decimals with up to 18 significant digits and 22 fraction
+     * digits are converted exactly without allocating; anything else (exponents, NaN, longer
+     * values) falls back to {@link Double#parseDouble(String)}.
+     */
+    public double getDouble(int field) {
+        int length = length(field);
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (raw(field, 0) == '-' || raw(field, 0) == '+')) {
+            negative = raw(field, 0) == '-';
+            i = 1;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean sawDigit = false;
+        for (; i < length; i++) {
+            byte b = raw(field, i);
+            if (b >= '0' && b <= '9') {
+                if (digits == 18) return Double.parseDouble(getString(field));
+                sawDigit = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (fractionDigits >= 0) fractionDigits++;
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Double.parseDouble(getString(field));
+            }
+        }
+        int scale = Math.max(fractionDigits, 0);
+        if (!sawDigit || scale >= EXACT_POWERS_OF_TEN.length || mantissa >= (1L << 53)) {
+            return Double.parseDouble(getString(field));
+        }
+        // Both operands are exact doubles, so one division gives the correctly rounded result
+        double value = (double) mantissa / EXACT_POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /** Byte {@code index} of a field already bounds-checked by {@link #length(int)}. */
+    private byte raw(int field, int index) {
+        int at = starts[field] + index;
+        return inScratch[field] ? scratch[at] : data[at];
+    }
+
+    /** The fields as strings, for debugging and tests. */
+    public List<String> toList() {
+        List<String> fields = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) fields.add(getString(i));
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    // --- Parser side ---------------------------------------------------------------------
+
+    void reset(byte[] data, int width) {
+        this.data = data;
+        this.scratchLength = 0;
+        ensureCapacity(width);
+        Arrays.fill(starts, 0, width, 0);
+        Arrays.fill(ends, 0, width, 0);
+        Arrays.fill(inScratch, 0, width, false);
+        this.size = width;
+    }
+
+    void set(int slot, int start, int end) {
+        if (slot >= size) {
+            ensureCapacity(slot + 1);
+            size = slot + 1;
+        }
+        starts[slot] = start;
+        ends[slot] = end;
+        inScratch[slot] = false;
+    }
+
+    /** Stores a quoted field whose content has {@code ""} escapes, collapsing each pair. */
+    void setEscaped(int slot, int start, int end) {
+        if (scratch.length < scratchLength + (end - start)) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + (end - start)));
+        }
+        int from = scratchLength;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            scratch[scratchLength++] = b;
+            if (b == '"') i++;                     // skip the second quote of the pair
+        }
+        set(slot, from, scratchLength);
+        inScratch[slot] = true;
+    }
+
+    private void ensureCapacity(int fields) {
+        if (starts.length >= fields) return;
+        int capacity = Math.max(fields, starts.length * 2);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        inScratch = Arrays.copyOf(inScratch, capacity);
+    }
+
+    private void check(int field) {
+        if (field < 0 || field >= size) throw new IndexOutOfBoundsException("Field " + field + " of " + size);
+    }
+}
@@ -0,0 +1,129 @@
+// Cached, thread-safe replacement for Fixture.formatCurrency, plus an exact minor-unit fast path
+// Formatters are built once per (currency, locale); output is identical to NumberFormat's
+
+package j07;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A currency format configured exactly as {@code Fixture.formatCurrency} configures one: the
+ * locale's currency pattern, the given currency and always two fraction digits.
+ *
+ * <p>Instances are immutable and shared through {@link #of(String, String)}. {@link #format(double)}
+ * delegates to a per-thread clone of the configured {@link NumberFormat}. {@link #formatMinor}
+ * does not touch {@code NumberFormat} at all: the prefixes, suffixes, separators, grouping size
+ * and zero digit are read from it once, and hundredths are written digit by digit.
+ */
+public final class CurrencyFormatter {
+
+    private static final ConcurrentHashMap<Key, CurrencyFormatter> CACHE = new ConcurrentHashMap<>();
+    // 17 integer digits, up to 16 grouping separators, the decimal separator and two fraction digits
+    private static final int MAX_NUMBER_CHARS = 36;
+    private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    private final ThreadLocal<NumberFormat> formats;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private final int groupingSize;                // 0 when the locale does not group
+
+    private record Key(String currency, String locale) {}
+
+    private CurrencyFormatter(String currency, String locale) {
+        NumberFormat format = NumberFormat.getCurrencyInstance(Locale.forLanguageTag(locale));
+        format.setCurrency(Currency.getInstance(currency));
+        format.setMinimumFractionDigits(2);
+        format.setMaximumFractionDigits(2);
+        this.formats = ThreadLocal.withInitial(() -> (NumberFormat) format.clone());
+
+        if (!(format instanceof DecimalFormat decimal)) {
+            throw new IllegalStateException("Expected a DecimalFormat for " + locale + ", got " + format.getClass());
+        }
+        DecimalFormatSymbols symbols = decimal.getDecimalFormatSymbols();
+        this.positivePrefix = decimal.getPositivePrefix();
+        this.positiveSuffix = decimal.getPositiveSuffix();
+        this.negativePrefix = decimal.getNegativePrefix();
+        this.negativeSuffix = decimal.getNegativeSuffix();
+        this.zeroDigit = symbols.getZeroDigit();
+        this.decimalSeparator = symbols.getMonetaryDecimalSeparator();
+        this.groupingSeparator = symbols.getMonetaryGroupingSeparator();
+        this.groupingSize = decimal.isGroupingUsed() ? decimal.getGroupingSize() : 0;
+    }
+
+    /**
+     * The shared formatter for an ISO 4217 currency code and a BCP 47 locale tag.
+     *
+     * @throws IllegalArgumentException if the currency code is unknown
+     */
+    public static CurrencyFormatter of(String currency, String locale) {
+        return CACHE.computeIfAbsent(new Key(currency, locale), key -> new CurrencyFormatter(key.currency, key.locale));
+    }
+
+    /** Drop-in replacement for {@code Fixture.formatCurrency(amount, currency, locale)}. */
+    public static String formatCurrency(double amount, String currency, String locale) {
+        return of(currency, locale).format(amount);
+    }
+
+    /** Formats {@code amount} exactly as {@code Fixture.formatCurrency} does. */
+    public String format(double amount) {
+        return formats.get().format(amount);
+    }
+
+    /** Formats {@code hundredths / 100} (e.g. cents) without rounding and without NumberFormat. */
+    public String formatMinor(long hundredths) {
+        StringBuilder out = SCRATCH.get();
+        out.setLength(0);
+        return formatMinor(hundredths, out).toString();
+    }
+
+    /** Appends {@code hundredths / 100} to {@code out}; returns {@code out}. */
+    public StringBuilder formatMinor(long hundredths, StringBuilder out) {
+        boolean negative = hundredths < 0;
+        // Split before negating so Long.MIN_VALUE does not overflow
+        long units = Math.abs(hundredths / 100);
+        int fraction = (int) Math.abs(hundredths % 100);
+
+        // Filled right to left: fraction, separator, then integer digits with grouping
+        char[] digits = new char[MAX_NUMBER_CHARS];
+        int pos = digits.length;
+        digits[--pos] = (char) (zeroDigit + fraction % 10);
+        digits[--pos] = (char) (zeroDigit + fraction / 10);
+        digits[--pos] = decimalSeparator;
+        int written = 0;
+        do {
+            if (groupingSize > 0 && written > 0 && written % groupingSize == 0) digits[--pos] = groupingSeparator;
+            digits[--pos] = (char) (zeroDigit + (int) (units % 10));
+            units /= 10;
+            written++;
+        } while (units > 0);
+        return out.append(negative ? negativePrefix : positivePrefix)
+                .append(digits, pos, digits.length - pos)
+                .append(negative ? negativeSuffix : positiveSuffix);
+    }
+
+    /** Appends {@code hundredths / 100} to any {@link Appendable}. */
+    public void formatMinor(long hundredths, Appendable out) {
+        if (out instanceof StringBuilder builder) {
+            formatMinor(hundredths, builder);
+            return;
+        }
+        StringBuilder scratch = SCRATCH.get();
+        scratch.setLength(0);
+        try {
+            out.append(formatMinor(hundredths, scratch));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+// Columnar bulk form of Fixture.calculateShipping for cart x carrier x service-level quote grids
+// Invalid rows go to an error bitmask instead of throwing; valid rows match the scalar price exactly
+
+package j07;
+
+import java.util.stream.IntStream;
+
+/**
+ * Prices many shipments at once. Inputs are parallel columns: {@code weights[i]} and
+ * {@code distances[i]} in kg and km, and an express flag in bit {@code i % 64} of
+ * {@code express[i / 64]} (the {@link java.util.BitSet#toLongArray()} layout).
+ *
+ * <p>Row {@code i} is invalid where {@code Fixture.calculateShipping} would throw (weight or
+ * distance not positive) and also when either is NaN, which the scalar method silently prices
+ * at 0.0. Invalid rows get {@code NaN} and a set bit in the returned error mask, which uses the
+ * same layout as {@code express}. Every other row is bit-for-bit the scalar result.
+ *
+ * <p>Work is done in blocks of {@value #BLOCK} rows: a straight-line pass computes the base
+ * totals (a loop C2 can turn into SIMD code), then a branch-free pass per 64-row word applies
+ * the surcharges, the rounding and the error bits. Blocks are independent, so
+ * {@link #quoteParallel} splits the rows across the common fork-join pool.
+ */
+public final class ShippingQuotes {
+
+    static final int BLOCK = 1024;
+    static final int PARALLEL_CHUNK = 64 * BLOCK;
+
+    private static final double BASE_RATE = 2.50;
+    private static final double PER_KG = 0.85;
+    private static final double PER_KM = 0.012;
+    private static final double EXPRESS_SURCHARGE = 0.75;         // 1.0 + 0.75 == 1.75 exactly
+    private static final double LONG_HAUL_KM = 500;
+    private static final double LONG_HAUL_FACTOR = 1.20;
+    // Math.round(x) == floor(x + 0.5) below 2^52; above, x is already an integer (capped like the long cast)
+    private static final double EXACT_INTEGERS = 0x1p52;
+    private static final double LONG_RANGE = 0x1p63;
+
+    private ShippingQuotes() {}
+
+    /**
+     * Writes the price of row {@code i} to {@code out[i]} for every row of {@code weights}.
+     *
+     * @return the error mask: bit {@code i} set if row {@code i} was invalid
+     * @throws IllegalArgumentException if the other arrays do not cover {@code weights.length} rows
+     */
+    public static long[] quote(double[] weights, double[] distances, long[] express, double[] out) {
+        long[] errors = checkAndAllocate(weights, distances, express, out);
+        quoteRange(weights, distances, express, out, errors, 0, weights.length);
+        return errors;
+    }
+
+    /** {@link #quote} with chunks of {@value #PARALLEL_CHUNK} rows priced in parallel. */
+    public static long[] quoteParallel(double[] weights, double[] distances, long[] express, double[] out) {
+        long[] errors = checkAndAllocate(weights, distances, express, out);
+        int n = weights.length;
+        // Chunks start on multiples of 64, so no two chunks write the same error word
+        IntStream.range(0, (n + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK).parallel().forEach(chunk -> {
+            int from = chunk * PARALLEL_CHUNK;
+            quoteRange(weights, distances, express, out, errors, from, Math.min(n, from + PARALLEL_CHUNK));
+        });
+        return errors;
+    }
+
+    /** Number of invalid rows in an error mask. */
+    public static int errorCount(long[] errors) {
+        int count = 0;
+        for (long word : errors) count += Long.bitCount(word);
+        return count;
+    }
+
+    private static long[] checkAndAllocate(double[] weights, double[] distances, long[] express, double[] out) {
+        int n = weights.length;
+        if (distances.length < n || out.length < n || express.length < (n + 63) >>> 6) {
+            throw new IllegalArgumentException("distances, express and out must cover " + n + " rows");
+        }
+        return new long[(n + 63) >>> 6];
+    }
+
+    /** Prices rows [from, to); {@code from} must be a multiple of 64. */
+    private static void quoteRange(double[] weights, double[] distances, long[] express, double[] out, long[] errors,
+                                   int from, int to) {
+        for (int blockStart = from; blockStart < to; blockStart += BLOCK) {
+            int blockEnd = Math.min(to, blockStart + BLOCK);
+            // Same operation order as the scalar method: (base + weight) + distance
+            for (int i = blockStart; i < blockEnd; i++) {
+                out[i] = BASE_RATE + weights[i] * PER_KG + distances[i] * PER_KM;
+            }
+            for (int wordStart = blockStart; wordStart < blockEnd; wordStart += 64) {
+                int wordEnd = Math.min(blockEnd, wordStart + 64);
+                long expressBits = express[wordStart >>> 6];
+                long invalid = 0;
+                for (int i = wordStart; i < wordEnd; i++) {
+                    double weight = weights[i];
+                    double distance = distances[i];
+                    // Multiplying by exactly 1.0 leaves the scalar's "if" branches bit-identical
+                    double total = out[i] * (1.0 + EXPRESS_SURCHARGE * ((expressBits >>> i) & 1));
+                    total *= distance > LONG_HAUL_KM ? LONG_HAUL_FACTOR : 1.0;
+                    double cents = total * 100.0;
+                    double rounded = cents < EXACT_INTEGERS ? Math.floor(cents + 0.5) : Math.min(cents, LONG_RANGE);
+                    boolean valid = weight > 0 & distance > 0;
+                    out[i] = valid ? rounded / 100.0 : Double.NaN;
+                    invalid |= (valid ? 0L : 1L) << i;
+                }
+                errors[wordStart >>> 6] = invalid;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// Single-pass slug generation with a precomputed code point -> ASCII table
+// Same output as Fixture.generateSlug without its lowercase/normalize/five-regex pipeline
+
+package j07;
+
+import java.text.Normalizer;
+import java.util.List;
+
+/**
+ * Builds URL slugs the way {@code Fixture.generateSlug} does: lowercase, strip accents, keep
+ * only {@code [a-z0-9]}, turn every run of whitespace and hyphens into one {@code -}, drop
+ * leading whitespace, cut at {@code maxLength} and remove a trailing {@code -}.
+ *
+ * <p>Every step of the fixture except the separator handling is per code point, so each code
+ * point maps to a fixed ASCII string (its lowercase NFD form filtered to {@code [a-z0-9-]}, with
+ * {@code \s} characters as a space). That mapping is precomputed for Latin-1, Latin Extended-A/B
+ * and Latin Extended Additional, and filled in on first use for the rest of the BMP. One pass
+ * over the input then applies the table and the separator rules while writing the output.
+ *
+ * <p>Lowercasing uses the default locale when the table is built, as the fixture does per call.
+ * The one context-dependent case it cannot reproduce is Turkish/Azeri {@code I} followed by
+ * U+0307, which those locales lowercase together to {@code i}.
+ */
+public final class Slugger {
+
+    public static final int DEFAULT_MAX_LENGTH = 60;
+
+    private static final int BMP = 0x10000;
+    private static final String[] TABLE = new String[BMP];
+
+    static {
+        for (int c = 0; c < 0x250; c++) TABLE[c] = transliterate(c);          // Latin-1, Extended-A/B
+        for (int c = 0x1e00; c < 0x1f00; c++) TABLE[c] = transliterate(c);    // Extended Additional
+    }
+
+    private Slugger() {}
+
+    public static String slug(CharSequence text) {
+        return slug(text, DEFAULT_MAX_LENGTH);
+    }
+
+    public static String slug(CharSequence text, int maxLength) {
+        StringBuilder out = new StringBuilder(Math.max(0, Math.min(text.length(), maxLength)));
+        appendSlug(text, maxLength, out);
+        return out.toString();
+    }
+
+    /** Appends the slug of {@code text} to {@code out}; returns the number of characters appended. */
+    public static int appendSlug(CharSequence text, int maxLength, StringBuilder out) {
+        if (maxLength < 0) throw new IllegalArgumentException("maxLength cannot be negative: " + maxLength);
+        int start = out.length();
+        int limit = start + maxLength;
+        boolean started = false;          // past the leading whitespace the fixture trims
+        boolean separator = false;        // a whitespace/hyphen run is waiting to be written as '-'
+        for (int i = 0, n = text.length(); i < n && out.length() < limit; ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            String ascii = codePoint < BMP ? mapped(codePoint) : transliterate(codePoint);
+            for (int k = 0; k < ascii.length() && out.length() < limit; k++) {
+                char c = ascii.charAt(k);
+                if (c == ' ') {
+                    separator |= started;
+                } else if (c == '-') {
+                    started = true;
+                    separator = true;
+                } else {
+                    if (separator) {
+                        out.append('-');
+                        separator = false;
+                        if (out.length() == limit) break;
+                    }
+                    out.append(c);
+                    started = true;
+                }
+            }
+        }
+        // A pending separator is never written; one written just before the cut is removed
+        if (out.length() > start && out.charAt(out.length() - 1) == '-') out.setLength(out.length() - 1);
+        return out.length() - start;
+    }
+
+    /**
+     * Slugs a batch into one reusable buffer: {@code buffer} is cleared, slug {@code i} ends up at
+     * {@code buffer[ends[i - 1], ends[i])} (with {@code ends[-1] = 0}). Returns {@code buffer}.
+     */
+    public static StringBuilder slugAll(List<? extends CharSequence> texts, int maxLength, StringBuilder buffer, int[] ends) {
+        if (ends.length < texts.size()) {
+            throw new IllegalArgumentException("ends has room for " + ends.length + " slugs, got " + texts.size());
+        }
+        buffer.setLength(0);
+        for (int i = 0; i < texts.size(); i++) {
+            appendSlug(texts.get(i), maxLength, buffer);
+            ends[i] = buffer.length();
+        }
+        return buffer;
+    }
+
+    private static String mapped(int c) {
+        String ascii = TABLE[c];
+        if (ascii == null) {
+            // Racy but benign: every thread computes the same immutable String
+            ascii = transliterate(c);
+            TABLE[c] = ascii;
+        }
+        return ascii;
+    }
+
+    /** The fixture's pipeline applied to a single code point, with {@code \s} kept as ' '. */
+    private static String transliterate(int codePoint) {
+        String decomposed = Normalizer.normalize(new String(Character.toChars(codePoint)).toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder kept = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-') kept.append(c);
+            else if (c == ' ' || c == '\t' || c == '\n' || c == 0x0b || c == '\f' || c == '\r') kept.append(' ');
+        }
+        return kept.length() == 0 ? "" : kept.toString();
+    }
+}
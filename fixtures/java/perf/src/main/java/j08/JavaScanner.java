@@ -0,0 +1,176 @@
+// Lexical scanner for Java source: identifiers, literals, comments, whitespace and symbols
+// Just enough lexing for safe rewrites; it never builds a syntax tree
+
+package j08;
+
+import java.util.Arrays;
+
+/**
+ * Splits Java source into tokens stored as parallel int arrays (kind, start, end), so scanning
+ * a file allocates three arrays rather than one object per token. Unterminated comments and
+ * literals run to the end of the line or file instead of failing: sources that do not compile
+ * still get migrated as far as possible.
+ */
+final class JavaScanner {
+
+    static final int IDENTIFIER = 0;
+    static final int WHITESPACE = 1;
+    static final int COMMENT = 2;
+    static final int STRING = 3;              // "..." and """text blocks"""
+    static final int CHAR = 4;
+    static final int NUMBER = 5;
+    static final int SYMBOL = 6;              // any other single character
+
+    private final String source;
+    private int[] kinds = new int[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int count;
+
+    private JavaScanner(String source) {
+        this.source = source;
+    }
+
+    static JavaScanner scan(String source) {
+        JavaScanner scanner = new JavaScanner(source);
+        scanner.run();
+        return scanner;
+    }
+
+    String source() {
+        return source;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int kind(int token) {
+        return kinds[token];
+    }
+
+    int start(int token) {
+        return starts[token];
+    }
+
+    int end(int token) {
+        return ends[token];
+    }
+
+    String text(int token) {
+        return source.substring(starts[token], ends[token]);
+    }
+
+    /** Whether the token's text equals {@code text}, without allocating. */
+    boolean is(int token, String text) {
+        return token >= 0 && token < count && ends[token] - starts[token] == text.length()
+                && source.startsWith(text, starts[token]);
+    }
+
+    boolean isSymbol(int token, char symbol) {
+        return token >= 0 && token < count && kinds[token] == SYMBOL && source.charAt(starts[token]) == symbol;
+    }
+
+    /** Next token after {@code token} that is not whitespace or a comment, or {@link #count()}. */
+    int nextSignificant(int token) {
+        int i = token + 1;
+        while (i < count && (kinds[i] == WHITESPACE || kinds[i] == COMMENT)) i++;
+        return i;
+    }
+
+    /** Previous token before {@code token} that is not whitespace or a comment, or -1. */
+    int previousSignificant(int token) {
+        int i = token - 1;
+        while (i >= 0 && (kinds[i] == WHITESPACE || kinds[i] == COMMENT)) i--;
+        return i;
+    }
+
+    private void run() {
+        int length = source.length();
+        int pos = 0;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            int start = pos;
+            int kind;
+            if (Character.isWhitespace(c)) {
+                kind = WHITESPACE;
+                do pos++; while (pos < length && Character.isWhitespace(source.charAt(pos)));
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                kind = COMMENT;
+                pos = lineEnd(pos);
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+                kind = COMMENT;
+                int close = source.indexOf("*/", pos + 2);
+                pos = close < 0 ? length : close + 2;
+            } else if (c == '"' && source.startsWith("\"\"\"", pos)) {
+                kind = STRING;
+                pos = literalEnd(pos + 3, "\"\"\"", false);
+            } else if (c == '"' || c == '\'') {
+                kind = c == '"' ? STRING : CHAR;
+                pos = literalEnd(pos + 1, c == '"' ? "\"" : "'", true);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                kind = IDENTIFIER;
+                do pos++; while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos)));
+            } else if (isDigit(c) || (c == '.' && pos + 1 < length && isDigit(source.charAt(pos + 1)))) {
+                kind = NUMBER;
+                pos = numberEnd(pos);
+            } else {
+                kind = SYMBOL;
+                pos++;
+            }
+            add(kind, start, pos);
+        }
+    }
+
+    private void add(int kind, int start, int end) {
+        if (count == kinds.length) {
+            kinds = Arrays.copyOf(kinds, count * 2);
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private int lineEnd(int pos) {
+        while (pos < source.length() && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') pos++;
+        return pos;
+    }
+
+    /** End of a literal whose content starts at {@code pos}, honouring backslash escapes. */
+    private int literalEnd(int pos, String close, boolean singleLine) {
+        int length = source.length();
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (source.startsWith(close, pos)) {
+                return pos + close.length();
+            } else if (singleLine && (c == '\n' || c == '\r')) {
+                return pos;
+            } else {
+                pos++;
+            }
+        }
+        return length;
+    }
+
+    private int numberEnd(int pos) {
+        int length = source.length();
+        pos++;                                        // the leading digit or '.'
+        while (pos < length) {
+            char c = source.charAt(pos);
+            char previous = source.charAt(pos - 1);
+            boolean exponentSign = (c == '+' || c == '-') && (previous == 'e' || previous == 'E' || previous == 'p' || previous == 'P');
+            if (!(Character.isJavaIdentifierPart(c) || c == '.' || exponentSign)) break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
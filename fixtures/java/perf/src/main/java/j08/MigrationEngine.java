@@ -0,0 +1,160 @@
+// Parallel, incremental javax -> jakarta / Spring Security 6 migration over a source tree
+// Files whose content hash matches the previous run's clean state are skipped without scanning
+
+package j08;
+
+import j08.MigrationReport.FileResult;
+import j08.MigrationReport.Status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Migrates every {@code .java} file under a root with {@link SourceMigrator}, one file per
+ * task on the common fork-join pool.
+ *
+ * <p>With a state file, each run records the SHA-256 of every file it left clean (nothing to
+ * rewrite, no findings), including files it just rewrote. The next run hashes each file and
+ * skips scanning when the hash still matches, so re-running after a partial edit only touches
+ * what changed. Dry runs record only files that were already clean, since nothing was written.
+ *
+ * <p>Rewritten files and the state file are replaced atomically (temp file + move), so an
+ * interrupted run never leaves a half-written source. The temp file is created owner-only, so
+ * it takes the replaced file's POSIX permissions before the move.
+ */
+public final class MigrationEngine {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    });
+
+    private final SourceMigrator migrator = new SourceMigrator();
+    private final Path root;
+    private final Path stateFile;
+
+    /** @param stateFile where clean hashes are kept between runs; null to always scan everything */
+    public MigrationEngine(Path root, Path stateFile) {
+        this.root = root;
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * @param apply write migrated sources back; false for a dry run that only reports diffs
+     */
+    public MigrationReport run(boolean apply) throws IOException {
+        long start = System.nanoTime();
+        Map<String, String> previous = loadState();
+        List<Path> sources;
+        try (Stream<Path> walk = Files.walk(root)) {
+            sources = walk.filter(path -> path.getFileName().toString().endsWith(".java") && Files.isRegularFile(path))
+                    .sorted()
+                    .toList();
+        }
+
+        ConcurrentHashMap<String, String> clean = new ConcurrentHashMap<>();
+        List<FileResult> results = sources.parallelStream()
+                .map(path -> process(path, previous, clean, apply))
+                .toList();
+        saveState(clean);
+        return new MigrationReport(results, System.nanoTime() - start);
+    }
+
+    private FileResult process(Path file, Map<String, String> previous, Map<String, String> clean, boolean apply) {
+        String path = relative(file);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            String hash = sha256(bytes);
+            if (hash.equals(previous.get(path))) {
+                clean.put(path, hash);
+                return FileResult.of(path, Status.SKIPPED);
+            }
+            String source;
+            try {
+                source = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(ByteBuffer.wrap(bytes))
+                        .toString();
+            } catch (CharacterCodingException e) {
+                return new FileResult(path, Status.FAILED, "", Map.of(), List.of(), "not valid UTF-8");
+            }
+
+            SourceMigrator.Result result = migrator.migrate(source);
+            if (!result.changed(source)) {
+                if (result.findings().isEmpty()) clean.put(path, hash);
+                return new FileResult(path, Status.CLEAN, "", Map.of(), result.findings(), null);
+            }
+            String diff = UnifiedDiff.diff(path, source, result.output());
+            if (apply) {
+                byte[] migrated = result.output().getBytes(StandardCharsets.UTF_8);
+                replace(file, migrated);
+                if (result.findings().isEmpty()) clean.put(path, sha256(migrated));
+            }
+            return new FileResult(path, Status.MIGRATED, diff, Map.copyOf(result.rewrites()), result.findings(), null);
+        } catch (IOException | UncheckedIOException e) {
+            return new FileResult(path, Status.FAILED, "", Map.of(), List.of(), e.toString());
+        }
+    }
+
+    private String relative(Path file) {
+        return root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+    }
+
+    private static void replace(Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            PosixFileAttributeView permissions = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+            if (permissions != null && Files.exists(target)) {
+                Files.getFileAttributeView(tmp, PosixFileAttributeView.class)
+                        .setPermissions(permissions.readAttributes().permissions());
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(SHA_256.get().digest(bytes));
+    }
+
+    /** State file lines: {@code <sha-256 hex> <tab> <relative path>}. */
+    private Map<String, String> loadState() throws IOException {
+        Map<String, String> hashes = new HashMap<>();
+        if (stateFile == null || !Files.exists(stateFile)) return hashes;
+        for (String line : Files.readAllLines(stateFile, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) hashes.put(line.substring(tab + 1), line.substring(0, tab));
+        }
+        return hashes;
+    }
+
+    private void saveState(Map<String, String> hashes) throws IOException {
+        if (stateFile == null) return;
+        StringBuilder out = new StringBuilder(hashes.size() * 100);
+        new TreeMap<>(hashes).forEach((path, hash) -> out.append(hash).append('\t').append(path).append('\n'));
+        replace(stateFile, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
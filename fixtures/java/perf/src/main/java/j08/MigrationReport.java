@@ -0,0 +1,82 @@
+// Outcome of one MigrationEngine run: per-file status, diffs and findings, plus totals
+
+package j08;
+
+import j08.SourceMigrator.Finding;
+import j08.SourceMigrator.Rule;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @param files        one entry per scanned {@code .java} file, sorted by path
+ * @param elapsedNanos wall time of the run, including the tree walk and the state file
+ */
+public record MigrationReport(List<FileResult> files, long elapsedNanos) {
+
+    public enum Status {
+        /** Content hash matched the last run's clean hash; not even scanned. */
+        SKIPPED,
+        /** Scanned, nothing to rewrite. */
+        CLEAN,
+        /** Rewritten (or would be, in a dry run); see {@link FileResult#diff()}. */
+        MIGRATED,
+        /** Could not be read, decoded or written; see {@link FileResult#error()}. */
+        FAILED
+    }
+
+    /**
+     * @param path     path relative to the migrated root, with {@code /} separators
+     * @param diff     unified diff of the rewrite, empty unless {@link Status#MIGRATED}
+     * @param findings usages that need a manual migration
+     */
+    public record FileResult(String path, Status status, String diff, Map<Rule, Integer> rewrites,
+                             List<Finding> findings, String error) {
+
+        static FileResult of(String path, Status status) {
+            return new FileResult(path, status, "", Map.of(), List.of(), null);
+        }
+    }
+
+    public MigrationReport {
+        files = List.copyOf(files);
+    }
+
+    public long count(Status status) {
+        return files.stream().filter(file -> file.status == status).count();
+    }
+
+    /** Rewrites applied across all files, per rule. */
+    public Map<Rule, Long> rewrites() {
+        Map<Rule, Long> totals = new EnumMap<>(Rule.class);
+        for (FileResult file : files) file.rewrites.forEach((rule, n) -> totals.merge(rule, (long) n, Long::sum));
+        return totals;
+    }
+
+    public List<FileResult> withFindings() {
+        return files.stream().filter(file -> !file.findings.isEmpty()).toList();
+    }
+
+    public double filesPerSecond() {
+        return elapsedNanos == 0 ? 0 : files.size() * 1e9 / elapsedNanos;
+    }
+
+    /** A few lines for a console or CI log. */
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d files in %.1f ms (%.0f files/s): %d migrated, %d clean, %d skipped, %d failed%n",
+                files.size(), elapsedNanos / 1e6, filesPerSecond(),
+                count(Status.MIGRATED), count(Status.CLEAN), count(Status.SKIPPED), count(Status.FAILED)));
+        rewrites().forEach((rule, n) -> out.append("  ").append(rule).append(": ").append(n).append('\n'));
+        for (FileResult file : withFindings()) {
+            for (Finding finding : file.findings) {
+                out.append("  ").append(file.path).append(':').append(finding.line()).append(": ").append(finding.message()).append('\n');
+            }
+        }
+        for (FileResult file : files) {
+            if (file.status == Status.FAILED) out.append("  ").append(file.path).append(": ").append(file.error).append('\n');
+        }
+        return out.toString();
+    }
+}
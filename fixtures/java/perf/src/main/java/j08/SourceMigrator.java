@@ -0,0 +1,407 @@
+// Spring Boot 2.7 -> 3.x rewrites for one Java source file, driven by JavaScanner tokens
+// javax.* -> jakarta.*, antMatchers -> requestMatchers, WebSecurityConfigurerAdapter -> SecurityFilterChain bean
+
+package j08;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a single source file. Stateless and thread-safe.
+ *
+ * <ul>
+ *   <li>{@code javax.<pkg>} qualified names for the Jakarta EE packages become
+ *       {@code jakarta.<pkg>} in code, and in string literals and comments at a name boundary
+ *       (property keys such as {@code javax.persistence.jdbc.url} were renamed as well). JDK
+ *       packages such as {@code javax.sql} or {@code javax.annotation.processing} are kept.</li>
+ *   <li>Calls to {@code antMatchers} and {@code mvcMatchers} become {@code requestMatchers};
+ *       {@code authorizeRequests} becomes {@code authorizeHttpRequests}.</li>
+ *   <li>{@code requestMatchers(String...)} reads its arguments as path patterns, so
+ *       {@code regexMatchers("a", "b")} becomes
+ *       {@code requestMatchers(RegexRequestMatcher.regexMatcher("a"), RegexRequestMatcher.regexMatcher("b"))}
+ *       (with an optional leading {@code HttpMethod.X} passed to each) and the import is added.
+ *       Calls whose patterns are not string literals are left alone and reported.</li>
+ *   <li>A class that extends {@code WebSecurityConfigurerAdapter} and only overrides
+ *       {@code configure(HttpSecurity)} is turned into a {@code @Bean SecurityFilterChain}
+ *       factory; any other adapter usage is left alone and reported as a {@link Finding}.</li>
+ * </ul>
+ *
+ * Because every rule matches tokens, identifiers like {@code myjavax} or text that merely
+ * contains {@code antMatchers} inside a literal are never touched.
+ */
+public final class SourceMigrator {
+
+    public enum Rule { JAKARTA_NAMESPACE, REQUEST_MATCHERS, AUTHORIZE_HTTP_REQUESTS, SECURITY_FILTER_CHAIN }
+
+    public record Finding(int line, String message) {}
+
+    public record Result(String output, Map<Rule, Integer> rewrites, List<Finding> findings) {
+        public boolean changed(String input) {
+            return !output.equals(input);
+        }
+    }
+
+    /** Strings that must occur in a file for any rule to apply; files without them skip scanning. */
+    static final List<String> TRIGGERS = List.of("javax", "Matchers", "authorizeRequests", "WebSecurityConfigurerAdapter");
+
+    // Jakarta EE 9 renamed these javax packages (and their subpackages). javax.annotation is shared with
+    // JSR-305 (CheckForNull, concurrent.GuardedBy, meta.*), so only the Jakarta Annotations types are listed
+    private static final Set<String> JAKARTA_PACKAGES = Set.of(
+            "activation", "annotation.Generated", "annotation.ManagedBean", "annotation.PostConstruct",
+            "annotation.PreDestroy", "annotation.Priority", "annotation.Resource", "annotation.Resources",
+            "annotation.security", "annotation.sql", "batch", "decorator", "ejb", "el", "enterprise", "faces", "inject",
+            "interceptor", "jms", "json", "jws", "mail", "persistence", "resource", "security.auth.message",
+            "security.enterprise", "security.jacc", "servlet", "transaction", "validation", "websocket",
+            "ws.rs", "xml.bind", "xml.soap", "xml.ws");
+    // ...except these, which still ship with the JDK
+    private static final Set<String> JDK_PACKAGES = Set.of("annotation.processing", "transaction.xa");
+
+    private static final Map<String, String> METHOD_RENAMES = Map.of(
+            "antMatchers", "requestMatchers",
+            "mvcMatchers", "requestMatchers",
+            "authorizeRequests", "authorizeHttpRequests");
+
+    private static final String ADAPTER = "WebSecurityConfigurerAdapter";
+    private static final String ADAPTER_IMPORT = "org.springframework.security.config.annotation.web.configuration." + ADAPTER;
+    private static final String CHAIN_IMPORT = "org.springframework.security.web.SecurityFilterChain";
+    private static final String BEAN_IMPORT = "org.springframework.context.annotation.Bean";
+    private static final String REGEX_MATCHER = "RegexRequestMatcher";
+    private static final String REGEX_MATCHER_PACKAGE = "org.springframework.security.web.util.matcher";
+    // Adapter members a converted class could no longer call
+    private static final Set<String> ADAPTER_MEMBERS = Set.of(
+            "super", "authenticationManager", "authenticationManagerBean", "userDetailsService", "userDetailsServiceBean",
+            "getApplicationContext", "getHttp");
+
+    /** Migrates {@code source}; the result's output is {@code source} itself when nothing applies. */
+    public Result migrate(String source) {
+        Map<Rule, Integer> rewrites = new EnumMap<>(Rule.class);
+        List<Finding> findings = new ArrayList<>();
+        if (TRIGGERS.stream().noneMatch(source::contains)) return new Result(source, rewrites, findings);
+
+        JavaScanner tokens = JavaScanner.scan(source);
+        Edits edits = new Edits(source);
+        boolean adapterConverted = false;
+        boolean adapterReported = false;
+        boolean regexMatcherUsed = false;
+        int adapterImport = -1;
+        int declarationsEnd = -1;                                        // ';' ending the package or last import
+
+        for (int i = 0; i < tokens.count(); i++) {
+            int kind = tokens.kind(i);
+            if (kind == JavaScanner.STRING || kind == JavaScanner.COMMENT) {
+                rewriteEmbeddedNames(tokens, i, edits, rewrites);
+            } else if (kind == JavaScanner.IDENTIFIER) {
+                if (tokens.is(i, "javax")) {
+                    if (isAnnotationWildcardImport(tokens, i)) {
+                        findings.add(new Finding(edits.lineOf(tokens.start(i)), "javax.annotation.* mixes JSR-305 and "
+                                + "Jakarta Annotations; import the jakarta.annotation types it uses explicitly"));
+                    }
+                    rewriteQualifiedName(tokens, i, edits, rewrites);
+                } else if (tokens.is(i, "import") || tokens.is(i, "package")) {
+                    int name = tokens.nextSignificant(i);
+                    if (tokens.is(i, "import") && qualifiedNameEquals(tokens, name, ADAPTER_IMPORT)) adapterImport = name;
+                    for (int end = name; end < tokens.count(); end++) {
+                        if (tokens.isSymbol(end, ';')) {
+                            declarationsEnd = end;
+                            break;
+                        }
+                    }
+                } else if (tokens.is(i, "regexMatchers") && isMethodCall(tokens, i)) {
+                    if (rewriteRegexMatchers(tokens, i, edits)) {
+                        regexMatcherUsed = true;
+                        count(rewrites, Rule.REQUEST_MATCHERS);
+                    } else {
+                        findings.add(new Finding(edits.lineOf(tokens.start(i)), "regexMatchers with patterns that are not "
+                                + "string literals; wrap each in RegexRequestMatcher.regexMatcher(...) manually"));
+                    }
+                } else if (METHOD_RENAMES.containsKey(tokens.text(i)) && isMethodCall(tokens, i)) {
+                    String target = METHOD_RENAMES.get(tokens.text(i));
+                    edits.replace(tokens.start(i), tokens.end(i), target);
+                    count(rewrites, target.equals("requestMatchers") ? Rule.REQUEST_MATCHERS : Rule.AUTHORIZE_HTTP_REQUESTS);
+                } else if (tokens.is(i, ADAPTER) && tokens.is(tokens.previousSignificant(i), "extends")) {
+                    String problem = convertAdapter(tokens, i, edits);
+                    if (problem == null) {
+                        adapterConverted = true;
+                        count(rewrites, Rule.SECURITY_FILTER_CHAIN);
+                    } else {
+                        findings.add(new Finding(edits.lineOf(tokens.start(i)), problem));
+                        adapterReported = true;
+                    }
+                }
+            }
+        }
+
+        if (adapterConverted && adapterImport >= 0) {
+            int end = tokens.end(qualifiedNameEnd(tokens, adapterImport));
+            String replacement = CHAIN_IMPORT;
+            if (!source.contains("import " + BEAN_IMPORT + ";") && !source.contains("import org.springframework.context.annotation.*;")) {
+                replacement += ";\nimport " + BEAN_IMPORT;
+            }
+            edits.replace(tokens.start(adapterImport), end, replacement);
+        } else if (!adapterConverted && adapterImport >= 0 && !adapterReported) {
+            findings.add(new Finding(edits.lineOf(tokens.start(adapterImport)),
+                    ADAPTER + " is imported; Spring Security 6 removed it, migrate its usages manually"));
+        }
+        if (regexMatcherUsed && !source.contains("import " + REGEX_MATCHER_PACKAGE + "." + REGEX_MATCHER + ";")
+                && !source.contains("import " + REGEX_MATCHER_PACKAGE + ".*;")) {
+            String line = "import " + REGEX_MATCHER_PACKAGE + "." + REGEX_MATCHER + ";";
+            if (declarationsEnd >= 0) edits.replace(tokens.end(declarationsEnd), tokens.end(declarationsEnd), "\n" + line);
+            else edits.replace(0, 0, line + "\n\n");
+        }
+        return new Result(edits.apply(), rewrites, findings);
+    }
+
+    // --- javax -> jakarta --------------------------------------------------------------------
+
+    private static void rewriteQualifiedName(JavaScanner tokens, int javax, Edits edits, Map<Rule, Integer> rewrites) {
+        if (tokens.isSymbol(javax - 1, '.')) return;                 // some.other.javax.x
+        StringBuilder rest = new StringBuilder();
+        for (int i = javax + 1; tokens.isSymbol(i, '.') && i + 1 < tokens.count()
+                && tokens.kind(i + 1) == JavaScanner.IDENTIFIER; i += 2) {
+            if (!rest.isEmpty()) rest.append('.');
+            rest.append(tokens.text(i + 1));
+        }
+        if (isJakartaPackage(rest)) {
+            edits.replace(tokens.start(javax), tokens.end(javax), "jakarta");
+            count(rewrites, Rule.JAKARTA_NAMESPACE);
+        }
+    }
+
+    /**
+     * Whether token {@code javax} starts {@code import javax.annotation.*;}, which neither rule can
+     * rewrite: the wildcard covers JSR-305 types as well as the Jakarta Annotations ones.
+     */
+    private static boolean isAnnotationWildcardImport(JavaScanner tokens, int javax) {
+        int end = qualifiedNameEnd(tokens, javax);
+        return tokens.is(tokens.previousSignificant(javax), "import") && qualifiedNameEquals(tokens, javax, "javax.annotation")
+                && tokens.isSymbol(end + 1, '.') && tokens.isSymbol(end + 2, '*');
+    }
+
+    /** Whether {@code javax.<name>} lies in a package Jakarta EE renamed. */
+    static boolean isJakartaPackage(CharSequence name) {
+        boolean jakarta = false;
+        String text = name.toString();
+        for (int dot = text.indexOf('.'); ; dot = text.indexOf('.', dot + 1)) {
+            String prefix = dot < 0 ? text : text.substring(0, dot);
+            if (JDK_PACKAGES.contains(prefix)) return false;
+            if (JAKARTA_PACKAGES.contains(prefix)) jakarta = true;
+            if (dot < 0) return jakarta;
+        }
+    }
+
+    private static void rewriteEmbeddedNames(JavaScanner tokens, int token, Edits edits, Map<Rule, Integer> rewrites) {
+        String source = tokens.source();
+        int end = tokens.end(token);
+        for (int at = source.indexOf("javax.", tokens.start(token)); at >= 0 && at < end; at = source.indexOf("javax.", at + 6)) {
+            if (at > 0 && Character.isJavaIdentifierPart(source.charAt(at - 1))) continue;
+            int nameEnd = at + 6;
+            while (nameEnd < end && (Character.isJavaIdentifierPart(source.charAt(nameEnd)) || source.charAt(nameEnd) == '.')) {
+                nameEnd++;
+            }
+            if (isJakartaPackage(source.substring(at + 6, nameEnd))) {
+                edits.replace(at, at + 5, "jakarta");
+                count(rewrites, Rule.JAKARTA_NAMESPACE);
+            }
+        }
+    }
+
+    // --- method renames ----------------------------------------------------------------------
+
+    /**
+     * Rewrites {@code regexMatchers([HttpMethod.X,] "p1", "p2")} at token {@code name} into
+     * {@code requestMatchers(RegexRequestMatcher.regexMatcher([HttpMethod.X, ]"p1"), ...)}.
+     * Returns false, making no edits, unless every pattern is a string literal.
+     */
+    private static boolean rewriteRegexMatchers(JavaScanner tokens, int name, Edits edits) {
+        List<List<Integer>> arguments = new ArrayList<>();
+        List<Integer> argument = new ArrayList<>();
+        int depth = 0;
+        int i = tokens.nextSignificant(name);
+        for (i = tokens.nextSignificant(i); i < tokens.count(); i = tokens.nextSignificant(i)) {
+            if (depth == 0 && (tokens.isSymbol(i, ',') || tokens.isSymbol(i, ')'))) {
+                arguments.add(argument);
+                argument = new ArrayList<>();
+                if (tokens.isSymbol(i, ')')) break;
+                continue;
+            }
+            if (tokens.isSymbol(i, '(')) depth++;
+            else if (tokens.isSymbol(i, ')')) depth--;
+            argument.add(i);
+        }
+        if (i >= tokens.count()) return false;
+
+        List<Integer> method = null;
+        List<Integer> first = arguments.isEmpty() ? List.of() : arguments.get(0);
+        if (first.size() == 3 && tokens.is(first.get(0), "HttpMethod") && tokens.isSymbol(first.get(1), '.')
+                && tokens.kind(first.get(2)) == JavaScanner.IDENTIFIER) {
+            method = first;
+            arguments = arguments.subList(1, arguments.size());
+        }
+        if (arguments.isEmpty()) return false;
+        for (List<Integer> pattern : arguments) {
+            if (pattern.size() != 1 || tokens.kind(pattern.get(0)) != JavaScanner.STRING) return false;
+        }
+
+        String methodText = method == null ? ""
+                : tokens.source().substring(tokens.start(method.get(0)), tokens.end(method.get(2))) + ", ";
+        edits.replace(tokens.start(name), tokens.end(name), "requestMatchers");
+        if (method != null) edits.replace(tokens.start(method.get(0)), tokens.start(arguments.get(0).get(0)), "");
+        for (List<Integer> pattern : arguments) {
+            int literal = pattern.get(0);
+            edits.replace(tokens.start(literal), tokens.end(literal),
+                    REGEX_MATCHER + ".regexMatcher(" + methodText + tokens.text(literal) + ")");
+        }
+        return true;
+    }
+
+    private static boolean isMethodCall(JavaScanner tokens, int name) {
+        return tokens.isSymbol(tokens.previousSignificant(name), '.') && tokens.isSymbol(tokens.nextSignificant(name), '(');
+    }
+
+    // --- WebSecurityConfigurerAdapter -> SecurityFilterChain ---------------------------------
+
+    /**
+     * Converts the class whose {@code extends} clause names the adapter at token {@code adapter}.
+     * Returns null on success, or why the class has to be migrated by hand (no edits made).
+     */
+    private static String convertAdapter(JavaScanner tokens, int adapter, Edits edits) {
+        int open = tokens.nextSignificant(adapter);
+        if (!tokens.isSymbol(open, '{')) return ADAPTER + " subclass also implements interfaces; migrate it manually";
+        int close = matchingBrace(tokens, open);
+        if (close < 0) return "Unbalanced braces after " + ADAPTER;
+
+        int configure = -1;
+        for (int i = open + 1, depth = 0; i < close; i++) {
+            if (tokens.isSymbol(i, '{')) depth++;
+            else if (tokens.isSymbol(i, '}')) depth--;
+            else if (tokens.kind(i) == JavaScanner.IDENTIFIER && ADAPTER_MEMBERS.contains(tokens.text(i))) {
+                return ADAPTER + " subclass uses " + tokens.text(i) + "; migrate it manually";
+            } else if (depth == 0 && tokens.is(i, "configure") && tokens.isSymbol(tokens.nextSignificant(i), '(')) {
+                if (configure >= 0) return ADAPTER + " subclass overrides several configure methods; migrate it manually";
+                configure = i;
+            }
+        }
+        if (configure < 0) return ADAPTER + " subclass does not override configure(HttpSecurity); migrate it manually";
+
+        // configure ( HttpSecurity <name> ) [throws Exception] {
+        int paren = tokens.nextSignificant(configure);
+        int type = tokens.nextSignificant(paren);
+        int param = tokens.nextSignificant(type);
+        int closeParen = tokens.nextSignificant(param);
+        if (!tokens.is(type, "HttpSecurity") || tokens.kind(param) != JavaScanner.IDENTIFIER || !tokens.isSymbol(closeParen, ')')) {
+            return ADAPTER + " subclass overrides configure with other parameters; migrate it manually";
+        }
+        int body = closeParen;
+        while (body < close && !tokens.isSymbol(body, '{')) body++;
+        int bodyEnd = matchingBrace(tokens, body);
+
+        // Method header: [@Override] [modifiers] void configure
+        int returnType = tokens.previousSignificant(configure);
+        int headerStart = returnType;
+        for (int i = tokens.previousSignificant(returnType); i > open && isModifier(tokens, i); i = tokens.previousSignificant(i)) {
+            headerStart = i;
+        }
+        int at = tokens.previousSignificant(headerStart);
+        boolean override = tokens.is(at, "Override") && tokens.isSymbol(tokens.previousSignificant(at), '@');
+
+        int extendsKeyword = tokens.previousSignificant(adapter);
+        edits.replace(tokens.end(tokens.previousSignificant(extendsKeyword)), tokens.end(adapter), "");
+        if (override) {
+            edits.replace(tokens.start(at), tokens.end(at), "Bean");
+        } else {
+            edits.replace(tokens.start(headerStart), tokens.start(headerStart), "@Bean\n" + indentOf(tokens, headerStart));
+        }
+        edits.replace(tokens.start(headerStart), tokens.end(configure), "public SecurityFilterChain filterChain");
+        int lastStatement = tokens.previousSignificant(bodyEnd);
+        int firstStatement = tokens.nextSignificant(body);
+        String indent = firstStatement < bodyEnd ? indentOf(tokens, firstStatement) : indentOf(tokens, headerStart) + "    ";
+        edits.replace(tokens.end(lastStatement), tokens.end(lastStatement),
+                "\n" + indent + "return " + tokens.text(param) + ".build();");
+        return null;
+    }
+
+    private static boolean isModifier(JavaScanner tokens, int token) {
+        return tokens.is(token, "public") || tokens.is(token, "protected") || tokens.is(token, "private") || tokens.is(token, "final");
+    }
+
+    private static int matchingBrace(JavaScanner tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.count(); i++) {
+            if (tokens.isSymbol(i, '{')) depth++;
+            else if (tokens.isSymbol(i, '}') && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    /** Leading whitespace of the line holding {@code token}, up to the first non-blank. */
+    private static String indentOf(JavaScanner tokens, int token) {
+        String source = tokens.source();
+        int lineStart = source.lastIndexOf('\n', tokens.start(token) - 1) + 1;
+        int end = lineStart;
+        while (end < source.length() && (source.charAt(end) == ' ' || source.charAt(end) == '\t')) end++;
+        return source.substring(lineStart, end);
+    }
+
+    /** Whether the dotted name starting at {@code token} spells {@code name} and ends there. */
+    private static boolean qualifiedNameEquals(JavaScanner tokens, int token, String name) {
+        int end = qualifiedNameEnd(tokens, token);
+        return end >= token && tokens.source().substring(tokens.start(token), tokens.end(end)).equals(name);
+    }
+
+    private static int qualifiedNameEnd(JavaScanner tokens, int token) {
+        if (token >= tokens.count() || tokens.kind(token) != JavaScanner.IDENTIFIER) return -1;
+        int end = token;
+        while (tokens.isSymbol(end + 1, '.') && end + 2 < tokens.count() && tokens.kind(end + 2) == JavaScanner.IDENTIFIER) end += 2;
+        return end;
+    }
+
+    private static void count(Map<Rule, Integer> rewrites, Rule rule) {
+        rewrites.merge(rule, 1, Integer::sum);
+    }
+
+    /** Non-overlapping replacements over the original text, applied in one copy. */
+    private static final class Edits {
+        private final String source;
+        private final List<int[]> spans = new ArrayList<>();
+        private final List<String> replacements = new ArrayList<>();
+        private int[] lineStarts;
+
+        Edits(String source) {
+            this.source = source;
+        }
+
+        void replace(int start, int end, String replacement) {
+            spans.add(new int[] {start, end, spans.size()});
+            replacements.add(replacement);
+        }
+
+        String apply() {
+            if (spans.isEmpty()) return source;
+            List<int[]> ordered = new ArrayList<>(spans);
+            // By position; insertions at the same offset keep the order they were made in
+            ordered.sort(Comparator.<int[]>comparingInt(s -> s[0]).thenComparingInt(s -> s[2]));
+            StringBuilder out = new StringBuilder(source.length() + 64);
+            int copied = 0;
+            for (int[] span : ordered) {
+                out.append(source, copied, Math.max(copied, span[0])).append(replacements.get(span[2]));
+                copied = Math.max(copied, span[1]);
+            }
+            return out.append(source, copied, source.length()).toString();
+        }
+
+        int lineOf(int offset) {
+            if (lineStarts == null) {
+                List<Integer> starts = new ArrayList<>(List.of(0));
+                for (int i = source.indexOf('\n'); i >= 0; i = source.indexOf('\n', i + 1)) starts.add(i + 1);
+                lineStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+            }
+            int index = Arrays.binarySearch(lineStarts, offset);
+            return (index >= 0 ? index : -index - 2) + 1;
+        }
+    }
+}
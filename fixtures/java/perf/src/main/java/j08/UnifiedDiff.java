@@ -0,0 +1,112 @@
+// Line-based unified diff (diff -u format) between a file's original and migrated text
+
+package j08;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Produces {@code diff -u} style output. The common prefix and suffix are trimmed first;
+ * migrations change a few lines per file, so the LCS table only covers the changed middle
+ * (and is skipped, in favour of one replace block, if that middle is still huge).
+ */
+final class UnifiedDiff {
+
+    static final int CONTEXT = 3;
+    private static final long MAX_LCS_CELLS = 4_000_000;
+
+    private UnifiedDiff() {}
+
+    /** The diff from {@code before} to {@code after}, or an empty string if they are equal. */
+    static String diff(String path, String before, String after) {
+        if (before.equals(after)) return "";
+        String[] a = lines(before);
+        String[] b = lines(after);
+
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) prefix++;
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) suffix++;
+
+        // ops over the whole files: ' ' keep, '-' delete, '+' insert, with the line indexes
+        List<int[]> ops = new ArrayList<>();
+        for (int i = 0; i < prefix; i++) ops.add(new int[] {' ', i, i});
+        middle(a, b, prefix, a.length - suffix, prefix, b.length - suffix, ops);
+        for (int k = suffix; k > 0; k--) ops.add(new int[] {' ', a.length - k, b.length - k});
+
+        StringBuilder out = new StringBuilder();
+        out.append("--- a/").append(path).append('\n').append("+++ b/").append(path).append('\n');
+        int i = 0;
+        while (i < ops.size()) {
+            while (i < ops.size() && ops.get(i)[0] == ' ') i++;
+            if (i == ops.size()) break;
+            // Hunk: CONTEXT lines before, changes, until a run of more than 2 * CONTEXT kept lines
+            int start = Math.max(0, i - CONTEXT);
+            int end = i;
+            int kept = 0;
+            while (end < ops.size() && kept <= 2 * CONTEXT) {
+                kept = ops.get(end)[0] == ' ' ? kept + 1 : 0;
+                end++;
+            }
+            end -= Math.max(0, kept - CONTEXT);
+            appendHunk(out, ops, start, end, a, b);
+            i = end;
+        }
+        return out.toString();
+    }
+
+    /** Lines without their terminators; a final newline does not start an extra empty line. */
+    private static String[] lines(String text) {
+        String[] lines = text.split("\n", -1);
+        return text.endsWith("\n") ? Arrays.copyOf(lines, lines.length - 1) : lines;
+    }
+
+    private static void middle(String[] a, String[] b, int aFrom, int aTo, int bFrom, int bTo, List<int[]> ops) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        if ((long) n * m > MAX_LCS_CELLS) {
+            // Too big to align line by line: still a correct diff, just not a minimal one
+            for (int i = 0; i < n; i++) ops.add(new int[] {'-', aFrom + i, bFrom});
+            for (int j = 0; j < m; j++) ops.add(new int[] {'+', aTo, bFrom + j});
+            return;
+        }
+        int[][] lcs = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i][j] = a[aFrom + i].equals(b[bFrom + j]) ? lcs[i + 1][j + 1] + 1 : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        // Deletions are preferred on ties, so each changed run lists '-' lines before '+' lines
+        while (i < n || j < m) {
+            if (i < n && j < m && a[aFrom + i].equals(b[bFrom + j])) {
+                ops.add(new int[] {' ', aFrom + i++, bFrom + j++});
+            } else if (i < n && (j == m || lcs[i + 1][j] >= lcs[i][j + 1])) {
+                ops.add(new int[] {'-', aFrom + i++, bFrom + j});
+            } else {
+                ops.add(new int[] {'+', aFrom + i, bFrom + j++});
+            }
+        }
+    }
+
+    private static void appendHunk(StringBuilder out, List<int[]> ops, int start, int end, String[] a, String[] b) {
+        int aStart = ops.get(start)[1];
+        int bStart = ops.get(start)[2];
+        int aCount = 0;
+        int bCount = 0;
+        for (int k = start; k < end; k++) {
+            int op = ops.get(k)[0];
+            if (op != '+') aCount++;
+            if (op != '-') bCount++;
+        }
+        out.append("@@ -").append(aStart + 1).append(',').append(aCount)
+                .append(" +").append(bStart + 1).append(',').append(bCount).append(" @@\n");
+        for (int k = start; k < end; k++) {
+            int[] op = ops.get(k);
+            out.append((char) op[0]).append(op[0] == '+' ? b[op[2]] : a[op[1]]).append('\n');
+        }
+    }
+}
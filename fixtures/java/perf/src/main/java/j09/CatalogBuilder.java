@@ -0,0 +1,148 @@
+// One-shot offline tool: products CSV -> MappedProductCatalog file
+// java -cp target/classes j09.CatalogBuilder products.csv products.catalog
+
+package j09;
+
+import j07.CsvFormat;
+import j07.CsvReader;
+import j07.CsvRow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static j09.CatalogLayout.*;
+
+/**
+ * Builds a catalog from a CSV with a header naming (at least) the columns {@code id},
+ * {@code name}, {@code price} and {@code stock}. Ids must be ASCII and unique; stock must be a
+ * non-negative int.
+ *
+ * <p>Two streaming passes keep memory flat for any catalog size: the first counts rows and
+ * sizes the id and name fields to the longest values, the second writes records and index
+ * entries straight into the mapped output. The file is written next to the target and moved
+ * into place atomically.
+ */
+public final class CatalogBuilder {
+
+    private static final CsvFormat COLUMNS = CsvFormat.RFC4180.select("id", "name", "price", "stock");
+
+    private final CatalogLayout layout;
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] index;
+    private final int recordShift;
+    private final int slotShift;
+    private final byte[] id;
+    private final byte[] name;
+    private long written;
+
+    private CatalogBuilder(CatalogLayout layout, ByteBuffer[] records, ByteBuffer[] index) {
+        this.layout = layout;
+        this.records = records;
+        this.index = index;
+        this.recordShift = chunkShift(layout.recordBytes());
+        this.slotShift = chunkShift(Long.BYTES);
+        this.id = new byte[layout.idWidth()];
+        this.name = new byte[layout.nameWidth()];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CatalogBuilder <products.csv> <catalog file>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long count = build(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("Wrote %d products to %s in %d ms%n", count, args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Builds {@code catalog} from {@code csv}, replacing any previous file; returns the product count. */
+    public static long build(Path csv, Path catalog) throws IOException {
+        long[] count = new long[1];
+        int[] widths = new int[2];
+        try (CsvReader reader = CsvReader.open(csv, COLUMNS)) {
+            reader.forEach(row -> {
+                count[0]++;
+                for (int i = 0; i < row.length(0); i++) {
+                    if (row.byteAt(0, i) < 0) throw new IllegalArgumentException("Row " + count[0] + ": ids must be ASCII: " + row.getString(0));
+                }
+                widths[0] = Math.max(widths[0], row.length(0));
+                widths[1] = Math.max(widths[1], row.length(1));
+            });
+        }
+        CatalogLayout layout = CatalogLayout.of(count[0], widths[0], widths[1]);
+
+        Path tmp = Files.createTempFile(catalog.toAbsolutePath().getParent(), catalog.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                layout.writeHeader(channel);
+                CatalogBuilder builder = new CatalogBuilder(layout,
+                        map(channel, FileChannel.MapMode.READ_WRITE, layout.recordsOffset(), layout.count(), layout.recordBytes()),
+                        map(channel, FileChannel.MapMode.READ_WRITE, layout.indexOffset(), layout.capacity(), Long.BYTES));
+                try (CsvReader reader = CsvReader.open(csv, COLUMNS)) {
+                    reader.forEach(builder::add);
+                }
+                if (builder.written != layout.count()) throw new IllegalStateException(csv + " changed while building the catalog");
+                channel.force(true);
+            }
+            Files.move(tmp, catalog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return layout.count();
+    }
+
+    private void add(CsvRow row) {
+        long record = written++;
+        if (record >= layout.count()) throw new IllegalStateException("CSV changed while building the catalog");
+        double price;
+        long stock;
+        try {
+            price = row.getDouble(2);
+            stock = row.getLong(3);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Row " + (record + 1) + ": " + e.getMessage(), e);
+        }
+        if (stock < 0 || stock > Integer.MAX_VALUE) throw new IllegalArgumentException("Row " + (record + 1) + ": stock out of range: " + stock);
+        int idLength = row.copyTo(0, id, 0);
+        int nameLength = row.copyTo(1, name, 0);
+
+        ByteBuffer chunk = records[(int) (record >>> recordShift)];
+        int offset = (int) (record & (1 << recordShift) - 1) * layout.recordBytes();
+        chunk.putDouble(offset + PRICE, price)
+                .putInt(offset + STOCK, (int) stock)
+                .putShort(offset + ID_LENGTH, (short) idLength)
+                .putShort(offset + NAME_LENGTH, (short) nameLength)
+                .put(offset + ID, id, 0, idLength)
+                .put(offset + ID + layout.idWidth(), name, 0, nameLength);
+
+        long hash = hash(id, idLength);
+        long mask = layout.capacity() - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer slots = index[(int) (slot >>> slotShift)];
+            int at = (int) (slot & (1 << slotShift) - 1) * Long.BYTES;
+            long entry = slots.getLong(at);
+            if (entry == 0) {
+                slots.putLong(at, (hash >>> 32) << 32 | (record + 1));
+                return;
+            }
+            if (entry >>> 32 == hash >>> 32 && sameId((entry & 0xFFFF_FFFFL) - 1, idLength)) {
+                throw new IllegalArgumentException("Row " + (record + 1) + ": duplicate id " + row.getString(0));
+            }
+        }
+    }
+
+    private boolean sameId(long record, int idLength) {
+        ByteBuffer chunk = records[(int) (record >>> recordShift)];
+        int offset = (int) (record & (1 << recordShift) - 1) * layout.recordBytes();
+        if ((chunk.getShort(offset + ID_LENGTH) & 0xFFFF) != idLength) return false;
+        for (int i = 0; i < idLength; i++) {
+            if (chunk.get(offset + ID + i) != id[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+// What OrderService needs from a catalog entry: a heap Product or a view into a mapped catalog
+
+package j09;
+
+public interface CatalogEntry {
+
+    String getId();
+
+    String getName();
+
+    double getPrice();
+
+    int getStock();
+
+    /** Takes {@code quantity} units if that many are left; atomic and lock-free. */
+    boolean tryReserve(int quantity);
+
+    /** Returns units taken by {@link #tryReserve}. */
+    void release(int quantity);
+}
@@ -0,0 +1,127 @@
+// On-disk layout shared by CatalogBuilder and MappedProductCatalog
+// Header, then fixed-width records, then an open-addressing index of 8-byte slots; little-endian
+
+package j09;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * File layout: a {@value #HEADER_BYTES}-byte header, {@code count} records of
+ * {@link #recordBytes()} bytes, then {@code capacity} index slots.
+ *
+ * <p>A record holds the price (double @0), stock (int @8), id length (u16 @12), name length
+ * (u16 @14), the ASCII id (@16, {@code idWidth} bytes) and the UTF-8 name ({@code nameWidth}
+ * bytes), padded to a multiple of 8 so every stock field is 4-byte aligned for CAS.
+ *
+ * <p>An index slot is {@code (hash >>> 32) << 32 | (record + 1)}, zero when empty; lookups
+ * probe linearly from {@code hash & (capacity - 1)}. Capacity is at least twice the record
+ * count, so probes stay short and always reach an empty slot.
+ *
+ * @param idWidth   longest id in bytes
+ * @param nameWidth longest name in UTF-8 bytes
+ */
+record CatalogLayout(long count, long capacity, int idWidth, int nameWidth) {
+
+    static final int MAGIC = 0x50434154;                         // "PCAT"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final long MAX_RECORDS = 0xFFFF_FFFEL;               // record + 1 must fit the slot's low half
+    static final int MAX_FIELD_BYTES = 0xFFFF;
+    static final int PRICE = 0;
+    static final int STOCK = 8;
+    static final int ID_LENGTH = 12;
+    static final int NAME_LENGTH = 14;
+    static final int ID = 16;
+
+    // Largest mapping per buffer; regions larger than this are split into several buffers
+    private static final int CHUNK_BYTES = 1 << 30;
+
+    static CatalogLayout of(long count, int idWidth, int nameWidth) {
+        if (count > MAX_RECORDS) throw new IllegalArgumentException("Too many products: " + count);
+        if (idWidth > MAX_FIELD_BYTES || nameWidth > MAX_FIELD_BYTES) throw new IllegalArgumentException("Ids and names are limited to 64 KB");
+        long capacity = Long.highestOneBit(Math.max(2 * count, 1)) << 1;
+        return new CatalogLayout(count, capacity, Math.max(idWidth, 1), nameWidth);
+    }
+
+    int recordBytes() {
+        return (ID + idWidth + nameWidth + 7) & ~7;
+    }
+
+    long recordsOffset() {
+        return HEADER_BYTES;
+    }
+
+    long indexOffset() {
+        return HEADER_BYTES + count * recordBytes();
+    }
+
+    long fileBytes() {
+        return indexOffset() + capacity * Long.BYTES;
+    }
+
+    void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(capacity).putInt(idWidth).putInt(nameWidth);
+        channel.write(header.clear(), 0);
+    }
+
+    static CatalogLayout readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(header, 0) < HEADER_BYTES || header.getInt(0) != MAGIC) throw new IOException("Not a product catalog");
+        if (header.getInt(4) != VERSION) throw new IOException("Unsupported catalog version " + header.getInt(4));
+        CatalogLayout layout = new CatalogLayout(header.getLong(8), header.getLong(16), header.getInt(24), header.getInt(28));
+        if (channel.size() < layout.fileBytes()) throw new IOException("Truncated catalog: " + channel.size() + " < " + layout.fileBytes() + " bytes");
+        return layout;
+    }
+
+    /** log2 of the elements per buffer from {@link #map}: a power of two, so lookups shift instead of divide. */
+    static int chunkShift(int unit) {
+        return 31 - Integer.numberOfLeadingZeros(CHUNK_BYTES / unit);
+    }
+
+    /** Maps {@code elements * unit} bytes at {@code offset} as little-endian buffers of {@code 1 << chunkShift(unit)} elements. */
+    static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long offset, long elements, int unit) throws IOException {
+        int perChunk = 1 << chunkShift(unit);
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((elements + perChunk - 1) / perChunk)];
+        for (int i = 0; i < chunks.length; i++) {
+            long first = (long) i * perChunk;
+            long length = Math.min(perChunk, elements - first) * unit;
+            chunks[i] = channel.map(mode, offset + first * unit, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    /**
+     * {@link String#hashCode()} (cached by String, so repeated lookups skip the loop), widened
+     * and spread by the murmur3 finalizer so both the slot and the 32-bit tag are well mixed.
+     */
+    static long hash(CharSequence id) {
+        int h;
+        if (id instanceof String string) {
+            h = string.hashCode();
+        } else {
+            h = 0;
+            for (int i = 0; i < id.length(); i++) h = 31 * h + id.charAt(i);
+        }
+        return mix(h);
+    }
+
+    /** {@link #hash(CharSequence)} of an ASCII id given as bytes. */
+    static long hash(byte[] id, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) h = 31 * h + id[i];
+        return mix(h);
+    }
+
+    private static long mix(int hashCode) {
+        long h = hashCode * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ h >>> 33;
+    }
+}
@@ -0,0 +1,164 @@
+// Off-heap product catalog: fixed-width records and a hash index in one memory-mapped file
+// Opening only maps the file; pages are read on first touch, so startup is independent of catalog size
+
+package j09;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static j09.CatalogLayout.*;
+
+/**
+ * Read side of a catalog written by {@link CatalogBuilder}. Lookups hash the id, probe the
+ * mapped index and compare the id in place; {@link #find} positions a caller-owned
+ * {@link ProductView} and allocates nothing.
+ *
+ * <p>Records are mapped copy-on-write ({@link FileChannel.MapMode#PRIVATE}): stock reserved
+ * through a view is visible to every thread of this process but never written back, so the
+ * file stays the snapshot the builder produced. The file must nevertheless be writable, which
+ * private mappings require. Mappings are released when the catalog is garbage collected.
+ */
+public final class MappedProductCatalog {
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final CatalogLayout layout;
+    private final int recordBytes;
+    private final int recordShift;
+    private final ByteBuffer[] records;
+    private final int slotShift;
+    private final ByteBuffer[] index;
+
+    private MappedProductCatalog(CatalogLayout layout, ByteBuffer[] records, ByteBuffer[] index) {
+        this.layout = layout;
+        this.recordBytes = layout.recordBytes();
+        this.recordShift = chunkShift(recordBytes);
+        this.records = records;
+        this.slotShift = chunkShift(Long.BYTES);
+        this.index = index;
+    }
+
+    public static MappedProductCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            CatalogLayout layout = readHeader(channel);
+            ByteBuffer[] records = map(channel, FileChannel.MapMode.PRIVATE, layout.recordsOffset(), layout.count(), layout.recordBytes());
+            ByteBuffer[] index = map(channel, FileChannel.MapMode.READ_ONLY, layout.indexOffset(), layout.capacity(), Long.BYTES);
+            return new MappedProductCatalog(layout, records, index);
+        }
+    }
+
+    /** Number of products. */
+    public long size() {
+        return layout.count();
+    }
+
+    /**
+     * Points {@code view} at the product with this id.
+     *
+     * @return false (leaving the view unchanged) when there is no such product
+     */
+    public boolean find(CharSequence productId, ProductView view) {
+        long hash = hash(productId);
+        long tag = hash >>> 32;
+        long mask = layout.capacity() - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = index[(int) (slot >>> slotShift)].getLong((int) (slot & (1 << slotShift) - 1) * Long.BYTES);
+            if (entry == 0) return false;
+            if (entry >>> 32 != tag) continue;
+            long record = (entry & 0xFFFF_FFFFL) - 1;
+            ByteBuffer chunk = records[(int) (record >>> recordShift)];
+            int offset = (int) (record & (1 << recordShift) - 1) * recordBytes;
+            if (idEquals(chunk, offset, productId)) {
+                view.buffer = chunk;
+                view.offset = offset;
+                view.nameField = ID + layout.idWidth();
+                return true;
+            }
+        }
+    }
+
+    // Compares eight characters per mapped read; a non-ASCII character never matches a stored id
+    private static boolean idEquals(ByteBuffer chunk, int offset, CharSequence id) {
+        int length = chunk.getShort(offset + ID_LENGTH) & 0xFFFF;
+        if (length != id.length()) return false;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            long word = 0;
+            int chars = 0;
+            for (int k = 0; k < 8; k++) {
+                char c = id.charAt(i + k);
+                chars |= c;
+                word |= (long) c << (k * 8);
+            }
+            if (chars >= 0x80 || chunk.getLong(offset + ID + i) != word) return false;
+        }
+        for (; i < length; i++) {
+            if (chunk.get(offset + ID + i) != id.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Flyweight over one record, repositioned by each {@link #find}. Numeric getters and stock
+     * updates read the mapping directly; {@link #getId()} and {@link #getName()} decode a new
+     * String per call.
+     */
+    public static final class ProductView implements CatalogEntry {
+        private ByteBuffer buffer;
+        private int offset;
+        private int nameField;
+
+        @Override
+        public String getId() {
+            return string(ID, buffer.getShort(offset + ID_LENGTH) & 0xFFFF);
+        }
+
+        @Override
+        public String getName() {
+            return string(nameField, buffer.getShort(offset + NAME_LENGTH) & 0xFFFF);
+        }
+
+        @Override
+        public double getPrice() {
+            return buffer.getDouble(offset + PRICE);
+        }
+
+        @Override
+        public int getStock() {
+            return (int) INTS.getVolatile(buffer, offset + STOCK);
+        }
+
+        @Override
+        public boolean tryReserve(int quantity) {
+            int current;
+            do {
+                current = getStock();
+                if (current < quantity) return false;
+            } while (!INTS.compareAndSet(buffer, offset + STOCK, current, current - quantity));
+            return true;
+        }
+
+        @Override
+        public void release(int quantity) {
+            INTS.getAndAdd(buffer, offset + STOCK, quantity);
+        }
+
+        private String string(int field, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset + field, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return buffer == null ? "ProductView[unpositioned]" : getId() + " " + getName() + " " + getPrice() + " x" + getStock();
+        }
+    }
+}
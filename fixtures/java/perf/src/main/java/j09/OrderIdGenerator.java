@@ -0,0 +1,111 @@
+// Lock-free, time-ordered 64-bit order ids (Snowflake layout) with a sortable base62 encoding
+// Replaces "ORD-" + System.currentTimeMillis(), which collides for orders in the same millisecond
+
+package j09;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates ids laid out as {@code 0 | 41 bits millis since 2024-01-01 UTC | 10 bits node |
+ * 12 bits sequence}: unique per node, increasing per generator, and roughly ordered by
+ * creation time across nodes (good for about 69 years from the epoch).
+ *
+ * <p>Time and sequence together form a logical clock held in one {@link AtomicLong}: each id
+ * takes {@code max(last + 1, now << 12)} with a CAS. When 4096 ids are used up within a
+ * millisecond, the sequence carries into the next millisecond instead of waiting for it; when
+ * the wall clock steps backwards, ids continue from the last one rather than repeating. In
+ * both cases the embedded time runs slightly ahead until the wall clock catches up.
+ *
+ * <p>Uniqueness across processes relies on distinct node ids. A restart during a clock
+ * regression could reuse timestamps, as with any Snowflake scheme without persisted state.
+ */
+public final class OrderIdGenerator {
+
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;        // 2024-01-01T00:00:00Z
+    public static final String PREFIX = "ORD-";
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << 41) - 1;
+
+    // 0-9, A-Z, a-z: ascending ASCII, so fixed-width encodings sort like the ids
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int ENCODED_LENGTH = 11;                        // 62^11 > 2^63
+
+    private final long node;
+    private final LongSupplier clockMillis;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+    public OrderIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    OrderIdGenerator(int nodeId, LongSupplier clockMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE) throw new IllegalArgumentException("nodeId must be in [0, " + MAX_NODE + "]");
+        this.node = nodeId;
+        this.clockMillis = clockMillis;
+    }
+
+    /** The next id; never blocks, never repeats for this generator. */
+    public long nextId() {
+        long now = (clockMillis.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = Math.max(previous + 1, now);
+        } while (!last.compareAndSet(previous, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        if (timestamp > MAX_TIMESTAMP || timestamp < 0) throw new IllegalStateException("Clock outside the id range: " + timestamp);
+        return timestamp << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (next & SEQUENCE_MASK);
+    }
+
+    /** {@link #nextId()} encoded as {@code ORD-} plus 11 base62 characters. */
+    public String nextOrderId() {
+        return encode(nextId());
+    }
+
+    /** {@code ORD-} plus the id in fixed-width base62; string order equals numeric order. */
+    public static String encode(long id) {
+        if (id < 0) throw new IllegalArgumentException("Ids are non-negative: " + id);
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = BASE62[(int) (id % 62)];
+            id /= 62;
+        }
+        return new String(chars);
+    }
+
+    public static long decode(String orderId) {
+        if (orderId.length() != PREFIX.length() + ENCODED_LENGTH || !orderId.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Not an order id: " + orderId);
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < orderId.length(); i++) {
+            char c = orderId.charAt(i);
+            int digit = c >= '0' && c <= '9' ? c - '0' : c >= 'A' && c <= 'Z' ? c - 'A' + 10 : c >= 'a' && c <= 'z' ? c - 'a' + 36 : -1;
+            if (digit < 0) throw new IllegalArgumentException("Not an order id: " + orderId);
+            id = id * 62 + digit;
+            if (id < 0) throw new IllegalArgumentException("Not an order id: " + orderId);   // overflowed
+        }
+        return id;
+    }
+
+    /** Creation time embedded in the id (may lead the wall clock slightly, see class docs). */
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int nodeId(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+
+    public static int sequence(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+}
@@ -0,0 +1,168 @@
+// Runnable copy of the j09 order service fixture (fixtures/java/j09/Fixture.java)
+// Order ids come from a lock-free OrderIdGenerator; stock is reserved per product with a CAS
+// With -Dj09.catalog=<file>, products come from an off-heap MappedProductCatalog instead of the map
+
+package j09;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class OrderService {
+
+    // Node id distinguishes order ids minted by different instances; one per process
+    private static final OrderIdGenerator ORDER_IDS = new OrderIdGenerator(Integer.getInteger("j09.node.id", 0));
+
+    // Simulated product database; the products themselves carry their (atomically updated) stock
+    private static final Map<String, Product> productDb = new ConcurrentHashMap<>();
+    static {
+        productDb.put("prod-1", new Product("prod-1", "Widget", 29.99, 100));
+        productDb.put("prod-2", new Product("prod-2", "Gadget", 49.99, 5));
+    }
+
+    // Off-heap catalog that replaces productDb when set; views are per thread, reused by every lookup
+    private static volatile MappedProductCatalog catalog = openCatalog(System.getProperty("j09.catalog"));
+    private static final ThreadLocal<MappedProductCatalog.ProductView> VIEWS = ThreadLocal.withInitial(MappedProductCatalog.ProductView::new);
+
+    private static MappedProductCatalog openCatalog(String file) {
+        try {
+            return file == null ? null : MappedProductCatalog.open(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns null if product not found. With a mapped catalog the result is this thread's
+     * flyweight view, valid until the thread's next lookup.
+     */
+    public static CatalogEntry findProduct(String productId) {
+        MappedProductCatalog mapped = catalog;
+        if (mapped == null) return productDb.get(productId);
+        MappedProductCatalog.ProductView view = VIEWS.get();
+        return mapped.find(productId, view) ? view : null;
+    }
+
+    /** Serves products from {@code mapped}, or from the in-memory map again when null. */
+    static void useCatalog(MappedProductCatalog mapped) {
+        catalog = mapped;
+    }
+
+    /** Adds or replaces a catalog entry (tests and benchmarks load their own SKUs). */
+    static void addProduct(Product product) {
+        productDb.put(product.getId(), product);
+    }
+
+    /**
+     * Reserves the ordered quantity before confirming. Orders the remaining stock cannot cover
+     * come back {@code "rejected"}, without an order id, and leave the stock untouched.
+     */
+    public static OrderResult processOrder(Order order) {
+        CatalogEntry product = findProduct(order.getProductId());
+        if (product == null) throw new IllegalArgumentException("Product not found: " + order.getProductId());
+        if (order.getQuantity() <= 0) throw new IllegalArgumentException("Quantity must be positive: " + order.getQuantity());
+
+        if (!product.tryReserve(order.getQuantity())) {
+            return new OrderResult(null, product.getId(), product.getName(), order.getQuantity(), 0, "rejected");
+        }
+        double orderTotal = product.getPrice() * order.getQuantity();
+
+        return new OrderResult(
+            ORDER_IDS.nextOrderId(),
+            product.getId(),
+            product.getName(),
+            order.getQuantity(),
+            orderTotal,
+            "confirmed"
+        );
+    }
+}
+
+class Product implements CatalogEntry {
+    private static final VarHandle STOCK;
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Product.class, "stock", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private String id;
+    private String name;
+    private double price;
+    private volatile int stock;
+
+    public Product(String id, String name, double price, int stock) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public double getPrice() { return price; }
+    public int getStock() { return stock; }
+
+    /**
+     * Takes {@code quantity} units if that many are left. Lock-free: contention on one product
+     * only retries that product's CAS, and different products never interact.
+     */
+    public boolean tryReserve(int quantity) {
+        int current;
+        do {
+            current = stock;
+            if (current < quantity) return false;
+        } while (!STOCK.compareAndSet(this, current, current - quantity));
+        return true;
+    }
+
+    /** Returns units taken by {@link #tryReserve} (cancelled or failed orders). */
+    public void release(int quantity) {
+        STOCK.getAndAdd(this, quantity);
+    }
+}
+
+class Order {
+    private String productId;
+    private int quantity;
+
+    public Order(String productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public String getProductId() { return productId; }
+    public int getQuantity() { return quantity; }
+}
+
+class OrderResult {
+    private String orderId;
+    private String productId;
+    private String productName;
+    private int quantity;
+    private double total;
+    private String status;
+
+    public OrderResult(String orderId, String productId, String productName,
+                       int quantity, double total, String status) {
+        this.orderId = orderId;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.total = total;
+        this.status = status;
+    }
+
+    public String getOrderId() { return orderId; }
+    public String getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public int getQuantity() { return quantity; }
+    public double getTotal() { return total; }
+    public String getStatus() { return status; }
+}
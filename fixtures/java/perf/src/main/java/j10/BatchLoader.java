@@ -0,0 +1,54 @@
+// DataLoader-style request batching: collect keys, then resolve them all with one batch query
+// One loader per request and entity type; it also memoizes, so each key is fetched at most once
+
+package j10;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * {@link #load} hands out a future per key without querying; {@link #dispatch} then sends every
+ * key requested since the last dispatch, deduplicated and in first-request order, to the batch
+ * function in one call and completes the futures. Keys the batch function leaves out of its
+ * result resolve to null.
+ *
+ * <p>Loaders are request-scoped and not thread-safe: results stay cached for the loader's
+ * lifetime, so a long-lived loader would serve stale rows.
+ */
+final class BatchLoader<K, V> {
+
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final Map<K, CompletableFuture<V>> futures = new HashMap<>();
+    private final List<K> pending = new ArrayList<>();
+
+    BatchLoader(Function<List<K>, Map<K, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    /** The value for {@code key}, completed by the next {@link #dispatch()} unless already loaded. */
+    CompletableFuture<V> load(K key) {
+        return futures.computeIfAbsent(key, k -> {
+            pending.add(k);
+            return new CompletableFuture<>();
+        });
+    }
+
+    /** Resolves all pending keys with a single batch call; does nothing when none are pending. */
+    void dispatch() {
+        if (pending.isEmpty()) return;
+        List<K> keys = List.copyOf(pending);
+        pending.clear();
+        Map<K, V> values;
+        try {
+            values = batchFunction.apply(keys);
+        } catch (RuntimeException e) {
+            for (K key : keys) futures.remove(key).completeExceptionally(e);
+            throw e;
+        }
+        for (K key : keys) futures.get(key).complete(values.get(key));
+    }
+}
@@ -0,0 +1,220 @@
+// Shared second-level cache for rarely changing entities (customers), in front of the repository
+// Bounded LRU segments with TTL, single-flight loads and invalidation that cannot be undone by a racing load
+
+package j10;
+
+import cache.LruSegment;
+import metrics.CounterMetric;
+import metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-through cache of entities by id.
+ *
+ * <ul>
+ *   <li>Split into 16 {@link LruSegment}s, each evicting least recently used entries while
+ *       its total weight exceeds its share of {@code maxWeight}. With a weigher of
+ *       {@code v -> 1} the bound is an entry count.</li>
+ *   <li>Entries expire {@code ttlMillis} after being loaded and are dropped on access.</li>
+ *   <li>Concurrent misses on a key share one load (single-flight); {@link #getAll} loads all
+ *       of its own misses with one batch call.</li>
+ *   <li>{@link #invalidate} removes a key after its row changed. A load that started before
+ *       any invalidation still returns its value but does not cache it, so a stale row read
+ *       before an update is never put back afterwards.</li>
+ * </ul>
+ *
+ * Absent entities (null loads) are not cached. Cached values are shared and must be immutable.
+ */
+final class EntityCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final long ttlMillis;
+    private final ToIntFunction<V> weigher;
+    private final LongSupplier clockMillis;
+    private final LruSegment<K, Entry<V>>[] segments;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    // Bumped by every invalidation; loads compare it before caching what they read
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final CounterMetric hits;
+    private final CounterMetric misses;
+    private final CounterMetric loads;
+    private final CounterMetric evictions;
+
+    /**
+     * @param maxWeight     upper bound on the summed weight of cached values
+     * @param weigher       weight of one value, at least 1 (e.g. {@code v -> 1} to bound entries)
+     * @param metricsPrefix prefix for the {@code .hits}, {@code .misses}, {@code .loads} and
+     *                      {@code .evictions} counters in {@code metrics}
+     */
+    EntityCache(long maxWeight, ToIntFunction<V> weigher, long ttlMillis, LongSupplier clockMillis,
+                MetricsRegistry metrics, String metricsPrefix) {
+        if (maxWeight < SEGMENTS || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxWeight must be at least " + SEGMENTS + " and ttlMillis positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.clockMillis = clockMillis;
+        this.segments = LruSegment.newArray(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new LruSegment<>(maxWeight / SEGMENTS, Entry::weight);
+        this.hits = metrics.counter(metricsPrefix + ".hits");
+        this.misses = metrics.counter(metricsPrefix + ".misses");
+        this.loads = metrics.counter(metricsPrefix + ".loads");
+        this.evictions = metrics.counter(metricsPrefix + ".evictions");
+    }
+
+    /** The cached value, or the loader's (null if the entity does not exist). */
+    V get(K key, Function<K, V> loader) {
+        V cached = cached(key, clockMillis.getAsLong());
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = loading.putIfAbsent(key, flight);
+        if (running != null) return await(running);
+        try {
+            // A flight that just finished may have cached the value between our miss and putIfAbsent
+            V value = cached(key, clockMillis.getAsLong());
+            if (value == null) {
+                long epoch = invalidations.get();
+                loads.increment();
+                value = loader.apply(key);
+                cache(key, value, epoch);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, flight);
+        }
+    }
+
+    /**
+     * Values for every key that exists; cached keys are served directly, keys another thread is
+     * loading are awaited, and the rest are loaded with one call to {@code batchLoader}.
+     */
+    Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> batchLoader) {
+        Map<K, V> found = new HashMap<>();
+        Map<K, CompletableFuture<V>> own = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> awaited = new HashMap<>();
+        long now = clockMillis.getAsLong();
+        for (K key : keys) {
+            if (found.containsKey(key) || own.containsKey(key) || awaited.containsKey(key)) continue;
+            V cached = cached(key, now);
+            if (cached != null) {
+                hits.increment();
+                found.put(key, cached);
+                continue;
+            }
+            misses.increment();
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> running = loading.putIfAbsent(key, flight);
+            if (running != null) awaited.put(key, running);
+            else own.put(key, flight);
+        }
+
+        if (!own.isEmpty()) {
+            try {
+                long epoch = invalidations.get();
+                loads.add(own.size());
+                Map<K, V> loaded = batchLoader.apply(new ArrayList<>(own.keySet()));
+                for (Map.Entry<K, CompletableFuture<V>> entry : own.entrySet()) {
+                    V value = loaded.get(entry.getKey());
+                    cache(entry.getKey(), value, epoch);
+                    if (value != null) found.put(entry.getKey(), value);
+                    entry.getValue().complete(value);
+                }
+            } catch (RuntimeException e) {
+                for (CompletableFuture<V> flight : own.values()) flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                own.forEach(loading::remove);
+            }
+        }
+        awaited.forEach((key, flight) -> {
+            V value = await(flight);
+            if (value != null) found.put(key, value);
+        });
+        return found;
+    }
+
+    /** Drops {@code key}; call after the entity's row has been updated or deleted. */
+    void invalidate(K key) {
+        invalidations.incrementAndGet();
+        loading.remove(key);                            // later readers must not join a load of the old row
+        segmentFor(key).remove(key);
+    }
+
+    void invalidateAll() {
+        invalidations.incrementAndGet();
+        loading.clear();
+        for (LruSegment<K, Entry<V>> segment : segments) segment.clear();
+    }
+
+    Stats stats() {
+        int size = 0;
+        long weight = 0;
+        for (LruSegment<K, Entry<V>> segment : segments) {
+            size += segment.size();
+            weight += segment.weight();
+        }
+        return new Stats(hits.count(), misses.count(), loads.count(), evictions.count(), size, weight);
+    }
+
+    private V cached(K key, long now) {
+        Entry<V> entry = segmentFor(key).getUnless(key, e -> e.expiresAt <= now);
+        return entry == null ? null : entry.value;
+    }
+
+    private void cache(K key, V value, long epoch) {
+        if (value == null) return;
+        // An invalidation since the load started may concern this key: don't cache a possibly stale row
+        Entry<V> entry = new Entry<>(value, weigher.applyAsInt(value), clockMillis.getAsLong() + ttlMillis);
+        int evicted = segmentFor(key).putIfUnchanged(key, entry, invalidations, epoch);
+        if (evicted > 0) evictions.add(evicted);
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private LruSegment<K, Entry<V>> segmentFor(K key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return segments[h >>> 28];
+    }
+
+    /**
+     * @param loads keys fetched from the repository; below {@code misses} when loads were shared
+     */
+    record Stats(long hits, long misses, long loads, long evictions, int size, long weight) {
+        double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Entry<V>(V value, int weight, long expiresAt) {}
+}
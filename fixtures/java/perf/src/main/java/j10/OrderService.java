@@ -0,0 +1,253 @@
+// Runnable copy of the j10 N+1 fixture (fixtures/java/j10/Fixture.java)
+// Repository calls are recorded by QueryInstrumentation: global latency histograms, per-request scopes, N+1 flags
+// getOrdersWithDetails batches item and customer lookups (BatchLoader) instead of 1 + 2N queries
+
+package j10;
+
+import javax.persistence.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Simulated ORM with query counter: process-wide and thread-safe; per-request counts come from
+// QueryInstrumentation.RequestScope
+class QueryCounter {
+    private static final AtomicInteger queryCount = new AtomicInteger();
+
+    static void reset() { queryCount.set(0); }
+    static int getCount() { return queryCount.get(); }
+    static void increment() { queryCount.incrementAndGet(); }
+}
+
+@Entity
+class Customer {
+    @Id private int id;
+    private String name;
+    private String email;
+
+    Customer() {}
+    Customer(int id, String name, String email) {
+        this.id = id; this.name = name; this.email = email;
+    }
+
+    int getId() { return id; }
+    String getName() { return name; }
+    String getEmail() { return email; }
+}
+
+@Entity
+class OrderItem {
+    @Id private int id;
+    private String name;
+    private int qty;
+    private double price;
+
+    OrderItem() {}
+    OrderItem(int id, String name, int qty, double price) {
+        this.id = id; this.name = name; this.qty = qty; this.price = price;
+    }
+}
+
+@Entity
+class Order {
+    @Id private int id;
+    private int customerId;
+    private String status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Customer customer;
+
+    @OneToMany(fetch = FetchType.LAZY)
+    private List<OrderItem> items;
+
+    Order() {}
+    Order(int id, int customerId, String status) {
+        this.id = id; this.customerId = customerId; this.status = status;
+    }
+
+    int getId() { return id; }
+    int getCustomerId() { return customerId; }
+    String getStatus() { return status; }
+    Customer getCustomer() { return customer; }
+    List<OrderItem> getItems() { return items; }
+}
+
+// Simulated repository with N+1 problem; the batch finders load many keys in one query
+class OrderRepository {
+
+    private static final QueryInstrumentation.Query FIND_ALL_ORDERS = QueryInstrumentation.global().query("findAllOrders");
+    private static final QueryInstrumentation.Query FIND_ITEMS = QueryInstrumentation.global().query("findItemsByOrderId");
+    private static final QueryInstrumentation.Query FIND_CUSTOMER = QueryInstrumentation.global().query("findCustomerById");
+    private static final QueryInstrumentation.Query FIND_ITEMS_BATCH = QueryInstrumentation.global().query("findItemsByOrderIds");
+    private static final QueryInstrumentation.Query FIND_CUSTOMERS_BATCH = QueryInstrumentation.global().query("findCustomersByIds");
+    private static final QueryInstrumentation.Query UPDATE_CUSTOMER = QueryInstrumentation.global().query("updateCustomer");
+    private static final QueryInstrumentation.Query FIND_JOINED = QueryInstrumentation.global().query("findAllOrdersWithItemsAndCustomers");
+
+    // Simulated tables
+    private final List<Order> orders;
+    private final Map<Integer, List<OrderItem>> itemsByOrderId;
+    private final Map<Integer, Customer> customers;
+
+    OrderRepository() {
+        this(Arrays.asList(
+                new Order(1, 1, "shipped"),
+                new Order(2, 2, "pending"),
+                new Order(3, 1, "delivered")
+            ),
+            Map.of(
+                1, Arrays.asList(new OrderItem(1, "Widget", 2, 10)),
+                2, Arrays.asList(new OrderItem(2, "Gadget", 1, 25), new OrderItem(3, "Doohickey", 3, 5)),
+                3, Arrays.asList(new OrderItem(4, "Widget", 1, 10))
+            ),
+            Map.of(
+                1, new Customer(1, "Alice", "alice@example.com"),
+                2, new Customer(2, "Bob", "bob@example.com")
+            ));
+    }
+
+    OrderRepository(List<Order> orders, Map<Integer, List<OrderItem>> itemsByOrderId, Map<Integer, Customer> customers) {
+        this.orders = orders;
+        this.itemsByOrderId = itemsByOrderId;
+        this.customers = new ConcurrentHashMap<>(customers);
+    }
+
+    List<Order> findAllOrders() {
+        long start = System.nanoTime();
+        FIND_ALL_ORDERS.record(start, orders.size());
+        return orders;
+    }
+
+    List<OrderItem> findItemsByOrderId(int orderId) {
+        long start = System.nanoTime();
+        List<OrderItem> items = itemsByOrderId.getOrDefault(orderId, Collections.emptyList());
+        FIND_ITEMS.record(start, items.size()); // N+1: one query per order
+        return items;
+    }
+
+    Customer findCustomerById(int customerId) {
+        long start = System.nanoTime();
+        Customer customer = customers.get(customerId);
+        FIND_CUSTOMER.record(start, customer == null ? 0 : 1); // N+1: one query per order for customer
+        return customer;
+    }
+
+    /** One query ({@code WHERE order_id IN (...)}); every requested id maps to a list, possibly empty. */
+    Map<Integer, List<OrderItem>> findItemsByOrderIds(Collection<Integer> orderIds) {
+        long start = System.nanoTime();
+        Map<Integer, List<OrderItem>> items = new HashMap<>();
+        int rows = 0;
+        for (Integer orderId : orderIds) {
+            List<OrderItem> found = itemsByOrderId.getOrDefault(orderId, Collections.emptyList());
+            items.put(orderId, found);
+            rows += found.size();
+        }
+        FIND_ITEMS_BATCH.record(start, rows);
+        return items;
+    }
+
+    /** One query ({@code WHERE id IN (...)}); ids without a customer are absent from the result. */
+    Map<Integer, Customer> findCustomersByIds(Collection<Integer> customerIds) {
+        long start = System.nanoTime();
+        Map<Integer, Customer> found = new HashMap<>();
+        for (Integer customerId : customerIds) {
+            Customer customer = customers.get(customerId);
+            if (customer != null) found.put(customerId, customer);
+        }
+        FIND_CUSTOMERS_BATCH.record(start, found.size());
+        return found;
+    }
+
+    void updateCustomer(Customer customer) {
+        long start = System.nanoTime();
+        customers.put(customer.getId(), customer);
+        UPDATE_CUSTOMER.record(start, 1);
+    }
+
+    // Optimized: uses JOIN FETCH to load everything in a single query
+    List<Order> findAllOrdersWithItemsAndCustomers() {
+        long start = System.nanoTime();
+        // In real JPA: @Query("SELECT o FROM Order o JOIN FETCH o.items JOIN FETCH o.customer")
+        // Returns fully hydrated entities in one round-trip
+        List<Order> orders = Arrays.asList(
+            // orders with items and customers pre-loaded
+        );
+        FIND_JOINED.record(start, orders.size()); // Optimized: single join query
+        return orders;
+    }
+}
+
+// Loads items and customers through request-scoped BatchLoaders: 1 + 1 + 1 queries for any N
+// With a shared customer cache, cached customers are left out of the batch (and a fully cached batch is skipped)
+class OrderService {
+
+    private final OrderRepository repo;
+    private final EntityCache<Integer, Customer> customerCache;        // null: every request queries customers
+
+    OrderService() {
+        this(new OrderRepository());
+    }
+
+    OrderService(OrderRepository repo) {
+        this(repo, null);
+    }
+
+    OrderService(OrderRepository repo, EntityCache<Integer, Customer> customerCache) {
+        this.repo = repo;
+        this.customerCache = customerCache;
+    }
+
+    Customer findCustomer(int customerId) {
+        return customerCache == null ? repo.findCustomerById(customerId) : customerCache.get(customerId, repo::findCustomerById);
+    }
+
+    void updateCustomer(Customer customer) {
+        repo.updateCustomer(customer);
+        if (customerCache != null) customerCache.invalidate(customer.getId());
+    }
+
+    private Map<Integer, Customer> findCustomers(List<Integer> customerIds) {
+        return customerCache == null ? repo.findCustomersByIds(customerIds) : customerCache.getAll(customerIds, repo::findCustomersByIds);
+    }
+
+    List<Map<String, Object>> getOrdersWithDetails() {
+        List<Order> orders = repo.findAllOrders();
+        BatchLoader<Integer, List<OrderItem>> itemLoader = new BatchLoader<>(repo::findItemsByOrderIds);
+        BatchLoader<Integer, Customer> customerLoader = new BatchLoader<>(this::findCustomers);
+
+        List<CompletableFuture<List<OrderItem>>> items = new ArrayList<>(orders.size());
+        List<CompletableFuture<Customer>> customers = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            items.add(itemLoader.load(order.getId()));
+            customers.add(customerLoader.load(order.getCustomerId()));
+        }
+        itemLoader.dispatch();                                                    // 1 query
+        customerLoader.dispatch();                                                // 1 query, 0 when all cached
+
+        List<Map<String, Object>> details = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Map<String, Object> enriched = new HashMap<>();
+            enriched.put("order", orders.get(i));
+            enriched.put("items", items.get(i).join());
+            enriched.put("customer", customers.get(i).join());
+            details.add(enriched);
+        }
+        return details;
+    }
+
+    // The fixture's version, kept for comparison: 1 + 2N queries
+    List<Map<String, Object>> getOrdersWithDetailsOneByOne() {
+        List<Order> orders = repo.findAllOrders();
+
+        return orders.stream().map(order -> {
+            List<OrderItem> items = repo.findItemsByOrderId(order.getId());       // N queries
+            Customer customer = repo.findCustomerById(order.getCustomerId());     // N queries
+            Map<String, Object> enriched = new HashMap<>();
+            enriched.put("order", order);
+            enriched.put("items", items);
+            enriched.put("customer", customer);
+            return enriched;
+        }).collect(Collectors.toList());
+    }
+}
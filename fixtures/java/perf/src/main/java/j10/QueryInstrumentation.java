@@ -0,0 +1,193 @@
+// Per-request query instrumentation: every repository call is timed into global histograms and,
+// inside a request scope, attributed to that request, which flags N+1 patterns as they happen
+
+package j10;
+
+import metrics.CounterMetric;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repositories look up one {@link Query} per query shape (a name such as
+ * {@code findCustomerById}, whatever the parameters) and call {@link Query#record} after each
+ * execution. Recording is lock-free on the global side: a {@link LatencyHistogram}
+ * ({@code <prefix>.<query>.latency}), a row counter ({@code <prefix>.<query>.rows}) and the
+ * shared {@code <prefix>.queries} counter. Only the {@link #global()} instance also feeds the
+ * fixture's static {@link QueryCounter}, so other instances stay independent of it.
+ *
+ * <p>{@link #begin(String)} opens a {@link RequestScope} bound to the calling thread; queries
+ * recorded on that thread until it is closed are also listed in the scope. When one shape runs
+ * more than {@code nPlusOneThreshold} times in a scope, the scope reports it once as an
+ * {@link NPlusOne} and {@code <prefix>.nplusone} is incremented.
+ */
+final class QueryInstrumentation {
+
+    // Queries kept per scope for inspection; counts and N+1 detection continue past this
+    private static final int MAX_RECORDED = 1000;
+
+    private static final QueryInstrumentation GLOBAL =
+            new QueryInstrumentation(MetricsRegistry.global(), "j10", Integer.getInteger("j10.nplusone.threshold", 5));
+
+    private final MetricsRegistry metrics;
+    private final String prefix;
+    private final int nPlusOneThreshold;
+    private final CounterMetric queries;
+    private final CounterMetric nPlusOnes;
+    private final ThreadLocal<RequestScope> current = new ThreadLocal<>();
+
+    QueryInstrumentation(MetricsRegistry metrics, String prefix, int nPlusOneThreshold) {
+        if (nPlusOneThreshold < 1) throw new IllegalArgumentException("nPlusOneThreshold must be positive");
+        this.metrics = metrics;
+        this.prefix = prefix;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.queries = metrics.counter(prefix + ".queries");
+        this.nPlusOnes = metrics.counter(prefix + ".nplusone");
+    }
+
+    static QueryInstrumentation global() {
+        return GLOBAL;
+    }
+
+    /** The handle repositories keep in a static field for one query shape. */
+    Query query(String name) {
+        return new Query(name, metrics.histogram(prefix + "." + name + ".latency"), metrics.counter(prefix + "." + name + ".rows"));
+    }
+
+    /** Starts attributing this thread's queries to a new request until the scope is closed. */
+    RequestScope begin(String request) {
+        RequestScope scope = new RequestScope(request, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /** The open scope of this thread, or null. */
+    RequestScope currentScope() {
+        return current.get();
+    }
+
+    final class Query {
+        private final String name;
+        private final LatencyHistogram latency;
+        private final CounterMetric rows;
+
+        private Query(String name, LatencyHistogram latency, CounterMetric rows) {
+            this.name = name;
+            this.latency = latency;
+            this.rows = rows;
+        }
+
+        /** Records one execution that started at {@code startNanos} and returned {@code rowCount} rows. */
+        void record(long startNanos, int rowCount) {
+            long nanos = System.nanoTime() - startNanos;
+            latency.recordNanos(nanos);
+            rows.add(rowCount);
+            queries.increment();
+            if (QueryInstrumentation.this == GLOBAL) QueryCounter.increment();
+            RequestScope scope = current.get();
+            if (scope != null) scope.add(this, nanos, rowCount);
+        }
+
+        String name() {
+            return name;
+        }
+    }
+
+    record QueryRecord(String query, long nanos, int rows) {}
+
+    /** A query shape that ran {@code count} times in one request (so far, while the scope is open). */
+    record NPlusOne(String request, String query, int count) {}
+
+    /** The queries of one request; confined to the thread that began it. */
+    final class RequestScope implements AutoCloseable {
+        private final String request;
+        private final RequestScope outer;
+        private final List<QueryRecord> recorded = new ArrayList<>();
+        private final Map<String, int[]> counts = new LinkedHashMap<>();
+        private final Set<String> flagged = new LinkedHashSet<>();
+        private int total;
+        private long totalNanos;
+        private long totalRows;
+        private boolean closed;
+
+        private RequestScope(String request, RequestScope outer) {
+            this.request = request;
+            this.outer = outer;
+        }
+
+        private void add(Query query, long nanos, int rows) {
+            if (recorded.size() < MAX_RECORDED) recorded.add(new QueryRecord(query.name, nanos, rows));
+            total++;
+            totalNanos += nanos;
+            totalRows += rows;
+            int count = ++counts.computeIfAbsent(query.name, q -> new int[1])[0];
+            if (count == nPlusOneThreshold + 1) {
+                flagged.add(query.name);
+                nPlusOnes.increment();
+            }
+        }
+
+        String request() {
+            return request;
+        }
+
+        /** Number of queries recorded in this scope. */
+        int queryCount() {
+            return total;
+        }
+
+        int queryCount(String query) {
+            int[] count = counts.get(query);
+            return count == null ? 0 : count[0];
+        }
+
+        long totalNanos() {
+            return totalNanos;
+        }
+
+        long totalRows() {
+            return totalRows;
+        }
+
+        /** The first {@value #MAX_RECORDED} queries in execution order. */
+        List<QueryRecord> queries() {
+            return List.copyOf(recorded);
+        }
+
+        /** Query shapes that repeated more than the threshold, with their current counts. */
+        List<NPlusOne> nPlusOnes() {
+            List<NPlusOne> found = new ArrayList<>(flagged.size());
+            for (String query : flagged) found.add(new NPlusOne(request, query, queryCount(query)));
+            return found;
+        }
+
+        /** Per-shape counts in first-execution order. */
+        Map<String, Integer> counts() {
+            Map<String, Integer> copy = new LinkedHashMap<>();
+            counts.forEach((query, count) -> copy.put(query, count[0]));
+            return copy;
+        }
+
+        /** Restores the scope that was open when this one began (scopes nest). */
+        @Override
+        public void close() {
+            if (closed) return;
+            if (current.get() != this) throw new IllegalStateException("Scopes must be closed on their thread, innermost first");
+            closed = true;
+            if (outer == null) current.remove();
+            else current.set(outer);
+        }
+
+        @Override
+        public String toString() {
+            return request + ": " + total + " queries, " + totalRows + " rows, " + totalNanos / 1000 + " us " + counts()
+                    + (flagged.isEmpty() ? "" : " N+1: " + flagged);
+        }
+    }
+}
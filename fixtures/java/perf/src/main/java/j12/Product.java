@@ -0,0 +1,17 @@
+// One row of the products table (fixtures/java/j12/Fixture.java, model/Product.java)
+
+package j12;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * @param deletedAt when the product was soft-deleted, or null while it is active
+ */
+record Product(long id, String name, String description, BigDecimal price, int stock, long categoryId,
+               Instant deletedAt) {
+
+    boolean deleted() {
+        return deletedAt != null;
+    }
+}
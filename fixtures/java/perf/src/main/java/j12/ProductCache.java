@@ -0,0 +1,132 @@
+// Read-through cache for GET /api/products/{id} and GET /api/products?page=&size=
+// Writes evict exactly the product and the list pages whose rows they change, soft deletes included
+
+package j12;
+
+import cache.LruSegment;
+import metrics.CounterMetric;
+import metrics.MetricsRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches single products (including "not found", so repeated 404s stay off the database) and
+ * list pages keyed by {@code (page, size)}.
+ *
+ * <ul>
+ *   <li>Products live in 16 {@link LruSegment}s, pages in one; each evicts its least
+ *       recently used entries once full.</li>
+ *   <li>After a write to the repository, the service reports it here:
+ *       {@link #updated} evicts the product and the pages that contain it;
+ *       {@link #inserted} and {@link #deleted} evict the product and the pages whose offset
+ *       window the row shifts ({@link ProductPage#shiftedBy}), i.e. the pages at or after it.
+ *       Pages before the changed row are kept.</li>
+ *   <li>A load that started before any write still returns what it read but does not cache
+ *       it, so a row read before an update is never put back afterwards.</li>
+ * </ul>
+ *
+ * Writes that bypass the service are not seen; there is no TTL.
+ */
+final class ProductCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final LruSegment<Long, Optional<Product>>[] products;
+    private final LruSegment<PageKey, ProductPage> pages;
+    // Bumped by every write; loads compare it before caching what they read
+    private final AtomicLong writes = new AtomicLong();
+
+    private final CounterMetric hits;
+    private final CounterMetric misses;
+    private final CounterMetric evictions;
+    private final CounterMetric invalidations;
+
+    /**
+     * @param metricsPrefix prefix for the {@code .hits}, {@code .misses}, {@code .evictions}
+     *                      and {@code .invalidations} counters in {@code metrics}
+     */
+    ProductCache(int maxProducts, int maxPages, MetricsRegistry metrics, String metricsPrefix) {
+        if (maxProducts < SEGMENTS || maxPages < 1) {
+            throw new IllegalArgumentException("maxProducts must be at least " + SEGMENTS + " and maxPages positive");
+        }
+        this.products = LruSegment.newArray(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) products[i] = new LruSegment<>(maxProducts / SEGMENTS, v -> 1);
+        this.pages = new LruSegment<>(maxPages, v -> 1);
+        this.hits = metrics.counter(metricsPrefix + ".hits");
+        this.misses = metrics.counter(metricsPrefix + ".misses");
+        this.evictions = metrics.counter(metricsPrefix + ".evictions");
+        this.invalidations = metrics.counter(metricsPrefix + ".invalidations");
+    }
+
+    Optional<Product> product(long id, Supplier<Optional<Product>> loader) {
+        return get(segmentFor(id), id, loader);
+    }
+
+    ProductPage page(int page, int size, Supplier<ProductPage> loader) {
+        return get(pages, new PageKey(page, size), loader);
+    }
+
+    /** The fields of active product {@code id} were replaced. */
+    void updated(long id) {
+        evict(id, page -> page.contains(id));
+    }
+
+    /** Product {@code id} was created. */
+    void inserted(long id) {
+        evict(id, page -> page.shiftedBy(id));
+    }
+
+    /** Product {@code id} was soft-deleted: it leaves its page and later rows move up. */
+    void deleted(long id) {
+        evict(id, page -> page.shiftedBy(id));
+    }
+
+    void clear() {
+        writes.incrementAndGet();
+        for (LruSegment<Long, Optional<Product>> segment : products) segment.clear();
+        pages.clear();
+    }
+
+    Stats stats() {
+        int size = 0;
+        for (LruSegment<Long, Optional<Product>> segment : products) size += segment.size();
+        return new Stats(hits.count(), misses.count(), evictions.count(), invalidations.count(), size, pages.size());
+    }
+
+    private <K, V> V get(LruSegment<K, V> segment, K key, Supplier<V> loader) {
+        V cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long epoch = writes.get();
+        V loaded = loader.get();
+        evictions.add(segment.putIfUnchanged(key, loaded, writes, epoch));
+        return loaded;
+    }
+
+    private void evict(long id, Predicate<ProductPage> affected) {
+        // Bump first: a load that read the old row and has not cached it yet now never will
+        writes.incrementAndGet();
+        int removed = segmentFor(id).remove(id) + pages.removeIf(affected);
+        invalidations.add(removed);
+    }
+
+    private LruSegment<Long, Optional<Product>> segmentFor(long id) {
+        int h = Long.hashCode(id) * 0x9E3779B9;
+        return products[h >>> 28];
+    }
+
+    record Stats(long hits, long misses, long evictions, long invalidations, int products, int pages) {
+        double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record PageKey(int page, int size) {}
+}
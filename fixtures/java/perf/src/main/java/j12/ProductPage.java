@@ -0,0 +1,36 @@
+// One page of GET /api/products?page=&size=: active products ordered by id, OFFSET-style
+
+package j12;
+
+import java.util.List;
+
+/**
+ * @param content at most {@code size} active products, ordered by id
+ * @param nextId  id of the first active product after this page when it was read, or
+ *                {@link #NO_NEXT} if the page was the last one; it tells the cache which
+ *                inserts and deletes move rows into or out of the page
+ */
+record ProductPage(List<Product> content, int page, int size, long nextId) {
+
+    static final long NO_NEXT = 0;                      // ids start at 1
+
+    boolean hasNext() {
+        return nextId != NO_NEXT;
+    }
+
+    boolean contains(long id) {
+        for (Product product : content) {
+            if (product.id() == id) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether a product {@code id} becoming active or inactive changes this page: its offset
+     * window then slides by one row wherever {@code id} sorts at or before the row that
+     * followed the page.
+     */
+    boolean shiftedBy(long id) {
+        return !hasNext() || id <= nextId;
+    }
+}
@@ -0,0 +1,107 @@
+// In-process stand-in for the JPA ProductRepository (PostgreSQL in the fixture)
+// Each call optionally parks for a fixed round trip so cache effects show up in latency, not just query counts
+
+package j12;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Products by id in a {@link ConcurrentSkipListMap}, soft-deleted rows included. Rows are
+ * immutable {@link Product}s replaced with compare-and-set, so readers never lock. Ids are
+ * assigned from a sequence starting at 1.
+ *
+ * <p>{@link #findActivePage} walks active rows from the start and skips {@code page * size} of
+ * them, like {@code ORDER BY id OFFSET ? LIMIT ?} on a table without a covering index.
+ */
+final class ProductRepository {
+
+    private final ConcurrentSkipListMap<Long, Product> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final long roundTripNanos;
+
+    ProductRepository() {
+        this(0, TimeUnit.NANOSECONDS);
+    }
+
+    /** Every call waits {@code roundTrip} before touching the rows, as a database call would. */
+    ProductRepository(long roundTrip, TimeUnit unit) {
+        this.roundTripNanos = unit.toNanos(roundTrip);
+    }
+
+    Optional<Product> findActiveById(long id) {
+        query();
+        Product product = rows.get(id);
+        return product == null || product.deleted() ? Optional.empty() : Optional.of(product);
+    }
+
+    ProductPage findActivePage(int page, int size) {
+        query();
+        long skip = (long) page * size;
+        List<Product> content = new ArrayList<>(size);
+        for (Product product : rows.values()) {
+            if (product.deleted()) continue;
+            if (skip > 0) {
+                skip--;
+            } else if (content.size() == size) {
+                return new ProductPage(content, page, size, product.id());
+            } else {
+                content.add(product);
+            }
+        }
+        return new ProductPage(content, page, size, ProductPage.NO_NEXT);
+    }
+
+    Product insert(ProductRequest request) {
+        query();
+        long id = ids.incrementAndGet();
+        Product product = new Product(id, request.name(), request.description(), request.price(), request.stock(),
+                request.categoryId(), null);
+        rows.put(id, product);
+        return product;
+    }
+
+    /** Replaces the fields of an active product; empty if it does not exist or was deleted. */
+    Optional<Product> update(long id, ProductRequest request) {
+        query();
+        for (;;) {
+            Product current = rows.get(id);
+            if (current == null || current.deleted()) return Optional.empty();
+            Product updated = new Product(id, request.name(), request.description(), request.price(), request.stock(),
+                    request.categoryId(), null);
+            if (rows.replace(id, current, updated)) return Optional.of(updated);
+        }
+    }
+
+    /** Sets {@code deletedAt}; false if the product does not exist or was already deleted. */
+    boolean softDelete(long id, Instant at) {
+        query();
+        for (;;) {
+            Product current = rows.get(id);
+            if (current == null || current.deleted()) return false;
+            Product deleted = new Product(id, current.name(), current.description(), current.price(), current.stock(),
+                    current.categoryId(), at);
+            if (rows.replace(id, current, deleted)) return true;
+        }
+    }
+
+    /** Calls made so far, reads and writes. */
+    long queries() {
+        return queries.get();
+    }
+
+    private void query() {
+        queries.incrementAndGet();
+        if (roundTripNanos > 0) {
+            long until = System.nanoTime() + roundTripNanos;
+            for (long left = roundTripNanos; left > 0; left = until - System.nanoTime()) LockSupport.parkNanos(left);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+// Body of POST /api/products and PUT /api/products/{id}: every editable field of a product
+
+package j12;
+
+import java.math.BigDecimal;
+
+record ProductRequest(String name, String description, BigDecimal price, int stock, long categoryId) {
+
+    ProductRequest {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("name is required");
+        if (price == null || price.signum() < 0) throw new IllegalArgumentException("price must be zero or more");
+        if (stock < 0) throw new IllegalArgumentException("stock must be zero or more");
+    }
+}
@@ -0,0 +1,70 @@
+// Runnable version of the j12 ProductController endpoints (fixtures/java/j12/Fixture.java), without HTTP or auth
+// Reads go through an optional ProductCache; every write reports exactly what it changed
+
+package j12;
+
+import java.time.Clock;
+import java.util.Optional;
+
+/**
+ * <pre>
+ * GET    /api/products?page=0&amp;size=20  listProducts
+ * GET    /api/products/{id}              getProduct     (empty: 404)
+ * POST   /api/products                   createProduct
+ * PUT    /api/products/{id}              updateProduct  (empty: 404)
+ * DELETE /api/products/{id}              deleteProduct  (soft delete; false: 404)
+ * </pre>
+ *
+ * Deleted products are invisible to every endpoint. Without a cache each request is one
+ * repository call, as in the fixture.
+ */
+final class ProductService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductRepository repository;
+    private final ProductCache cache;
+    private final Clock clock;
+
+    ProductService(ProductRepository repository) {
+        this(repository, null, Clock.systemUTC());
+    }
+
+    /** @param cache null to query the repository on every request */
+    ProductService(ProductRepository repository, ProductCache cache, Clock clock) {
+        this.repository = repository;
+        this.cache = cache;
+        this.clock = clock;
+    }
+
+    Optional<Product> getProduct(long id) {
+        if (cache == null) return repository.findActiveById(id);
+        return cache.product(id, () -> repository.findActiveById(id));
+    }
+
+    ProductPage listProducts(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size in 1.." + MAX_PAGE_SIZE);
+        }
+        if (cache == null) return repository.findActivePage(page, size);
+        return cache.page(page, size, () -> repository.findActivePage(page, size));
+    }
+
+    Product createProduct(ProductRequest request) {
+        Product product = repository.insert(request);
+        if (cache != null) cache.inserted(product.id());
+        return product;
+    }
+
+    Optional<Product> updateProduct(long id, ProductRequest request) {
+        Optional<Product> updated = repository.update(id, request);
+        if (cache != null && updated.isPresent()) cache.updated(id);
+        return updated;
+    }
+
+    boolean deleteProduct(long id) {
+        boolean deleted = repository.softDelete(id, clock.instant());
+        if (cache != null && deleted) cache.deleted(id);
+        return deleted;
+    }
+}
@@ -0,0 +1,159 @@
+// Runnable copy of the j13 User / AuthService / EmailService fixture (fixtures/java/j13/Fixture.java)
+// UserRepository gains a keyset-paged scan, an expiry-range query and a batched notification update; findAll stays for small callers
+
+package j13;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+class User {
+    static final Duration PASSWORD_MAX_AGE = Duration.ofDays(90);
+
+    private String id;
+    private String email;
+    private String name;
+    private Instant lastPasswordChange;
+    private Instant passwordNotificationSentAt;
+
+    public User(String id, String email, String name, Instant lastPasswordChange, Instant passwordNotificationSentAt) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+        this.lastPasswordChange = (lastPasswordChange != null) ? lastPasswordChange : Instant.now();
+        this.passwordNotificationSentAt = passwordNotificationSentAt;
+    }
+
+    public String getId() { return id; }
+    public String getEmail() { return email; }
+    public String getName() { return name; }
+    public Instant getLastPasswordChange() { return lastPasswordChange; }
+    public Instant getPasswordNotificationSentAt() { return passwordNotificationSentAt; }
+
+    public void setPasswordNotificationSentAt(Instant passwordNotificationSentAt) {
+        this.passwordNotificationSentAt = passwordNotificationSentAt;
+    }
+
+    public long daysSincePasswordChange() {
+        return ChronoUnit.DAYS.between(lastPasswordChange, Instant.now());
+    }
+
+    /** When the current password reaches {@link #PASSWORD_MAX_AGE}. */
+    public Instant getPasswordExpiresAt() {
+        return lastPasswordChange.plus(PASSWORD_MAX_AGE);
+    }
+
+    /** Whether an expiry notification was sent since the password was last changed. */
+    public boolean isNotifiedForCurrentPassword() {
+        return passwordNotificationSentAt != null && !passwordNotificationSentAt.isBefore(lastPasswordChange);
+    }
+}
+
+interface UserRepository {
+    /** Every user in one list: memory grows with the table, so jobs over all users use {@link #scan}. */
+    List<User> findAll();
+
+    User update(String userId, User data);
+
+    /**
+     * Up to {@code limit} users with ids greater than {@code afterId} (null: from the start),
+     * ordered by id: {@code WHERE id > ? ORDER BY id LIMIT ?}. A short page is the last one.
+     *
+     * <p>The default sorts {@link #findAll()} and so costs as much memory as it; implementations
+     * backed by an index on id should override it.
+     */
+    default List<User> findPage(String afterId, int limit) {
+        if (limit < 1) throw new IllegalArgumentException("limit must be positive");
+        List<User> page = new ArrayList<>(limit);
+        findAll().stream()
+                .filter(user -> afterId == null || user.getId().compareTo(afterId) > 0)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit)
+                .forEach(page::add);
+        return page;
+    }
+
+    /**
+     * All users in id order, fetched lazily {@code pageSize} at a time through {@link #findPage}:
+     * at most one page is held, however many users there are. Rows changed during the scan
+     * are seen in whichever version their page was read.
+     */
+    default Stream<User> scan(int pageSize) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new UserScan(this, pageSize),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    /**
+     * Users not notified for their current password whose password expires within
+     * {@code [from, to]}, streamed lazily. The default filters a full {@link #scan};
+     * implementations that index expiry instants should override it.
+     *
+     * @param pageSize rows per {@link #findPage} call in the default; an override that
+     *                 streams its index without paging may ignore it
+     */
+    default Stream<User> scanUnnotifiedExpiring(Instant from, Instant to, int pageSize) {
+        return scan(pageSize).filter(user -> {
+            Instant expiresAt = user.getPasswordExpiresAt();
+            return !user.isNotifiedForCurrentPassword() && !expiresAt.isBefore(from) && !expiresAt.isAfter(to);
+        });
+    }
+
+    /**
+     * Sets {@code passwordNotificationSentAt} on every given user, as one statement
+     * ({@code UPDATE ... WHERE id IN (...)}) where the store allows; returns how many rows
+     * were updated. The default issues one {@link #update} per user.
+     */
+    default int updatePasswordNotificationSentAt(List<User> users, Instant sentAt) {
+        int updated = 0;
+        for (User user : users) {
+            User data = new User(user.getId(), user.getEmail(), user.getName(), user.getLastPasswordChange(), sentAt);
+            if (update(user.getId(), data) != null) updated++;
+        }
+        return updated;
+    }
+}
+
+class AuthService {
+    private UserRepository userRepository;
+
+    public AuthService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public List<User> getAllUsers() {
+        return userRepository.findAll();
+    }
+
+    /** Every user, streamed in pages of {@code pageSize}; see {@link UserRepository#scan}. */
+    public Stream<User> scanUsers(int pageSize) {
+        return userRepository.scan(pageSize);
+    }
+
+    /** Users due a notification whose password expired within {@code [from, to]}. */
+    public Stream<User> scanUnnotifiedExpiring(Instant from, Instant to, int pageSize) {
+        return userRepository.scanUnnotifiedExpiring(from, to, pageSize);
+    }
+
+    public User updateUser(String userId, User data) {
+        return userRepository.update(userId, data);
+    }
+
+    public UserRepository getUserRepository() {
+        return userRepository;
+    }
+}
+
+class EmailService {
+    public boolean sendPasswordExpiryNotification(User user) {
+        // Stub: in production this would send via SMTP/SES
+        System.out.println("[Email] Sending password expiry notification to " + user.getEmail());
+        return true;
+    }
+}
@@ -0,0 +1,163 @@
+// UserRepository over a ConcurrentSkipListMap keyed by id: keyset pages are a tailMap walk, not a copy of the table
+// A second skip list orders users still to be notified by password expiry, so the job reads only the range it needs
+
+package j13;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Stores its own copies of users: callers get copies too, so changing a returned {@link User}
+ * never changes the stored row; {@link #insert}, {@link #update} and
+ * {@link #updatePasswordNotificationSentAt} are the only ways to.
+ *
+ * <p>Every user not yet notified for its current password has one entry in the expiry index,
+ * ordered by {@link User#getPasswordExpiresAt()} and then id. Writes change the row and its
+ * entry under one of 64 striped locks, so two writes to a user cannot leave a stale entry;
+ * readers take no lock and check each entry against the current row, skipping an entry whose
+ * row has just moved on.
+ */
+final class InMemoryUserRepository implements UserRepository {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentSkipListMap<String, User> users = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Expiry> expiries = new ConcurrentSkipListSet<>();
+    private final Object[] stripes = new Object[STRIPES];
+
+    InMemoryUserRepository() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    InMemoryUserRepository(Collection<User> users) {
+        this();
+        users.forEach(this::insert);
+    }
+
+    void insert(User user) {
+        String userId = user.getId();
+        User stored = copy(userId, user);
+        synchronized (stripe(userId)) {
+            reindex(users.put(userId, stored), stored);
+        }
+    }
+
+    int size() {
+        return users.size();
+    }
+
+    /** Users in the expiry index: those not notified for their current password. */
+    int pendingNotifications() {
+        return expiries.size();
+    }
+
+    User findById(String userId) {
+        User user = users.get(userId);
+        return user == null ? null : copy(userId, user);
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> all = new ArrayList<>(users.size());
+        users.forEach((id, user) -> all.add(copy(id, user)));
+        return all;
+    }
+
+    /** Replaces the row; null (and nothing stored) if there is no user {@code userId}. */
+    @Override
+    public User update(String userId, User data) {
+        User stored = write(userId, current -> copy(userId, data));
+        return stored == null ? null : copy(userId, stored);
+    }
+
+    @Override
+    public List<User> findPage(String afterId, int limit) {
+        if (limit < 1) throw new IllegalArgumentException("limit must be positive");
+        List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        for (User user : (afterId == null ? users : users.tailMap(afterId, false)).values()) {
+            page.add(copy(user.getId(), user));
+            if (page.size() == limit) break;
+        }
+        return page;
+    }
+
+    /**
+     * Walks the expiry index from {@code from} to {@code to}; cost follows the range, not the table.
+     * {@code pageSize} is ignored: the skip list's iterator is weakly consistent and holds no lock,
+     * so the walk needs no paging to stay live under concurrent updates.
+     */
+    @Override
+    public Stream<User> scanUnnotifiedExpiring(Instant from, Instant to, int pageSize) {
+        if (to.isBefore(from)) return Stream.empty();
+        return expiries.subSet(new Expiry(from, null), true, new Expiry(to.plusNanos(1), null), false).stream()
+                .map(expiry -> {
+                    User user = users.get(expiry.userId());
+                    return user != null && expiry.equals(Expiry.of(user)) ? copy(expiry.userId(), user) : null;
+                })
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public int updatePasswordNotificationSentAt(List<User> batch, Instant sentAt) {
+        int updated = 0;
+        for (User user : batch) {
+            User stored = write(user.getId(), current -> new User(current.getId(), current.getEmail(), current.getName(),
+                    current.getLastPasswordChange(), sentAt));
+            if (stored != null) updated++;
+        }
+        return updated;
+    }
+
+    private User write(String userId, UnaryOperator<User> change) {
+        synchronized (stripe(userId)) {
+            User current = users.get(userId);
+            if (current == null) return null;
+            User next = change.apply(current);
+            users.put(userId, next);
+            reindex(current, next);
+            return next;
+        }
+    }
+
+    // Called under the user's stripe lock, after the row was written
+    private void reindex(User previous, User current) {
+        Expiry before = previous == null ? null : Expiry.of(previous);
+        Expiry after = Expiry.of(current);
+        if (Objects.equals(before, after)) return;
+        if (after != null) expiries.add(after);
+        if (before != null) expiries.remove(before);
+    }
+
+    private Object stripe(String userId) {
+        return stripes[userId.hashCode() & (STRIPES - 1)];
+    }
+
+    private static User copy(String userId, User user) {
+        return new User(userId, user.getEmail(), user.getName(), user.getLastPasswordChange(),
+                user.getPasswordNotificationSentAt());
+    }
+
+    /** Index entry; a null id sorts before every id, so {@code (instant, null)} bounds a range. */
+    private record Expiry(Instant at, String userId) implements Comparable<Expiry> {
+        private static final Comparator<Expiry> ORDER = Comparator.comparing(Expiry::at)
+                .thenComparing(Expiry::userId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        /** The entry of a user still to be notified, or null once notified for its current password. */
+        static Expiry of(User user) {
+            return user.isNotifiedForCurrentPassword() ? null : new Expiry(user.getPasswordExpiresAt(), user.getId());
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
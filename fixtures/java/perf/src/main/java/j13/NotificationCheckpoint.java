@@ -0,0 +1,55 @@
+// Persisted high-water mark of the password-expiry job: expiries up to it have been handled
+// One ISO-8601 instant in a text file, replaced atomically so a crash leaves the old or the new value
+
+package j13;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+final class NotificationCheckpoint {
+
+    private final Path file;
+
+    NotificationCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    /** The stored instant, or null before the first successful run. */
+    Instant load() {
+        try {
+            return Instant.parse(Files.readString(file, StandardCharsets.UTF_8).strip());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read checkpoint " + file, e);
+        } catch (DateTimeParseException e) {
+            throw new IllegalStateException("Corrupt checkpoint " + file + ": " + e.getParsedString(), e);
+        }
+    }
+
+    void store(Instant checkpoint) {
+        try {
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(tmp, checkpoint + "\n", StandardCharsets.UTF_8);
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write checkpoint " + file, e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+// Password-expiry notification job: streams users page by page, sends emails on a bounded pool, marks them in batches
+// Memory is bounded by pageSize + maxInFlight + batchSize users, whatever the size of the user table
+// With a checkpoint, each run reads only passwords that expired since the last one (UserRepository.scanUnnotifiedExpiring)
+
+package j13;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Notifies every user whose password is at least {@link #PASSWORD_MAX_AGE} old and who has not
+ * been notified since it was last changed, then records {@code passwordNotificationSentAt}.
+ *
+ * <ul>
+ *   <li>Without a checkpoint, users come from {@link AuthService#scanUsers}, one keyset page
+ *       at a time, and are filtered as they stream past.</li>
+ *   <li>With a {@link NotificationCheckpoint}, a run reads only the users not yet notified
+ *       whose password expired between the stored checkpoint and now, then stores its own
+ *       {@code now}, or the earliest expiry among failed sends so the next run retries them.
+ *       Notified users leave the range, so rerunning is idempotent. The checkpoint is not
+ *       moved when a batch write failed, or when the clock is behind it.</li>
+ *   <li>Emails go to a fixed pool of {@code senders} threads. At most {@code maxInFlight} are
+ *       queued or sending: the scan blocks on a semaphore until a send finishes
+ *       (backpressure), so a slow mail server slows the scan instead of growing a queue.</li>
+ *   <li>Users whose email was accepted are marked with one
+ *       {@link UserRepository#updatePasswordNotificationSentAt} call per {@code batchSize}.
+ *       Failed sends are counted and left unmarked, so the next run retries them.</li>
+ * </ul>
+ *
+ * A crash after a send and before its batch is written means that user is notified again by
+ * the next run; at most {@code maxInFlight + batchSize} users are exposed to that. A failed
+ * batch write does not stop the run; {@link #run()} throws once every send has finished.
+ */
+class PasswordNotificationService {
+
+    static final Duration PASSWORD_MAX_AGE = User.PASSWORD_MAX_AGE;
+
+    private final AuthService authService;
+    private final EmailService emailService;
+    private final Clock clock;
+    private final int pageSize;
+    private final int senders;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final NotificationCheckpoint checkpoint;
+
+    PasswordNotificationService(AuthService authService, EmailService emailService) {
+        this(authService, emailService, Clock.systemUTC(), 1000, 8, 64, 500);
+    }
+
+    PasswordNotificationService(AuthService authService, EmailService emailService, Clock clock,
+                                int pageSize, int senders, int maxInFlight, int batchSize) {
+        this(authService, emailService, clock, pageSize, senders, maxInFlight, batchSize, null);
+    }
+
+    /** @param checkpoint null to scan every user on each run */
+    PasswordNotificationService(AuthService authService, EmailService emailService, Clock clock,
+                                int pageSize, int senders, int maxInFlight, int batchSize,
+                                NotificationCheckpoint checkpoint) {
+        if (pageSize < 1 || senders < 1 || maxInFlight < senders || batchSize < 1) {
+            throw new IllegalArgumentException("pageSize, senders and batchSize must be positive and maxInFlight >= senders");
+        }
+        this.authService = authService;
+        this.emailService = emailService;
+        this.clock = clock;
+        this.pageSize = pageSize;
+        this.senders = senders;
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.checkpoint = checkpoint;
+    }
+
+    /** Whether {@code user} is due a notification at {@code now}. */
+    static boolean needsNotification(User user, Instant now) {
+        return !user.getPasswordExpiresAt().isAfter(now) && !user.isNotifiedForCurrentPassword();
+    }
+
+    Result run() {
+        Instant now = clock.instant();
+        Run run = new Run(now);
+        ExecutorService pool = Executors.newFixedThreadPool(senders, task -> {
+            Thread thread = new Thread(task, "password-expiry-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Instant from = checkpoint == null ? null : checkpoint.load();
+        Stream<User> due = checkpoint == null
+                ? authService.scanUsers(pageSize)
+                : authService.scanUnnotifiedExpiring(from == null ? Instant.MIN : from, now, pageSize);
+        RuntimeException scanError = null;
+        try {
+            try (Stream<User> users = due) {
+                users.filter(user -> {
+                            run.scanned++;
+                            return needsNotification(user, now);
+                        }).forEach(user -> {
+                            run.permits.acquireUninterruptibly();
+                            run.due++;
+                            pool.execute(() -> run.send(user));
+                        });
+            } catch (RuntimeException e) {
+                scanError = e;                                          // still mark the users already emailed
+            }
+            run.permits.acquireUninterruptibly(maxInFlight);            // every send has finished
+            run.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        if (scanError != null) {                                        // the checkpoint stays where it was
+            if (run.writeError != null) scanError.addSuppressed(run.writeError);
+            throw scanError;
+        }
+        if (run.writeError != null) {
+            throw new IllegalStateException((run.notified.get() - run.marked.get())
+                    + " notified users could not be marked; the next run notifies them again", run.writeError);
+        }
+        if (checkpoint != null) {
+            Instant next = run.earliestFailure == null || run.earliestFailure.isAfter(now) ? now : run.earliestFailure;
+            if (from == null || next.isAfter(from)) checkpoint.store(next);
+        }
+        return new Result(run.scanned, run.due, run.notified.get(), run.failed.get(), run.marked.get(), run.batches.get());
+    }
+
+    /**
+     * @param scanned  users read
+     * @param due      users that needed a notification
+     * @param notified emails accepted by {@link EmailService}
+     * @param failed   emails rejected or thrown; those users are retried by the next run
+     * @param marked   users whose {@code passwordNotificationSentAt} was written
+     * @param batches  batched update calls
+     */
+    record Result(long scanned, long due, long notified, long failed, long marked, long batches) {}
+
+    /** State of one {@link #run()}; counters written by the scanning thread are plain fields. */
+    private final class Run {
+        private final Instant sentAt;
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        private final AtomicLong notified = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong marked = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private volatile RuntimeException writeError;
+        private Instant earliestFailure;                                // written under this, read once all sends finished
+        private List<User> batch = new ArrayList<>(batchSize);
+        private long scanned;
+        private long due;
+
+        Run(Instant sentAt) {
+            this.sentAt = sentAt;
+        }
+
+        void send(User user) {
+            try {
+                boolean sent;
+                try {
+                    sent = emailService.sendPasswordExpiryNotification(user);
+                } catch (RuntimeException e) {
+                    sent = false;
+                }
+                if (!sent) {
+                    failed.incrementAndGet();
+                    synchronized (this) {
+                        Instant expiresAt = user.getPasswordExpiresAt();
+                        if (earliestFailure == null || expiresAt.isBefore(earliestFailure)) earliestFailure = expiresAt;
+                    }
+                    return;
+                }
+                notified.incrementAndGet();
+                List<User> full = null;
+                synchronized (this) {
+                    batch.add(user);
+                    if (batch.size() >= batchSize) {
+                        full = batch;
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (full != null) write(full);
+            } finally {
+                permits.release();
+            }
+        }
+
+        void flush() {
+            List<User> rest;
+            synchronized (this) {
+                rest = batch;
+                batch = new ArrayList<>(0);
+            }
+            if (!rest.isEmpty()) write(rest);
+        }
+
+        private void write(List<User> users) {
+            batches.incrementAndGet();
+            try {
+                marked.addAndGet(authService.getUserRepository().updatePasswordNotificationSentAt(users, sentAt));
+            } catch (RuntimeException e) {
+                if (writeError == null) writeError = e;
+            }
+        }
+    }
+}
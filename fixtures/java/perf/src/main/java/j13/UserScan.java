@@ -0,0 +1,42 @@
+// Keyset iteration over UserRepository.findPage: the next page starts after the last id of the previous one
+
+package j13;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/** Holds one page at a time; the next page is fetched when the current one is used up. */
+final class UserScan implements Iterator<User> {
+
+    private final UserRepository repository;
+    private final int pageSize;
+    private List<User> page = List.of();
+    private int next;
+    private String afterId;
+    private boolean lastPage;
+
+    UserScan(UserRepository repository, int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize must be positive");
+        this.repository = repository;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next < page.size()) return true;
+        if (lastPage) return false;
+        page = repository.findPage(afterId, pageSize);
+        next = 0;
+        lastPage = page.size() < pageSize;
+        if (page.isEmpty()) return false;
+        afterId = page.get(page.size() - 1).getId();
+        return true;
+    }
+
+    @Override
+    public User next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return page.get(next++);
+    }
+}
@@ -0,0 +1,146 @@
+// Runnable copy of the j16 DataPipeline fixture (fixtures/java/j16/Fixture.java)
+// processPipeline reports latency and outcome counts to the shared metrics registry
+
+package j16;
+
+import metrics.CounterMetric;
+import metrics.GaugeMetric;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+// --- Stub interfaces representing external dependencies ---
+
+interface Database {
+    void findUser(String userId, BiConsumer<Exception, UserData> callback);
+}
+
+interface Enricher {
+    void enrich(UserData user, BiConsumer<Exception, UserData> callback);
+}
+
+interface Cache {
+    void set(String key, UserData value, BiConsumer<Exception, Void> callback);
+}
+
+interface Notifier {
+    void notify(String email, String message, BiConsumer<Exception, Void> callback);
+}
+
+class UserData {
+    String id;
+    String email;
+    String name;
+    boolean enriched;
+
+    public UserData(String id, String email, String name) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+        this.enriched = false;
+    }
+
+    public String getId() { return id; }
+    public String getEmail() { return email; }
+    public String getName() { return name; }
+    public boolean isEnriched() { return enriched; }
+    public void setEnriched(boolean enriched) { this.enriched = enriched; }
+}
+
+class PipelineResult {
+    String userId;
+    String status;
+    boolean cached;
+    boolean notified;
+
+    public PipelineResult(String userId, String status, boolean cached, boolean notified) {
+        this.userId = userId;
+        this.status = status;
+        this.cached = cached;
+        this.notified = notified;
+    }
+
+    public String getUserId() { return userId; }
+    public String getStatus() { return status; }
+    public boolean isCached() { return cached; }
+    public boolean isNotified() { return notified; }
+}
+
+// --- Synchronous callback-based pipeline ---
+
+class DataPipeline {
+
+    private static final LatencyHistogram LATENCY = MetricsRegistry.global().histogram("j16.processPipeline.latency");
+    private static final CounterMetric COMPLETED = MetricsRegistry.global().counter("j16.pipeline.completed");
+    private static final CounterMetric FAILED = MetricsRegistry.global().counter("j16.pipeline.failed");
+    private static final GaugeMetric IN_FLIGHT = MetricsRegistry.global().gauge("j16.pipeline.inFlight");
+
+    private Database db;
+    private Enricher enricher;
+    private Cache cache;
+    private Notifier notifier;
+
+    public DataPipeline(Database db, Enricher enricher, Cache cache, Notifier notifier) {
+        this.db = db;
+        this.enricher = enricher;
+        this.cache = cache;
+        this.notifier = notifier;
+    }
+
+    public void processPipeline(String userId, BiConsumer<Exception, PipelineResult> done) {
+        // Measured until the final callback, which any stage may invoke from another thread
+        long start = System.nanoTime();
+        IN_FLIGHT.add(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        BiConsumer<Exception, PipelineResult> callback = (err, result) -> {
+            if (!finished.compareAndSet(false, true)) return;       // only the first outcome counts
+            IN_FLIGHT.add(-1);
+            LATENCY.recordSince(start);
+            (err != null ? FAILED : COMPLETED).increment();
+            done.accept(err, result);
+        };
+
+        // Level 1: Fetch user from DB
+        guard(finished, callback, () -> db.findUser(userId, (err, user) -> guard(finished, callback, () -> {
+            if (err != null) { callback.accept(err, null); return; }
+            if (user == null) { callback.accept(new RuntimeException("User not found"), null); return; }
+
+            // Level 2: Enrich user data from external service
+            enricher.enrich(user, (err2, enrichedUser) -> guard(finished, callback, () -> {
+                if (err2 != null) { callback.accept(err2, null); return; }
+
+                // Level 3: Cache the enriched data
+                cache.set("user:" + userId, enrichedUser, (err3, ignored) -> guard(finished, callback, () -> {
+                    if (err3 != null) { callback.accept(err3, null); return; }
+
+                    // Level 4: Send notification
+                    notifier.notify(enrichedUser.getEmail(), "Profile updated", (err4, ignored2) -> guard(finished, callback, () -> {
+                        if (err4 != null) { callback.accept(err4, null); return; }
+                        callback.accept(null, new PipelineResult(
+                            enrichedUser.getId(),
+                            "complete",
+                            true,
+                            true
+                        ));
+                    }));
+                }));
+            }));
+        })));
+    }
+
+    /**
+     * Runs a stage call or a stage callback body. A synchronous throw (a stage failing, or a null
+     * enrichment) finishes the pipeline with that exception, so the in-flight gauge, latency and
+     * failure count are recorded; a throw from {@code done} itself, once finished, propagates.
+     */
+    private static void guard(AtomicBoolean finished, BiConsumer<Exception, PipelineResult> callback, Runnable stage) {
+        try {
+            stage.run();
+        } catch (RuntimeException e) {
+            if (finished.get()) throw e;
+            callback.accept(e, null);
+        }
+    }
+}
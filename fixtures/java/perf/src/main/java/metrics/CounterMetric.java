@@ -0,0 +1,31 @@
+// Monotonic event counter for hot paths (LongAdder-backed, no allocation per increment)
+
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class CounterMetric {
+
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    CounterMetric(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long count() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,38 @@
+// Point-in-time value: either set explicitly or sampled from a supplier at export time
+
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public final class GaugeMetric {
+
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+    private final LongSupplier supplier;
+
+    GaugeMetric(String name, LongSupplier supplier) {
+        this.name = name;
+        this.supplier = supplier;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Sets the value of a gauge registered without a supplier. */
+    public void set(long newValue) {
+        if (supplier != null) throw new IllegalStateException("Gauge " + name + " is sampled from a supplier");
+        value.set(newValue);
+    }
+
+    /** Adjusts a settable gauge, e.g. +1/-1 around in-flight work. */
+    public void add(long delta) {
+        if (supplier != null) throw new IllegalStateException("Gauge " + name + " is sampled from a supplier");
+        value.addAndGet(delta);
+    }
+
+    public long value() {
+        return supplier != null ? supplier.getAsLong() : value.get();
+    }
+}
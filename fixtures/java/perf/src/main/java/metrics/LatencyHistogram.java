@@ -0,0 +1,118 @@
+// Fixed-memory, log-linear latency histogram (nanoseconds) with lock-free recording
+// 32 linear sub-buckets per power of two: recorded values are reported within ~3%
+
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with a fixed set of 1,888 buckets covering 0 ns to {@code Long.MAX_VALUE}.
+ * Values below 64 get exact buckets; above that each power of two is split into 32 linear
+ * sub-buckets, so percentile estimates carry at most ~3% relative error.
+ *
+ * <p>{@link #recordNanos(long)} is one atomic increment plus two uncontended-by-design adders,
+ * with no allocation, so it is safe to call on hot paths.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;          // values [0, 64) are exact
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - (SUB_BITS + 1)) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void recordNanos(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.getAndIncrement(bucketOf(nanos));
+        sum.add(nanos);
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) currentMax = max.get();
+    }
+
+    /** Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading). */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(name, copy, total, sum.sum(), max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - (SUB_BITS + 1)) * SUB_BUCKETS + mantissa;
+    }
+
+    /** Largest value that falls into {@code bucket}. */
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) return bucket;
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BITS + 1;
+        long mantissa = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        long lower = (SUB_BUCKETS + mantissa) << (exponent - SUB_BITS);
+        return lower + (width - 1);
+    }
+
+    /** Immutable copy of the histogram; the counts in a snapshot need not be from one instant. */
+    public static final class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(String name, long[] counts, long count, long sum, long max) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public String name() { return name; }
+        public long count() { return count; }
+        public long max() { return max; }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /** Value at quantile {@code q} (0..1), reported as the upper bound of its bucket. */
+        public long percentile(double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(1, rank)) return Math.min(upperBoundOf(i), max);
+            }
+            return max;
+        }
+
+        public long p50() { return percentile(0.50); }
+        public long p99() { return percentile(0.99); }
+        public long p999() { return percentile(0.999); }
+    }
+}
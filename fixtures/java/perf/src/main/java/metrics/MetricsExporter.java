@@ -0,0 +1,73 @@
+// Writes registry snapshots to a file, once or periodically, replacing the file atomically
+// so a reader (tail, a scraper, a benchmark script) never sees a half-written export
+
+package metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class MetricsExporter implements Closeable {
+
+    public enum Format { TEXT, JSON }
+
+    private final MetricsRegistry registry;
+    private final Path target;
+    private final Format format;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsExporter(MetricsRegistry registry, Path target, Format format) {
+        this.registry = registry;
+        this.target = target;
+        this.format = format;
+    }
+
+    public void export() {
+        MetricsSnapshot snapshot = registry.snapshot();
+        String body = format == Format.JSON ? snapshot.toJson() : snapshot.toText();
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+            Files.writeString(tmp, body, StandardCharsets.UTF_8);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export metrics to " + target, e);
+        }
+    }
+
+    /** Exports every {@code periodMillis} on a daemon thread until {@link #close()}. */
+    public synchronized void start(long periodMillis) {
+        if (scheduler != null) throw new IllegalStateException("Exporter already started");
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::exportQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void exportQuietly() {
+        try {
+            export();
+        } catch (UncheckedIOException e) {
+            // A failed periodic export must not cancel the schedule; the next one retries
+        }
+    }
+
+    /** Stops periodic exports and writes a final snapshot. */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        export();
+    }
+}
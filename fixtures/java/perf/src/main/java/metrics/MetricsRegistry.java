@@ -0,0 +1,71 @@
+// Lock-free registry of named counters, gauges and latency histograms
+// Call sites look metrics up once (static final fields) and then record without any lookup
+
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Named metrics shared across the fixtures. Lookups are a {@link ConcurrentHashMap} read and
+ * only fall back to {@code computeIfAbsent} on first registration, so registering from many
+ * threads is safe and cheap. A name is bound to one metric type for the registry's lifetime.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public CounterMetric counter(String name) {
+        return lookup(name, CounterMetric.class, CounterMetric::new);
+    }
+
+    /** A gauge whose value is set by the caller. */
+    public GaugeMetric gauge(String name) {
+        return lookup(name, GaugeMetric.class, n -> new GaugeMetric(n, null));
+    }
+
+    /** A gauge sampled from {@code supplier} whenever a snapshot is taken. */
+    public GaugeMetric gauge(String name, LongSupplier supplier) {
+        return lookup(name, GaugeMetric.class, n -> new GaugeMetric(n, supplier));
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return lookup(name, LatencyHistogram.class, LatencyHistogram::new);
+    }
+
+    /** Copies every counter and gauge value (sampling supplier gauges) and snapshots every histogram. */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        Map<String, Long> gauges = new TreeMap<>();
+        List<LatencyHistogram.Snapshot> histograms = new ArrayList<>();
+        for (Object metric : metrics.values()) {
+            if (metric instanceof CounterMetric c) counters.put(c.name(), c.count());
+            else if (metric instanceof GaugeMetric g) gauges.put(g.name(), g.value());
+            else histograms.add(((LatencyHistogram) metric).snapshot());
+        }
+        histograms.sort(Comparator.comparing(LatencyHistogram.Snapshot::name));
+        return new MetricsSnapshot(counters, gauges, histograms);
+    }
+
+    private <T> T lookup(String name, Class<T> type, Function<String, T> factory) {
+        Object metric = metrics.get(name);
+        if (metric == null) metric = metrics.computeIfAbsent(name, factory);
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as "
+                    + metric.getClass().getSimpleName());
+        }
+        return type.cast(metric);
+    }
+}
@@ -0,0 +1,97 @@
+// Point-in-time view of every metric in a registry, sorted by name, rendered as text or JSON
+
+package metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class MetricsSnapshot {
+
+    private final Map<String, Long> counters;                   // values copied when the snapshot was taken
+    private final Map<String, Long> gauges;
+    private final List<LatencyHistogram.Snapshot> histograms;
+
+    /** @param counters and {@code gauges}: sorted by name */
+    MetricsSnapshot(Map<String, Long> counters, Map<String, Long> gauges,
+                    List<LatencyHistogram.Snapshot> histograms) {
+        this.counters = counters;
+        this.gauges = gauges;
+        this.histograms = histograms;
+    }
+
+    public List<LatencyHistogram.Snapshot> histograms() {
+        return histograms;
+    }
+
+    /** Value of the named counter, or 0 if it is not registered. */
+    public long counter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /** Value of the named gauge, or 0 if it is not registered. */
+    public long gauge(String name) {
+        return gauges.getOrDefault(name, 0L);
+    }
+
+    public LatencyHistogram.Snapshot histogram(String name) {
+        for (LatencyHistogram.Snapshot h : histograms) if (h.name().equals(name)) return h;
+        return null;
+    }
+
+    /** One metric per line: {@code counter name value}, {@code histogram name count=.. p50=..}. */
+    public String toText() {
+        StringBuilder out = new StringBuilder();
+        counters.forEach((name, value) -> out.append("counter ").append(name).append(' ').append(value).append('\n'));
+        gauges.forEach((name, value) -> out.append("gauge ").append(name).append(' ').append(value).append('\n'));
+        for (LatencyHistogram.Snapshot h : histograms) {
+            out.append("histogram ").append(h.name())
+                    .append(" count=").append(h.count())
+                    .append(" mean_ns=").append(String.format(Locale.ROOT, "%.1f", h.mean()))
+                    .append(" p50_ns=").append(h.p50())
+                    .append(" p99_ns=").append(h.p99())
+                    .append(" p999_ns=").append(h.p999())
+                    .append(" max_ns=").append(h.max()).append('\n');
+        }
+        return out.toString();
+    }
+
+    public String toJson() {
+        StringBuilder out = new StringBuilder("{\n  \"counters\": {");
+        String sep = "";
+        for (Map.Entry<String, Long> c : counters.entrySet()) {
+            out.append(sep).append("\n    ").append(quote(c.getKey())).append(": ").append(c.getValue());
+            sep = ",";
+        }
+        out.append(counters.isEmpty() ? "},\n" : "\n  },\n").append("  \"gauges\": {");
+        sep = "";
+        for (Map.Entry<String, Long> g : gauges.entrySet()) {
+            out.append(sep).append("\n    ").append(quote(g.getKey())).append(": ").append(g.getValue());
+            sep = ",";
+        }
+        out.append(gauges.isEmpty() ? "},\n" : "\n  },\n").append("  \"histograms\": {");
+        sep = "";
+        for (LatencyHistogram.Snapshot h : histograms) {
+            out.append(sep).append("\n    ").append(quote(h.name())).append(": {")
+                    .append("\"count\": ").append(h.count())
+                    .append(", \"mean_ns\": ").append(String.format(Locale.ROOT, "%.1f", h.mean()))
+                    .append(", \"p50_ns\": ").append(h.p50())
+                    .append(", \"p99_ns\": ").append(h.p99())
+                    .append(", \"p999_ns\": ").append(h.p999())
+                    .append(", \"max_ns\": ").append(h.max()).append('}');
+            sep = ",";
+        }
+        return out.append(histograms.isEmpty() ? "}\n}\n" : "\n  }\n}\n").toString();
+    }
+
+    private static String quote(String s) {
+        StringBuilder out = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        return out.append('"').toString();
+    }
+}
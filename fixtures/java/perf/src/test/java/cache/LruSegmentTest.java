@@ -0,0 +1,54 @@
+// Tests for the shared LRU segment: weighted eviction, stale reads and epoch-checked puts
+
+package cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruSegmentTest {
+
+    private static final AtomicLong UNCHANGED = new AtomicLong();
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesByWeight() {
+        LruSegment<String, String> segment = new LruSegment<>(6, String::length);
+        assertEquals(0, segment.putIfUnchanged("a", "aa", UNCHANGED, 0));
+        assertEquals(0, segment.putIfUnchanged("b", "bb", UNCHANGED, 0));
+        assertEquals("aa", segment.get("a"));                               // b is now the eldest
+        assertEquals(1, segment.putIfUnchanged("c", "ccc", UNCHANGED, 0));
+        assertNull(segment.get("b"));
+        assertEquals(5, segment.weight());
+
+        assertEquals(0, segment.putIfUnchanged("c", "c", UNCHANGED, 0));    // replacing reweighs
+        assertEquals(3, segment.weight());
+        assertEquals(1, segment.remove("a"));
+        assertEquals(0, segment.remove("a"));
+        assertEquals(1, segment.weight());
+    }
+
+    @Test
+    void putIsSkippedOnceTheEpochMoved() {
+        AtomicLong writes = new AtomicLong();
+        LruSegment<Integer, String> segment = new LruSegment<>(10, v -> 1);
+        long epoch = writes.get();
+        writes.incrementAndGet();                                          // a write between load and put
+        assertEquals(0, segment.putIfUnchanged(1, "stale", writes, epoch));
+        assertNull(segment.get(1));
+        assertEquals(0, segment.size());
+    }
+
+    @Test
+    void staleEntriesAreDroppedOnRead() {
+        LruSegment<Integer, String> segment = new LruSegment<>(10, v -> 1);
+        segment.putIfUnchanged(1, "old", UNCHANGED, 0);
+        segment.putIfUnchanged(2, "new", UNCHANGED, 0);
+        assertNull(segment.getUnless(1, "old"::equals));
+        assertEquals("new", segment.getUnless(2, "old"::equals));
+        assertEquals(1, segment.size());
+        assertEquals(1, segment.removeIf(v -> true));
+        assertEquals(0, segment.weight());
+    }
+}
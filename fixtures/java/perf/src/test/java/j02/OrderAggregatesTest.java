@@ -0,0 +1,119 @@
+// Tests for the incrementally maintained order aggregates
+
+package j02;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderAggregatesTest {
+
+    private OrderProcessor newProcessor() {
+        return new OrderProcessor(new Object(), mock(OrderProcessor.Mailer.class), mock(OrderProcessor.Logger.class));
+    }
+
+    private Map<String, Object> makeOrder(String id, String email, double price, int quantity, String paymentMethod) {
+        Map<String, Object> order = new HashMap<>();
+        order.put("id", id);
+        Map<String, Object> customer = new HashMap<>();
+        customer.put("type", "standard");
+        customer.put("email", email);
+        order.put("customer", customer);
+        List<Map<String, Object>> items = new ArrayList<>();
+        Map<String, Object> item = new HashMap<>();
+        item.put("price", price);
+        item.put("quantity", quantity);
+        items.add(item);
+        order.put("items", items);
+        order.put("paymentMethod", paymentMethod);
+        return order;
+    }
+
+    @Test
+    void tracksRevenueAndCountsPerCustomerStatusAndPaymentMethod() {
+        OrderProcessor processor = newProcessor();
+        processor.processOrder(makeOrder("1", "alice@test.com", 100, 2, "cash"));
+        processor.processOrder(makeOrder("2", "alice@test.com", 50, 1, "credit_card"));
+        processor.processOrder(makeOrder("3", "bob@test.com", 10, 1, "cash"));
+
+        OrderAggregates.Snapshot snapshot = processor.getAggregates().snapshot();
+        assertEquals(2, snapshot.customer("alice@test.com").orders());
+        double creditCardTotal = (50 + 19.99) * 1.029 + 0.30;
+        assertEquals(200 + 19.99 + creditCardTotal, snapshot.customer("alice@test.com").amount(), 0.001);
+        assertEquals(10 + 19.99, snapshot.customer("bob@test.com").amount(), 0.001);
+        assertEquals(3, snapshot.status("processed"));
+        assertEquals(2, snapshot.paymentMethod("cash").orders());
+        assertEquals(creditCardTotal, snapshot.paymentMethod("credit_card").amount(), 0.001);
+    }
+
+    @Test
+    void cancellationMovesStatusAndSubtractsRefund() {
+        OrderProcessor processor = newProcessor();
+        processor.processOrder(makeOrder("1", "alice@test.com", 100, 1, "credit_card"));
+        processor.processOrder(makeOrder("2", "alice@test.com", 30, 1, "cash"));
+        assertTrue(processor.cancelOrder("1", "Changed mind"));
+
+        OrderAggregates.Snapshot snapshot = processor.getAggregates().snapshot();
+        assertEquals(1, snapshot.status("processed"));
+        assertEquals(1, snapshot.status("cancelled"));
+        // Credit card refunds keep the fixed 0.30 fee
+        assertEquals(0.30, snapshot.paymentMethod("credit_card").amount(), 0.001);
+        assertEquals(1, snapshot.paymentMethod("credit_card").orders());
+        assertEquals(0.30 + 30 + 19.99, snapshot.customer("alice@test.com").amount(), 0.001);
+    }
+
+    @Test
+    void snapshotsStayConsistentUnderConcurrentWriters() throws Exception {
+        OrderAggregates aggregates = new OrderAggregates();
+        int writers = 4;
+        int ordersPerWriter = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ordersPerWriter; i++) {
+                    Map<String, Object> order = makeOrder(writer + "-" + i, "c" + (i % 100) + "@test.com", 1, 1, i % 2 == 0 ? "cash" : "paypal");
+                    order.put("total", 1.0);
+                    order.put("status", "processed");
+                    aggregates.onProcessed(order);
+                    if (i % 4 == 0) {
+                        order.put("status", "cancelled");
+                        order.put("refundAmount", 1.0);
+                        aggregates.onCancelled(order, "processed");
+                    }
+                }
+            }));
+        }
+        Future<Integer> reader = executor.submit(() -> {
+            int checked = 0;
+            while (!done.get()) {
+                OrderAggregates.Snapshot s = aggregates.snapshot();
+                long byStatus = s.byStatus().values().stream().mapToLong(Long::longValue).sum();
+                long byCustomer = s.byCustomer().values().stream().mapToLong(OrderAggregates.Totals::orders).sum();
+                long byMethod = s.byPaymentMethod().values().stream().mapToLong(OrderAggregates.Totals::orders).sum();
+                assertEquals(byStatus, byCustomer, "status and customer counts must come from the same instant");
+                assertEquals(byStatus, byMethod, "status and payment counts must come from the same instant");
+                assertEquals(s.status("processed"), s.paymentMethod("cash").amount() + s.paymentMethod("paypal").amount(), 1e-6);
+                checked++;
+            }
+            return checked;
+        });
+
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        done.set(true);
+        assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        executor.shutdown();
+
+        OrderAggregates.Snapshot last = aggregates.snapshot();
+        assertEquals(writers * ordersPerWriter / 4, last.status("cancelled"));
+        assertEquals(writers * ordersPerWriter * 3 / 4, last.status("processed"));
+    }
+}
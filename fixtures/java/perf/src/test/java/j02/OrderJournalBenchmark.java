@@ -0,0 +1,163 @@
+// JMH: append throughput and startup replay time of OrderJournal
+// mvn -P bench test-compile exec:exec -Djmh.args="OrderJournalBenchmark"
+// 10M events need roughly 2 GB of disk in java.io.tmpdir; use -p events=... for smaller runs
+
+package j02;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class OrderJournalBenchmark {
+
+    private static final int COMMIT_EVERY = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Events {
+        @Param({"10000000"})
+        int events;
+
+        List<Map<String, Object>> orders;
+        Map<String, Object> cancellation;
+        Path dir;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() throws IOException {
+            orders = new ArrayList<>(1024);
+            for (int i = 0; i < 1024; i++) orders.add(order(i));
+            cancellation = new HashMap<>();
+            cancellation.put("status", "cancelled");
+            cancellation.put("cancellationReason", "Changed mind");
+            cancellation.put("refundAmount", 42.0);
+        }
+
+        @Setup(Level.Iteration)
+        public void freshDir() throws IOException {
+            dir = Files.createTempDirectory("order-journal-bench");
+        }
+
+        @TearDown(Level.Iteration)
+        public void deleteDir() throws IOException {
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Written {
+        @Param({"10000000"})
+        int events;
+
+        Path withSnapshot;
+        Path withoutSnapshot;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            Events source = new Events();
+            source.setUp();
+            withoutSnapshot = Files.createTempDirectory("order-journal-replay");
+            write(source, withoutSnapshot, events, new OrderJournal.Config(128 << 20, 0, 0), false);
+            withSnapshot = Files.createTempDirectory("order-journal-snapshot");
+            write(source, withSnapshot, events, new OrderJournal.Config(128 << 20, 0, 0), true);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(withSnapshot);
+            delete(withoutSnapshot);
+        }
+    }
+
+    /** Appends {@code events} events (80% processed, 15% cancelled, 5% update) with group commits. */
+    @Benchmark
+    public int append(Events state) throws IOException {
+        try (OrderJournal journal = OrderJournal.open(state.dir, new OrderJournal.Config(128 << 20, 10_000, 0))) {
+            appendAll(journal, state, state.events);
+            return journal.size();
+        }
+    }
+
+    /** Full replay of every record, as after a crash that left no snapshot. */
+    @Benchmark
+    public int replayFullJournal(Written state) throws IOException {
+        OrderJournal journal = OrderJournal.open(state.withoutSnapshot, new OrderJournal.Config(128 << 20, 0, 0));
+        return journal.size();
+    }
+
+    /** Snapshot load followed by replay of the tail written after it. */
+    @Benchmark
+    public int replayFromSnapshot(Written state) throws IOException {
+        OrderJournal journal = OrderJournal.open(state.withSnapshot, new OrderJournal.Config(128 << 20, 0, 0));
+        return journal.size();
+    }
+
+    private static void write(Events source, Path dir, int events, OrderJournal.Config config, boolean snapshot)
+            throws IOException {
+        OrderJournal journal = OrderJournal.open(dir, config);
+        appendAll(journal, source, events);
+        // Leave 1% of the events after the snapshot so recovery still has a tail to replay
+        if (snapshot) {
+            journal.snapshot();
+            appendAll(journal, source, events / 100);
+        }
+        journal.commitAll();
+    }
+
+    private static void appendAll(OrderJournal journal, Events state, int events) {
+        int orderCount = 0;
+        long token = 0;
+        for (int i = 0; i < events; i++) {
+            int kind = i % 20;
+            if (kind < 16 || orderCount == 0) {
+                Map<String, Object> order = state.orders.get(orderCount & 1023);
+                order.put("id", "ORD-" + orderCount++);
+                token = journal.appendProcessed(order);
+            } else if (kind < 19) {
+                token = journal.appendCancelled("ORD-" + (i % orderCount), state.cancellation);
+            } else {
+                token = journal.appendUpdateSent("ORD-" + (i % orderCount), "shipped");
+            }
+            if (i % COMMIT_EVERY == 0) journal.commit(token);
+        }
+        journal.commit(token);
+    }
+
+    private static Map<String, Object> order(int i) {
+        Map<String, Object> order = new HashMap<>();
+        Map<String, Object> customer = new HashMap<>();
+        customer.put("type", i % 10 == 0 ? "vip" : "standard");
+        customer.put("email", "customer" + i + "@example.com");
+        order.put("customer", customer);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int j = 0; j < 1 + i % 3; j++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("price", 9.99 + j);
+            item.put("quantity", 1 + j);
+            items.add(item);
+        }
+        order.put("items", items);
+        order.put("paymentMethod", i % 2 == 0 ? "credit_card" : "paypal");
+        order.put("shipping", 19.99);
+        order.put("total", 123.45);
+        order.put("status", "processed");
+        return order;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,258 @@
+// Tests for the memory-mapped order journal: durability, replay, snapshots and paging
+
+package j02;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderJournalTest {
+
+    private static final OrderJournal.Config SMALL = new OrderJournal.Config(64 * 1024, 4, 0);
+
+    @TempDir
+    Path dir;
+
+    private Map<String, Object> makeOrder(String id, String email, double price, int quantity) {
+        Map<String, Object> order = new HashMap<>();
+        order.put("id", id);
+        Map<String, Object> customer = new HashMap<>();
+        customer.put("type", "standard");
+        customer.put("email", email);
+        order.put("customer", customer);
+        List<Map<String, Object>> items = new ArrayList<>();
+        Map<String, Object> item = new HashMap<>();
+        item.put("price", price);
+        item.put("quantity", quantity);
+        items.add(item);
+        order.put("items", items);
+        order.put("paymentMethod", "credit_card");
+        order.put("total", price * quantity);
+        order.put("status", "processed");
+        return order;
+    }
+
+    @Test
+    void replaysProcessedOrdersAfterReopen() throws Exception {
+        OrderJournal writer = OrderJournal.open(dir, SMALL);
+        for (int i = 0; i < 100; i++) {
+            writer.appendProcessed(makeOrder("ord-" + i, "c" + i + "@test.com", 10 + i, 1));
+        }
+        writer.commitAll();
+
+        // No snapshot was taken, so the second instance rebuilds everything by replay
+        OrderJournal reader = OrderJournal.open(dir, SMALL);
+        assertEquals(100, reader.size());
+        Map<String, Object> order = reader.find("ord-42");
+        assertEquals(52.0, ((Number) order.get("total")).doubleValue(), 0.001);
+        assertEquals("c42@test.com", ((Map<?, ?>) order.get("customer")).get("email"));
+        assertNull(reader.find("ord-100"));
+        writer.close();
+        reader.close();
+    }
+
+    @Test
+    void replaysCancellationsWrittenAfterTheSnapshot() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            journal.appendProcessed(makeOrder("1", "a@test.com", 100, 1));
+            journal.appendProcessed(makeOrder("2", "b@test.com", 50, 2));
+            journal.snapshot();
+            Map<String, Object> changes = new HashMap<>();
+            changes.put("status", "cancelled");
+            changes.put("refundAmount", 99.7);
+            journal.commit(journal.appendCancelled("1", changes));
+        }
+
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            assertEquals(2, journal.size());
+            assertEquals("cancelled", journal.find("1").get("status"));
+            assertEquals(99.7, ((Number) journal.find("1").get("refundAmount")).doubleValue(), 0.001);
+            assertEquals("processed", journal.find("2").get("status"));
+        }
+    }
+
+    @Test
+    void aggregatesComeFromTheSnapshotPlusTheEventsAfterIt() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            journal.appendProcessed(makeOrder("1", "a@test.com", 100, 1));
+            journal.appendProcessed(makeOrder("2", "b@test.com", 50, 2));
+            journal.snapshot();
+            Map<String, Object> changes = new HashMap<>();
+            changes.put("status", "cancelled");
+            changes.put("refundAmount", 99.7);
+            journal.appendCancelled("1", changes);
+            journal.appendCancelled("1", changes);                          // a repeat changes nothing
+            journal.appendProcessed(makeOrder("3", "a@test.com", 10, 1));
+            journal.commitAll();
+
+            // Reopened without closing (as after a crash): snapshot + three replayed events
+            OrderAggregates.Snapshot live = journal.aggregates().snapshot();
+            try (OrderJournal reopened = OrderJournal.open(dir, SMALL)) {
+                assertEquals(live, reopened.aggregates().snapshot());
+            }
+            assertEquals(1, live.status("cancelled"));
+            assertEquals(2, live.status("processed"));
+            assertEquals(100 - 99.7 + 10, live.customer("a@test.com").amount(), 0.001);
+            assertEquals(2, live.customer("a@test.com").orders());
+        }
+    }
+
+    @Test
+    void pagesColdOrdersBackInFromTheJournal() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            Map<String, Object> first = makeOrder("first", "f@test.com", 5, 3);
+            journal.appendProcessed(first);
+            assertSame(first, journal.find("first"));
+
+            for (int i = 0; i < 10; i++) journal.appendProcessed(makeOrder("o" + i, "x@test.com", 1, 1));
+
+            Map<String, Object> reloaded = journal.find("first");
+            assertNotSame(first, reloaded, "order should have been evicted from the hot set");
+            assertEquals(first, reloaded);
+        }
+    }
+
+    @Test
+    void rollsOverSegmentsAndKeepsOrdersReachable() throws Exception {
+        OrderJournal.Config tiny = new OrderJournal.Config(4096, 0, 0);
+        try (OrderJournal journal = OrderJournal.open(dir, tiny)) {
+            for (int i = 0; i < 500; i++) journal.appendProcessed(makeOrder("o" + i, "x@test.com", i, 1));
+        }
+        try (OrderJournal journal = OrderJournal.open(dir, tiny)) {
+            assertEquals(500, journal.size());
+            assertEquals(499.0, ((Number) journal.find("o499").get("total")).doubleValue(), 0.001);
+            assertEquals(0.0, ((Number) journal.find("o0").get("total")).doubleValue(), 0.001);
+        }
+    }
+
+    @Test
+    void ignoresTornRecordAtTheTail() throws Exception {
+        long end;
+        OrderJournal journal = OrderJournal.open(dir, SMALL);
+        journal.appendProcessed(makeOrder("1", "a@test.com", 10, 1));
+        end = journal.appendProcessed(makeOrder("2", "b@test.com", 20, 1));
+        journal.commitAll();
+
+        // Simulate a crash halfway through the next append: length written, body garbage
+        try (FileChannel ch = FileChannel.open(dir.resolve("journal-00000001.seg"), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(12).putInt(200).putInt(12345).putInt(-1).flip();
+            ch.write(torn, (int) end);
+        }
+
+        try (OrderJournal recovered = OrderJournal.open(dir, SMALL)) {
+            assertEquals(2, recovered.size());
+            recovered.appendProcessed(makeOrder("3", "c@test.com", 30, 1));
+        }
+        try (OrderJournal recovered = OrderJournal.open(dir, SMALL)) {
+            assertEquals(3, recovered.size());
+            assertEquals("c@test.com", ((Map<?, ?>) recovered.find("3").get("customer")).get("email"));
+        }
+        journal.close();
+    }
+
+    @Test
+    void processorCancelsOrdersProcessedBeforeARestart() throws Exception {
+        OrderProcessor.Mailer mailer = mock(OrderProcessor.Mailer.class);
+        OrderProcessor.Logger logger = mock(OrderProcessor.Logger.class);
+
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            OrderProcessor processor = new OrderProcessor(new Object(), mailer, logger, journal);
+            Map<String, Object> order = makeOrder("7", "cc@test.com", 100, 1);
+            order.remove("total");
+            order.remove("status");
+            processor.processOrder(order);
+            assertTrue(processor.orders.isEmpty(), "journaled orders should not be kept in the list");
+        }
+
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            OrderProcessor processor = new OrderProcessor(new Object(), mailer, logger, journal);
+            assertTrue(processor.cancelOrder("7", "Changed mind"));
+            assertFalse(processor.cancelOrder("missing", "n/a"));
+        }
+
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            Map<String, Object> order = journal.find("7");
+            assertEquals("cancelled", order.get("status"));
+            assertEquals("Changed mind", order.get("cancellationReason"));
+            double total = ((Number) order.get("total")).doubleValue();
+            assertEquals(total - 0.30, ((Number) order.get("refundAmount")).doubleValue(), 0.001);
+        }
+    }
+
+    @Test
+    void cancellingTwiceRefundsOnce() throws Exception {
+        OrderProcessor.Mailer mailer = mock(OrderProcessor.Mailer.class);
+        OrderProcessor.Logger logger = mock(OrderProcessor.Logger.class);
+
+        OrderAggregates.Snapshot live;
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            OrderProcessor processor = new OrderProcessor(new Object(), mailer, logger, journal);
+            Map<String, Object> order = makeOrder("9", "b@test.com", 100, 1);
+            order.remove("total");
+            order.remove("status");
+            processor.processOrder(order);
+            assertTrue(processor.cancelOrder("9", "Changed mind"));
+            OrderAggregates.Snapshot once = processor.getAggregates().snapshot();
+            assertTrue(processor.cancelOrder("9", "Changed mind again"));
+            live = processor.getAggregates().snapshot();
+            assertEquals(once, live);
+            assertEquals(0.30, live.customer("b@test.com").amount(), 0.001);
+            assertEquals(1, live.status("cancelled"));
+            assertEquals(0, live.status("processed"));
+            assertEquals("Changed mind", journal.find("9").get("cancellationReason"));
+        }
+        verify(mailer, times(2)).send(any());                              // confirmation + one cancellation
+
+        try (OrderJournal journal = OrderJournal.open(dir, SMALL)) {
+            OrderProcessor processor = new OrderProcessor(new Object(), mailer, logger, journal);
+            assertEquals(live, processor.getAggregates().snapshot());
+            assertTrue(processor.cancelOrder("9", "After restart"));
+            assertEquals(live, processor.getAggregates().snapshot());
+        }
+    }
+
+    @Test
+    void processorRebuildsAggregatesAfterARestart() throws Exception {
+        OrderProcessor.Mailer mailer = mock(OrderProcessor.Mailer.class);
+        OrderProcessor.Logger logger = mock(OrderProcessor.Logger.class);
+        OrderJournal.Config snapshots = new OrderJournal.Config(64 * 1024, 4, 2);
+
+        try (OrderJournal journal = OrderJournal.open(dir, snapshots)) {
+            OrderProcessor processor = new OrderProcessor(new Object(), mailer, logger, journal);
+            for (String id : List.of("1", "2", "3")) {
+                Map<String, Object> order = makeOrder(id, "a@test.com", 100, 1);
+                order.remove("total");
+                order.remove("status");
+                processor.processOrder(order);
+            }
+            assertTrue(processor.cancelOrder("1", "Changed mind"));
+        }
+
+        OrderAggregates.Snapshot expected;
+        try (OrderJournal journal = OrderJournal.open(dir, snapshots)) {
+            OrderProcessor processor = new OrderProcessor(new Object(), mailer, logger, journal);
+            assertEquals(2, processor.getAggregates().snapshot().status("processed"));
+            assertEquals(1, processor.getAggregates().snapshot().status("cancelled"));
+            assertTrue(processor.cancelOrder("2", "Too slow"));
+            expected = processor.getAggregates().snapshot();
+            assertEquals(1, expected.status("processed"));
+            assertEquals(2, expected.status("cancelled"));
+            assertEquals(3, expected.customer("a@test.com").orders());
+        }
+
+        try (OrderJournal journal = OrderJournal.open(dir, snapshots)) {
+            OrderAggregates.Snapshot reopened = new OrderProcessor(new Object(), mailer, logger, journal).getAggregates().snapshot();
+            assertEquals(expected.byStatus(), reopened.byStatus());
+            assertEquals(expected.customer("a@test.com").amount(), reopened.customer("a@test.com").amount(), 0.001);
+            assertEquals(expected.paymentMethod("credit_card").amount(), reopened.paymentMethod("credit_card").amount(), 0.001);
+        }
+    }
+}
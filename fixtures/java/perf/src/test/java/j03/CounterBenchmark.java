@@ -0,0 +1,82 @@
+// JMH: striped counters vs synchronized and AtomicInteger at 1..64 threads
+// mvn -P bench test-compile exec:exec -Djmh.args="CounterBenchmark" runs one thread count (-t N);
+// `java -cp <test classpath> j03.CounterBenchmark` sweeps 1, 2, 4, 8, 16, 32 and 64 threads
+
+package j03;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CounterBenchmark {
+
+    /** The "correct fix" for the fixture: one monitor around one int. */
+    static final class SynchronizedCounter {
+        private int sharedCounter;
+
+        synchronized void increment() { sharedCounter++; }
+
+        synchronized int getCounter() { return sharedCounter; }
+    }
+
+    private final SynchronizedCounter synchronizedCounter = new SynchronizedCounter();
+    private final AtomicInteger atomicInteger = new AtomicInteger();
+    private final LongAdder longAdder = new LongAdder();
+    private final StripedCounter striped = new StripedCounter();
+    private final LongStripedCounter longStriped = new LongStripedCounter();
+
+    @Benchmark
+    public void synchronizedInt() {
+        synchronizedCounter.increment();
+    }
+
+    @Benchmark
+    public void atomicInteger() {
+        atomicInteger.incrementAndGet();
+    }
+
+    /** JDK reference point for cell-based counters. */
+    @Benchmark
+    public void longAdder() {
+        longAdder.increment();
+    }
+
+    @Benchmark
+    public void stripedInt() {
+        striped.increment();
+    }
+
+    @Benchmark
+    public void stripedLong() {
+        longStriped.increment();
+    }
+
+    /** Exact read cost, which is what striping trades for cheap increments. */
+    @Benchmark
+    @Threads(1)
+    public long stripedLongSum() {
+        return longStriped.getCounter();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(CounterBenchmark.class.getName() + "\\.(synchronizedInt|atomicInteger|longAdder|stripedInt|stripedLong)$")
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+// JMH: SlidingWindowCounter increment throughput under contention and window read cost
+// mvn -P bench test-compile exec:exec -Djmh.args="SlidingWindowCounterBenchmark -t 8"
+
+package j03;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlidingWindowCounterBenchmark {
+
+    private final SlidingWindowCounter window = new SlidingWindowCounter();
+    private final AtomicLong runningTotal = new AtomicLong();
+
+    /** Baseline: a plain running total, which cannot answer windowed queries. */
+    @Benchmark
+    public long atomicRunningTotal() {
+        return runningTotal.incrementAndGet();
+    }
+
+    @Benchmark
+    public void slidingWindowIncrement() {
+        window.increment();
+    }
+
+    /** Increments with a concurrent reader polling the one-minute window. */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void mixedIncrement() {
+        window.increment();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public long mixedLastMinute() {
+        return window.lastMinute();
+    }
+}
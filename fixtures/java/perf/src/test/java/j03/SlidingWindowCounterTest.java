@@ -0,0 +1,106 @@
+// Tests for the lock-free sliding-window counter, driven by a manual clock
+
+package j03;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void countsOnlyEventsInsideTheWindow() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SlidingWindowCounter counter = new SlidingWindowCounter(100, 600, clock::get);
+
+        counter.incrementCounter(5);           // t = 0s
+        clock.addAndGet(2_000);
+        counter.incrementCounter(3);           // t = 2s
+        clock.addAndGet(9_000);
+        counter.increment();                   // t = 11s
+
+        assertEquals(1, counter.lastSecond());
+        assertEquals(4, counter.last10Seconds());
+        assertEquals(9, counter.lastMinute());
+
+        clock.addAndGet(60_000);
+        assertEquals(0, counter.lastMinute(), "everything expired without any background thread");
+    }
+
+    @Test
+    void recyclesBucketsAfterAFullLapOfTheRing() {
+        AtomicLong clock = new AtomicLong();
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, 4, clock::get);
+
+        counter.incrementCounter(7);
+        clock.addAndGet(40);                   // same slot, next lap
+        counter.incrementCounter(2);
+
+        assertEquals(2, counter.count(40));
+        assertEquals(40, counter.maxWindowMillis());
+    }
+
+    @Test
+    void aFullBucketSaturatesInsteadOfCorruptingItsEpoch() {
+        AtomicLong clock = new AtomicLong();
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, 4, clock::get);
+
+        for (int i = 0; i < 3; i++) counter.incrementCounter(Integer.MAX_VALUE);
+        assertEquals(0xffffffffL, counter.count(10));
+        counter.increment();
+        assertEquals(0xffffffffL, counter.count(10));
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLostWhileBucketsRotate() throws Exception {
+        AtomicLong clock = new AtomicLong(5_000);
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, 1_000, clock::get);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        CyclicBarrier start = new CyclicBarrier(threads);
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    counter.increment();
+                    // Threads advance the clock themselves, so buckets are claimed under contention
+                    if (i % 1_000 == 0) clock.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // 8 * 50 clock ticks stay well inside the 1000-bucket window
+        assertEquals((long) threads * perThread, counter.count(counter.maxWindowMillis()));
+    }
+
+    @Test
+    void tracksRatesPerEndpoint() {
+        AtomicLong clock = new AtomicLong();
+        Map<String, SlidingWindowCounter> byEndpoint = new ConcurrentHashMap<>();
+        for (int i = 0; i < 30; i++) {
+            String endpoint = i % 3 == 0 ? "/api/orders" : "/api/products";
+            byEndpoint.computeIfAbsent(endpoint, e -> new SlidingWindowCounter(100, 600, clock::get)).increment();
+        }
+        assertEquals(10, byEndpoint.get("/api/orders").lastSecond());
+        assertEquals(20, byEndpoint.get("/api/products").lastSecond());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter().incrementCounter(-1));
+        assertEquals(0, new SlidingWindowCounter().count(0));
+    }
+}
@@ -0,0 +1,94 @@
+// Concurrency tests for the striped counter family
+// Mirrors the j03 CounterTest workload (20 workers x 100 increments) and adds drain checks
+
+package j03;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedCounterTest {
+
+    private static final int CONCURRENCY = 20;
+    private static final int INCREMENTS_PER_WORKER = 100;
+
+    @Test
+    void reachesCorrectCountUnderConcurrentAccess() throws Exception {
+        StripedCounter counter = new StripedCounter();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < CONCURRENCY; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < INCREMENTS_PER_WORKER; j++) counter.incrementCounter(1);
+            }));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(CONCURRENCY * INCREMENTS_PER_WORKER, counter.getCounter());
+    }
+
+    @Test
+    void sumThenResetNeverLosesOrDoubleCountsIncrements() throws Exception {
+        LongStripedCounter counter = new LongStripedCounter(8);
+        int workers = 8;
+        int increments = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong drained = new AtomicLong();
+
+        Future<?> drainer = executor.submit(() -> {
+            while (!done.get()) drained.addAndGet(counter.sumThenReset());
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < increments; j++) counter.increment();
+            }));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        done.set(true);
+        drainer.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals((long) workers * increments, drained.get() + counter.sumThenReset());
+        assertEquals(0, counter.getCounter());
+    }
+
+    @Test
+    void longCounterDoesNotOverflowWhereIntWraps() {
+        LongStripedCounter wide = new LongStripedCounter(1);
+        StripedCounter narrow = new StripedCounter(1);
+        wide.add(Integer.MAX_VALUE);
+        wide.incrementCounter(1);
+        narrow.incrementCounter(Integer.MAX_VALUE);
+        narrow.incrementCounter(1);
+
+        assertEquals(Integer.MAX_VALUE + 1L, wide.getCounter());
+        assertEquals(Integer.MIN_VALUE, narrow.getCounter());
+    }
+
+    @Test
+    void resetAndSingleThreadedIncrementStillWork() {
+        StripedCounter counter = new StripedCounter();
+        counter.incrementCounter(5);
+        assertEquals(5, counter.getCounter());
+        counter.resetCounter();
+        assertEquals(0, counter.getCounter());
+        assertThrows(IllegalArgumentException.class, () -> counter.incrementCounter(-1));
+    }
+
+    @Test
+    void roundsStripeCountUpToAPowerOfTwo() {
+        assertEquals(1, new LongStripedCounter(1).stripes());
+        assertEquals(8, new LongStripedCounter(5).stripes());
+        assertEquals(64, new LongStripedCounter(64).stripes());
+    }
+}
@@ -0,0 +1,62 @@
+// JMH: scalar calculateDiscount per element vs the primitive-array batch variants
+// mvn -P bench test-compile exec:exec -Djmh.args="CalculateDiscountBenchmark -p size=1000000"
+// size=100000000 allocates ~1.4 GB of inputs and outputs, hence the -Xmx4g fork
+
+package j04;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CalculateDiscountBenchmark {
+
+    @Param({"1000", "1000000", "100000000"})
+    int size;
+
+    int[] quantities;
+    boolean[] vip;
+    long[] vipBits;
+    double[] out;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        quantities = new int[size];
+        vip = new boolean[size];
+        vipBits = new long[(size + 63) / 64];
+        out = new double[size];
+        for (int i = 0; i < size; i++) {
+            quantities[i] = random.nextInt(100);
+            vip[i] = random.nextInt(4) == 0;
+            if (vip[i]) vipBits[i >>> 6] |= 1L << i;
+        }
+    }
+
+    /** One call per order line, as the quote engine does today. Scores are batches/s. */
+    @Benchmark
+    public double[] scalar() {
+        for (int i = 0; i < size; i++) {
+            out[i] = CalculateDiscount.calculateDiscount(quantities[i], vip[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batchBooleans() {
+        CalculateDiscount.calculateDiscounts(quantities, vip, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] batchBitset() {
+        CalculateDiscount.calculateDiscounts(quantities, vipBits, out);
+        return out;
+    }
+}
@@ -0,0 +1,68 @@
+// Tests that the batch discount APIs match the scalar rules exactly and validate like them
+
+package j04;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculateDiscountTest {
+
+    @Test
+    void batchResultsAreIdenticalToScalarResults() {
+        Random random = new Random(42);
+        int n = 10_000;
+        int[] quantities = new int[n];
+        boolean[] vip = new boolean[n];
+        BitSet vipBits = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            // Dense around the 10/50 thresholds, plus large values
+            quantities[i] = i < 200 ? i / 2 : random.nextInt(i % 3 == 0 ? Integer.MAX_VALUE : 100);
+            vip[i] = random.nextBoolean();
+            vipBits.set(i, vip[i]);
+        }
+
+        double[] fromBooleans = new double[n];
+        double[] fromBits = new double[n];
+        CalculateDiscount.calculateDiscounts(quantities, vip, fromBooleans);
+        CalculateDiscount.calculateDiscounts(quantities, Arrays.copyOf(vipBits.toLongArray(), (n + 63) / 64), fromBits);
+
+        for (int i = 0; i < n; i++) {
+            double expected = CalculateDiscount.calculateDiscount(quantities[i], vip[i]);
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(fromBooleans[i]), "index " + i);
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(fromBits[i]), "index " + i);
+        }
+    }
+
+    @Test
+    void rejectsNegativeQuantityWithItsIndexAndWritesNothing() {
+        int[] quantities = {5, 20, -1, 60, -3};
+        double[] out = new double[5];
+        Arrays.fill(out, -1);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CalculateDiscount.calculateDiscounts(quantities, new boolean[5], out));
+        assertTrue(e.getMessage().contains("index 2"), e.getMessage());
+        assertTrue(e.getMessage().startsWith("quantity cannot be negative"));
+        assertArrayEquals(new double[] {-1, -1, -1, -1, -1}, out);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculateDiscount.calculateDiscounts(quantities, new long[1], out));
+    }
+
+    @Test
+    void rejectsArraysShorterThanTheQuantities() {
+        int[] quantities = new int[65];
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculateDiscount.calculateDiscounts(quantities, new boolean[64], new double[65]));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculateDiscount.calculateDiscounts(quantities, new long[1], new double[65]));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculateDiscount.calculateDiscounts(quantities, new long[2], new double[64]));
+        CalculateDiscount.calculateDiscounts(new int[0], new long[0], new double[0]);
+    }
+}
@@ -0,0 +1,78 @@
+// JMH: writing 10k rows one statement at a time vs chunked JDBC batches
+// mvn -P bench test-compile exec:exec -Djmh.args="BatchWriteBenchmark"
+
+package j05;
+
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchWriteBenchmark {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+    private static final int ROWS = 10_000;
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    private ECommerceApi api;
+    private List<OrderRow> orders;
+    private List<String> userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = new ECommerceApi(1, KEY);
+        orders = new ArrayList<>(ROWS);
+        userIds = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            orders.add(new OrderRow(i, i % 100, i));
+            userIds.add(String.valueOf(i));
+        }
+    }
+
+    /** Each invocation starts from the same state: no orders, ROWS users. */
+    @Setup(Level.Invocation)
+    public void reset() throws Exception {
+        try (ConnectionPool.Lease lease = api.pool().lease(); var stmt = lease.connection().createStatement()) {
+            stmt.execute("DELETE FROM orders");
+            stmt.execute("DELETE FROM users");
+            stmt.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + ROWS + ") "
+                    + "INSERT INTO users SELECT i, 'user' || i || '@test.com', 'customer', 'hash' FROM n");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        api.close();
+    }
+
+    @Benchmark
+    public void insertOrdersOneByOne() throws Exception {
+        for (OrderRow order : orders) api.createOrder((int) order.id(), (int) order.userId(), order.amount());
+    }
+
+    @Benchmark
+    public BatchResult insertOrdersBatched() throws Exception {
+        return api.insertOrders(orders, batchSize);
+    }
+
+    @Benchmark
+    public void deleteUsersOneByOne() throws Exception {
+        for (String id : userIds) api.deleteUser(id);
+    }
+
+    @Benchmark
+    public BatchResult deleteUsersBatched() throws Exception {
+        return api.deleteUsers(userIds, batchSize);
+    }
+}
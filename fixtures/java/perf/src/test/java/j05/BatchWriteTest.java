@@ -0,0 +1,80 @@
+// Tests for the chunked batch writes: per-chunk row counts, transactions and validation
+
+package j05;
+
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchWriteTest {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+
+    private ECommerceApi api;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        api = new ECommerceApi(2, KEY);
+        for (int u = 1; u <= 25; u++) api.createUser(u, "user" + u + "@test.com", "customer", "hash");
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.close();
+    }
+
+    @Test
+    void deleteUsersReportsRowsPerChunk() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int u = 1; u <= 25; u++) ids.add(String.valueOf(u));
+        ids.add("999");                                   // matches nothing
+
+        BatchResult result = api.deleteUsers(ids, 10);
+
+        assertArrayEquals(new int[] {10, 10, 5}, result.rowsPerChunk());
+        assertEquals(25, result.totalRows());
+        assertNull(api.findUserByEmail("user7@test.com"));
+        assertEquals(2, api.pool().idleCount());
+    }
+
+    @Test
+    void updateRolesAppliesEveryUpdate() throws Exception {
+        Map<String, String> roles = new LinkedHashMap<>();
+        for (int u = 1; u <= 5; u++) roles.put(String.valueOf(u), "admin");
+
+        assertEquals(5, api.updateRoles(roles, 2).totalRows());
+        assertEquals("admin", api.findUserByEmail("user3@test.com").role());
+        assertEquals("customer", api.findUserByEmail("user6@test.com").role());
+    }
+
+    @Test
+    void failedChunkIsRolledBackAndEarlierChunksStay() throws Exception {
+        List<OrderRow> orders = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) orders.add(new OrderRow(i, 1, i));
+        orders.add(new OrderRow(3, 1, 0));                // duplicate primary key in the last chunk
+
+        SQLException e = assertThrows(SQLException.class, () -> api.insertOrders(orders, 4));
+        assertTrue(e.getMessage().startsWith("Chunk 2 of 2 failed"), e.getMessage());
+        assertEquals(4, api.findOrdersByUser("1").size(), "only the first chunk was committed");
+        assertEquals(2, api.pool().idleCount());
+
+        // The connection went back to the pool in auto-commit mode
+        api.createOrder(100, 1, 1);
+        assertEquals(5, api.findOrdersByUser("1").size());
+    }
+
+    @Test
+    void malformedIdsFailBeforeAnythingIsDeleted() throws Exception {
+        assertThrows(NumberFormatException.class, () -> api.deleteUsers(List.of("1", "2", "x")));
+        assertNotNull(api.findUserByEmail("user1@test.com"));
+        assertEquals(new BatchResult(new int[0]), api.deleteUsers(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> api.deleteUsers(List.of("1"), 0));
+    }
+}
@@ -0,0 +1,66 @@
+// JMH: cost of authenticating a request by verifying the JWT every time vs the claims cache
+// mvn -P bench test-compile exec:exec -Djmh.args="ClaimsCacheBenchmark -t 4"
+
+package j05;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimsCacheBenchmark {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+
+    /** Distinct active tokens, i.e. concurrently logged-in users. */
+    @Param({"1000"})
+    int activeTokens;
+
+    private String[] tokens;
+    private JwtParser parser;
+    private ClaimsCache cache;
+
+    @Setup
+    public void setUp() {
+        tokens = new String[activeTokens];
+        Date exp = new Date(System.currentTimeMillis() + 3_600_000);
+        for (int i = 0; i < activeTokens; i++) {
+            tokens[i] = Jwts.builder().setSubject("user" + i).setExpiration(exp).signWith(KEY).compact();
+        }
+        parser = Jwts.parserBuilder().setSigningKey(KEY).build();
+        cache = new ClaimsCache(parser, 10_000, 3_600_000, System::currentTimeMillis, new MetricsRegistry(), "bench");
+    }
+
+    /** What the fixture did per request (minus the missing signature check): build a parser and parse. */
+    @Benchmark
+    public Claims newParserPerRequest() {
+        return Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(randomToken()).getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return parser.parseClaimsJws(randomToken()).getBody();
+    }
+
+    @Benchmark
+    public Claims cached() {
+        return cache.verify(randomToken());
+    }
+
+    private String randomToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+    }
+}
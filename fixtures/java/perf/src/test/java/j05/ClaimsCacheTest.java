@@ -0,0 +1,147 @@
+// Tests for the verified-claims cache: expiry at exp, LRU eviction, revocation and stats
+
+package j05;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClaimsCacheTest {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(KEY)
+            .setClock(() -> new Date(clock.get()))
+            .build();
+
+    private ClaimsCache newCache(int maxEntries) {
+        return new ClaimsCache(parser, maxEntries, 60 * 60_000, clock::get, new MetricsRegistry(), "test");
+    }
+
+    private String token(String subject, long expiresInMillis) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(new Date(clock.get() + expiresInMillis))
+                .signWith(KEY)
+                .compact();
+    }
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromTheCache() {
+        ClaimsCache cache = newCache(1_000);
+        String token = token("alice", 60_000);
+
+        Claims first = cache.verify(token);
+        for (int i = 0; i < 9; i++) assertSame(first, cache.verify(token));
+
+        ClaimsCache.Stats stats = cache.stats();
+        assertEquals("alice", first.getSubject());
+        assertEquals(9, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.9, stats.hitRate(), 1e-9);
+        assertEquals(1, stats.verifyLatency().count());
+    }
+
+    @Test
+    void entriesExpireAtTheTokenExpiry() {
+        ClaimsCache cache = newCache(1_000);
+        String token = token("bob", 30_000);
+        cache.verify(token);
+
+        clock.addAndGet(29_000);
+        cache.verify(token);
+        assertEquals(1, cache.stats().hits());
+
+        clock.addAndGet(2_000);
+        assertThrows(JwtException.class, () -> cache.verify(token), "expired tokens are re-verified and rejected");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void rejectsForgedTokensAndDoesNotCacheThem() {
+        ClaimsCache cache = newCache(1_000);
+        Key otherKey = Keys.hmacShaKeyFor("another-key-another-key-another!!".getBytes());
+        String forged = Jwts.builder().setSubject("mallory").signWith(otherKey).compact();
+        String unsigned = Jwts.builder().setSubject("mallory").compact();
+
+        assertThrows(JwtException.class, () -> cache.verify(forged));
+        assertThrows(JwtException.class, () -> cache.verify(unsigned));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedTokenWhenFull() {
+        ClaimsCache cache = newCache(16);              // 16 segments of one entry each
+        String[] tokens = new String[200];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = token("user" + i, 60_000);
+            cache.verify(tokens[i]);
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(200 - cache.size(), cache.stats().evictions());
+    }
+
+    @Test
+    void revokedTokensAreRejectedEvenWhileCached() {
+        ClaimsCache cache = newCache(1_000);
+        String token = token("carol", 60_000);
+        String other = token("dave", 60_000);
+        cache.verify(token);
+        cache.verify(other);
+
+        cache.revoke(token);
+
+        assertThrows(JwtException.class, () -> cache.verify(token));
+        assertEquals("dave", cache.verify(other).getSubject());
+    }
+
+    @Test
+    void revocationsAreForgottenOnceTheirTokensExpire() {
+        ClaimsCache cache = newCache(1_000);
+        for (int i = 0; i < 100; i++) cache.revoke(token("short" + i, 10_000));
+        String longLived = token("frank", 120_000);
+        cache.revoke(longLived);
+        assertEquals(101, cache.revokedCount());
+
+        clock.addAndGet(10_000);
+        cache.revoke(token("grace", 60_000));
+        assertEquals(2, cache.revokedCount());
+        assertThrows(JwtException.class, () -> cache.verify(longLived));
+
+        cache.revoke(longLived);                                           // revoking again queues a second expiry
+        clock.addAndGet(100_000);
+        cache.revoke(token("heidi", 60_000));
+        assertEquals(2, cache.revokedCount());
+        assertThrows(JwtException.class, () -> cache.verify(longLived));
+    }
+
+    @Test
+    void authenticateUsesTheCacheAndHonoursRevocation() throws Exception {
+        try (ECommerceApi api = new ECommerceApi(1, KEY)) {
+            String token = Jwts.builder().setSubject("erin").signWith(KEY).compact();
+            HttpServletRequest request = mock(HttpServletRequest.class);
+            when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+            assertEquals("erin", api.authenticate(request).getSubject());
+            api.revokeToken(token);
+            assertNull(api.authenticate(request));
+
+            when(request.getHeader("Authorization")).thenReturn("Bearer not-a-jwt");
+            assertNull(api.authenticate(request));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+// JMH: concurrent order lookups, pooled connections + cached statements vs the fixture's single connection
+// mvn -P bench test-compile exec:exec -Djmh.args="ECommerceApiBenchmark"
+
+package j05;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.Key;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ECommerceApiBenchmark {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+
+    private static final int USERS = 1_000;
+    private static final int ORDERS_PER_USER = 20;
+
+    private ECommerceApi pooled;
+    private ECommerceApi single;
+    private Connection singleConnection;
+    private HttpServletRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        pooled = seed(new ECommerceApi(8, KEY));
+        single = seed(new ECommerceApi(1, KEY));
+        // Held for the whole run, like the fixture's one Connection field
+        singleConnection = single.pool().lease().connection();
+        request = mock(HttpServletRequest.class, withSettings().stubOnly());
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + Jwts.builder().setSubject("bench").signWith(KEY).compact());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pooled.close();
+        single.close();
+    }
+
+    private static ECommerceApi seed(ECommerceApi api) throws Exception {
+        for (int u = 1; u <= USERS; u++) {
+            api.createUser(u, "user" + u + "@test.com", "customer", "hash");
+            for (int o = 0; o < ORDERS_PER_USER; o++) api.createOrder(u * ORDERS_PER_USER + o, u, o);
+        }
+        return api;
+    }
+
+    /** The whole request, including token parsing. */
+    @Benchmark
+    public List<OrderRow> getUserOrders() throws Exception {
+        return pooled.getUserOrders(request, randomUser());
+    }
+
+    @Benchmark
+    public List<OrderRow> pooledPreparedStatements() throws Exception {
+        return pooled.findOrdersByUser(randomUser());
+    }
+
+    /** The fixture's data access: one shared connection, a new concatenated Statement per call. */
+    @Benchmark
+    public List<OrderRow> singleConnectionNewStatement() throws Exception {
+        synchronized (singleConnection) {
+            try (Statement stmt = singleConnection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM orders WHERE user_id = '" + randomUser() + "'")) {
+                List<OrderRow> orders = new ArrayList<>();
+                while (rs.next()) orders.add(OrderRow.from(rs));
+                return orders;
+            }
+        }
+    }
+
+    private static String randomUser() {
+        return String.valueOf(1 + ThreadLocalRandom.current().nextInt(USERS));
+    }
+}
@@ -0,0 +1,116 @@
+// Tests for the pooled ECommerceApi: parameterized queries, statement reuse and concurrency
+
+package j05;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.Key;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ECommerceApiTest {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+
+    private ECommerceApi api;
+    private HttpServletRequest request;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        api = new ECommerceApi(4, KEY);
+        for (int u = 1; u <= 20; u++) {
+            api.createUser(u, "user" + u + "@test.com", u == 1 ? "admin" : "customer", "hash" + u);
+            for (int o = 0; o < u; o++) api.createOrder(u * 100 + o, u, 10.0 * o);
+        }
+        request = mock(HttpServletRequest.class);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + Jwts.builder().setSubject("alice").signWith(KEY).compact());
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.close();
+    }
+
+    @Test
+    void queriesAreParameterized() throws Exception {
+        assertEquals(7, api.getUserOrders(request, "7").size());
+        assertTrue(api.getUserOrders(request, "7' OR '1'='1").isEmpty());
+        assertNull(api.searchUser(request, "x' OR '1'='1"));
+    }
+
+    @Test
+    void searchUserNeverReturnsThePassword() throws Exception {
+        assertEquals(new UserRow(3, "user3@test.com", "customer"), api.searchUser(request, "user3@test.com"));
+    }
+
+    @Test
+    void deleteUserRemovesTheRow() throws Exception {
+        api.deleteUser("5");
+        assertNull(api.searchUser(request, "user5@test.com"));
+    }
+
+    @Test
+    void unauthenticatedRequestsAreRejected() throws Exception {
+        HttpServletRequest anonymous = mock(HttpServletRequest.class);
+        assertNull(api.getUserOrders(anonymous, "1"));
+        assertNull(api.searchUser(anonymous, "user1@test.com"));
+    }
+
+    @Test
+    void concurrentRequestsShareFourConnectionsAndReuseStatements() throws Exception {
+        long missesBefore = api.pool().statementMisses();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    int userId = 1 + (i % 20);
+                    assertEquals(userId, api.getUserOrders(request, String.valueOf(userId)).size());
+                    assertEquals(userId, api.searchUser(request, "user" + userId + "@test.com").id());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(4, api.pool().idleCount(), "every lease was returned");
+        assertTrue(api.pool().statementMisses() - missesBefore <= 8, "at most one prepare per SQL per connection");
+        assertTrue(api.pool().statementHits() >= 16 * 1000 - 8);
+    }
+
+    @Test
+    void leaseTimesOutWhenThePoolIsExhausted() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite::memory:", 1, 4, 50);
+             ConnectionPool.Lease held = pool.lease()) {
+            assertNotNull(held.connection());
+            assertThrows(SQLTransientConnectionException.class, pool::lease);
+        }
+    }
+
+    @Test
+    void statementCacheEvictsTheLeastRecentlyUsedSql() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite::memory:", 1, 2, 50);
+             ConnectionPool.Lease lease = pool.lease()) {
+            var first = lease.prepare("SELECT 1");
+            lease.prepare("SELECT 2");
+            assertSame(first, lease.prepare("SELECT 1"));
+            lease.prepare("SELECT 3");                     // evicts SELECT 2
+            assertFalse(first.isClosed());
+            long misses = pool.statementMisses();
+            lease.prepare("SELECT 2");
+            assertEquals(misses + 1, pool.statementMisses());
+        }
+    }
+}
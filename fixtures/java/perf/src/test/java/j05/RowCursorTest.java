@@ -0,0 +1,123 @@
+// Tests for streaming cursors and keyset pages over a large order history
+
+package j05;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.Key;
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RowCursorTest {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+    private static final int ORDERS = 50_000;
+
+    private ECommerceApi api;
+    private HttpServletRequest request;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        api = new ECommerceApi(2, KEY);
+        try (ConnectionPool.Lease lease = api.pool().lease()) {
+            lease.connection().setAutoCommit(false);
+            PreparedStatement ps = lease.prepare(ECommerceApi.INSERT_ORDER);
+            for (int i = 1; i <= ORDERS; i++) {
+                ps.setInt(1, i);
+                ps.setInt(2, i % 10 == 0 ? 2 : 1);      // user 1 has 45k orders, user 2 has 5k
+                ps.setDouble(3, i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            lease.connection().commit();
+        }
+        for (int u = 1; u <= 5; u++) api.createUser(u, "shared@test.com", "customer", "hash");
+        request = mock(HttpServletRequest.class);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + Jwts.builder().setSubject("alice").signWith(KEY).compact());
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.close();
+    }
+
+    @Test
+    void streamsEveryRowInIdOrderAndReleasesTheConnection() throws Exception {
+        long count = 0;
+        long lastId = 0;
+        try (RowCursor<OrderRow> cursor = api.streamUserOrders(request, "1", 256)) {
+            assertEquals(1, api.pool().idleCount(), "the cursor holds a lease while open");
+            while (cursor.hasNext()) {
+                OrderRow row = cursor.next();
+                assertTrue(row.id() > lastId);
+                lastId = row.id();
+                count++;
+            }
+            assertEquals(2, api.pool().idleCount(), "exhausting the cursor releases the lease");
+            assertThrows(NoSuchElementException.class, cursor::next);
+        }
+        assertEquals(45_000, count);
+    }
+
+    @Test
+    void closingEarlyReleasesTheConnection() throws Exception {
+        try (RowCursor<OrderRow> cursor = api.streamUserOrders(request, "1", 64)) {
+            assertEquals(1, cursor.next().id());
+        }
+        assertEquals(2, api.pool().idleCount());
+
+        double total;
+        try (var rows = api.streamUserOrders(request, "2", 64).stream()) {
+            total = rows.limit(3).mapToDouble(OrderRow::amount).sum();
+        }
+        assertEquals(10 + 20 + 30, total);
+        assertEquals(2, api.pool().idleCount());
+    }
+
+    @Test
+    void keysetPagesCoverEveryRowExactlyOnce() throws Exception {
+        Set<Long> seen = new HashSet<>();
+        long afterId = 0;
+        int pages = 0;
+        Page<OrderRow> page;
+        do {
+            page = api.getUserOrdersPage(request, "2", afterId, 1_000);
+            for (OrderRow row : page.rows()) assertTrue(seen.add(row.id()));
+            afterId = page.nextAfterId();
+            pages++;
+        } while (page.hasMore());
+
+        assertEquals(5_000, seen.size());
+        assertEquals(5, pages, "an exact multiple of the limit needs no trailing empty page");
+    }
+
+    @Test
+    void searchUsersPagesThroughDuplicateEmails() throws Exception {
+        Page<UserRow> first = api.searchUsersPage(request, "shared@test.com", 0, 3);
+        Page<UserRow> second = api.searchUsersPage(request, "shared@test.com", first.nextAfterId(), 3);
+
+        assertEquals(3, first.rows().size());
+        assertTrue(first.hasMore());
+        assertEquals(2, second.rows().size());
+        assertFalse(second.hasMore());
+        assertEquals(4, second.rows().get(0).id());
+    }
+
+    @Test
+    void unauthenticatedRequestsGetNoCursor() throws Exception {
+        HttpServletRequest anonymous = mock(HttpServletRequest.class);
+        assertNull(api.streamUserOrders(anonymous, "1", 100));
+        assertNull(api.getUserOrdersPage(anonymous, "1", 0, 100));
+        assertEquals(2, api.pool().idleCount());
+    }
+}
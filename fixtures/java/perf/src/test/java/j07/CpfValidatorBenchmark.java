@@ -0,0 +1,62 @@
+// JMH: Fixture.validateCPF vs the single-pass CpfValidator, per value and over a packed column
+// mvn -P bench test-compile exec:exec -Djmh.args="CpfValidatorBenchmark"
+
+package j07;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CpfValidatorBenchmark {
+
+    private static final int COUNT = 100_000;
+
+    String[] cpfs;
+    byte[] column;
+    int[] offsets;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(5);
+        cpfs = new String[COUNT];
+        offsets = new int[COUNT + 1];
+        StringBuilder packed = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            String cpf = CpfValidatorTest.validCpf(random);
+            // About one in ten has a typo in a check digit
+            cpfs[i] = random.nextInt(10) == 0 ? cpf.substring(0, cpf.length() - 1) + (char) ('0' + random.nextInt(10)) : cpf;
+            packed.append(cpfs[i]);
+            offsets[i + 1] = packed.length();
+        }
+        column = packed.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** ops/s are columns of 100 000 values per second in every benchmark. */
+    @Benchmark
+    public int fixture() {
+        int valid = 0;
+        for (String cpf : cpfs) if (Fixture.validateCPF(cpf)) valid++;
+        return valid;
+    }
+
+    @Benchmark
+    public int charSequence() {
+        int valid = 0;
+        for (String cpf : cpfs) if (CpfValidator.isValid(cpf)) valid++;
+        return valid;
+    }
+
+    @Benchmark
+    public BitSet bulkBytes() {
+        return CpfValidator.validateAll(column, offsets, COUNT);
+    }
+}
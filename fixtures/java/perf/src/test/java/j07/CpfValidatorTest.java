@@ -0,0 +1,93 @@
+// Tests for CpfValidator: parity with Fixture.validateCPF and the bulk/column APIs
+
+package j07;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CpfValidatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void acceptsValidAndRejectsInvalid() {
+        assertTrue(CpfValidator.isValid("529.982.247-25"));
+        assertTrue(CpfValidator.isValid("52998224725"));
+        assertFalse(CpfValidator.isValid("529.982.247-24"));
+        assertFalse(CpfValidator.isValid("111.111.111-11"));
+        assertFalse(CpfValidator.isValid("000.000.000-00"));
+        assertFalse(CpfValidator.isValid("5299822472"));
+        assertFalse(CpfValidator.isValid("529982247250"));
+        assertFalse(CpfValidator.isValid(""));
+    }
+
+    @Test
+    void agreesWithFixtureOnRandomInputs() {
+        SplittableRandom random = new SplittableRandom(3);
+        String alphabet = "0123456789.-/ x٣";               // includes a non-ASCII digit, ignored by \D too
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder cpf = new StringBuilder();
+            if (random.nextBoolean()) {
+                cpf.append(validCpf(random));
+                if (random.nextInt(4) == 0) cpf.setCharAt(random.nextInt(cpf.length()), alphabet.charAt(random.nextInt(alphabet.length())));
+            } else {
+                for (int i = random.nextInt(16); i > 0; i--) cpf.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = cpf.toString();
+            boolean expected = Fixture.validateCPF(text);
+            assertEquals(expected, CpfValidator.isValid(text), text);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected, CpfValidator.isValid(bytes, 0, bytes.length), text);
+        }
+    }
+
+    @Test
+    void validatesAColumnIntoABitSet() {
+        String[] values = {"529.982.247-25", "123", "111.111.111-11", "52998224725"};
+        StringBuilder data = new StringBuilder();
+        int[] offsets = new int[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            data.append(values[i]);
+            offsets[i + 1] = data.length();
+        }
+        BitSet valid = CpfValidator.validateAll(data.toString().getBytes(StandardCharsets.US_ASCII), offsets, values.length);
+        assertEquals(BitSet.valueOf(new long[] {0b1001}), valid);
+        assertThrows(IllegalArgumentException.class, () -> CpfValidator.validateAll(new byte[0], new int[2], 2));
+    }
+
+    @Test
+    void validatesACsvColumnInPlace() throws Exception {
+        Path file = dir.resolve("customers.csv");
+        Files.writeString(file, "name,cpf\nAna,529.982.247-25\nBia,\"111.111.111-11\"\nCid,52998224725\n");
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180.select("cpf"))) {
+            assertEquals(BitSet.valueOf(new long[] {0b101}), CpfValidator.validateColumn(reader, 0));
+        }
+    }
+
+    /** A random CPF with correct check digits, formatted half of the time. */
+    static String validCpf(SplittableRandom random) {
+        int[] d = new int[11];
+        for (int i = 0; i < 9; i++) d[i] = random.nextInt(10);
+        for (int k = 9; k < 11; k++) {
+            int sum = 0;
+            for (int i = 0; i < k; i++) sum += d[i] * (k + 1 - i);
+            d[k] = 11 - sum % 11 >= 10 ? 0 : 11 - sum % 11;
+        }
+        StringBuilder cpf = new StringBuilder();
+        for (int i = 0; i < 11; i++) {
+            cpf.append(d[i]);
+            if (random.nextBoolean() && (i == 2 || i == 5)) cpf.append('.');
+            if (random.nextBoolean() && i == 8) cpf.append('-');
+        }
+        return cpf.toString();
+    }
+}
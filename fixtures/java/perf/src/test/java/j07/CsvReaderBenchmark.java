@@ -0,0 +1,115 @@
+// JMH: CSV parsing throughput in GB/s, Fixture.parseCSV vs the streaming reader (sequential and parallel)
+// mvn -P bench test-compile exec:exec -Djmh.args="CsvReaderBenchmark -p sizeMb=64"
+// Large files (-p sizeMb=5000) are streaming-only: exclude the fixture with -e fixtureParseCsv
+
+package j07;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class CsvReaderBenchmark {
+
+    @Param({"64"})
+    int sizeMb;
+
+    private Path file;
+    private long bytes;
+
+    /** Reports gigabytes parsed per second next to the ops/s score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double gigabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = Files.createTempFile("csv-bench", ".csv");
+        SplittableRandom random = new SplittableRandom(11);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("id,customer,amount,city,note\n");
+            long target = (long) sizeMb << 20;
+            for (long id = 0; Files.size(file) < target || id % 100_000 != 0; id++) {
+                out.write(Long.toString(id));
+                out.write(",customer-");
+                out.write(Integer.toString(random.nextInt(1_000_000)));
+                out.write(',');
+                out.write(Integer.toString(random.nextInt(100_000)));
+                out.write('.');
+                out.write(Integer.toString(10 + random.nextInt(90)));
+                out.write(random.nextInt(10) == 0 ? ",\"Rio de Janeiro, RJ\"," : ",Curitiba,");
+                out.write(random.nextInt(20) == 0 ? "\"said \"\"hi\"\"\"\n" : "ok\n");
+                if (id % 100_000 == 0) out.flush();
+            }
+        }
+        bytes = Files.size(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    /** The fixture: whole file as a String, split, one LinkedHashMap per row. */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public double fixtureParseCsv(Throughput throughput) throws Exception {
+        List<Object> rows = Fixture.parseCSV(Files.readString(file));
+        double sum = 0;
+        for (Object row : rows) {
+            String amount = ((Map<String, String>) row).get("amount");
+            if (amount != null && !amount.isEmpty()) sum += Double.parseDouble(amount);
+        }
+        throughput.gigabytes += bytes / 1e9;
+        return sum;
+    }
+
+    @Benchmark
+    public double streamingSequential(Throughput throughput) throws Exception {
+        double[] sum = new double[1];
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180.select("amount"))) {
+            reader.forEach(row -> sum[0] += row.getDouble(0));
+        }
+        throughput.gigabytes += bytes / 1e9;
+        return sum[0];
+    }
+
+    @Benchmark
+    public double streamingParallel(Throughput throughput) throws Exception {
+        double sum = 0;
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180.select("amount"), 8L << 20)) {
+            for (double[] partial : reader.parallelForEach(() -> new double[1], (acc, row) -> acc[0] += row.getDouble(0))) {
+                sum += partial[0];
+            }
+        }
+        throughput.gigabytes += bytes / 1e9;
+        return sum;
+    }
+
+    /** Every field of every row, to show the cost without projection. */
+    @Benchmark
+    public long streamingAllColumns(Throughput throughput) throws Exception {
+        long[] length = new long[1];
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180)) {
+            reader.forEach(row -> {
+                for (int i = 0; i < row.size(); i++) length[0] += row.length(i);
+            });
+        }
+        throughput.gigabytes += bytes / 1e9;
+        return length[0];
+    }
+}
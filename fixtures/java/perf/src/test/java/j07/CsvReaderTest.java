@@ -0,0 +1,139 @@
+// Tests for the streaming CSV reader: RFC 4180 quoting, projection, chunking and parity with parseCSV
+
+package j07;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws Exception {
+        Path file = Files.createTempFile(dir, "data", ".csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<List<String>> readAll(CsvReader reader) {
+        List<List<String>> rows = new ArrayList<>();
+        reader.forEach(row -> rows.add(row.toList()));
+        return rows;
+    }
+
+    @Test
+    void matchesParseCsvOnSimpleInput() throws Exception {
+        String content = "name, age ,city\nAlice, 30,São Paulo\nBob,25 , Rio\n";
+        try (CsvReader reader = CsvReader.open(write(content), CsvFormat.RFC4180.withTrim(true))) {
+            List<Object> expected = Fixture.parseCSV(content);
+            List<Map<String, String>> actual = new ArrayList<>();
+            reader.forEach(row -> {
+                Map<String, String> map = new LinkedHashMap<>();
+                for (int i = 0; i < reader.header().size(); i++) map.put(reader.header().get(i), row.getString(i));
+                actual.add(map);
+            });
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void handlesRfc4180Quoting() throws Exception {
+        String content = "id,text,note\r\n"
+                + "1,\"a, b\",\"say \"\"hi\"\"\"\r\n"
+                + "2,\"multi\nline\",\r\n"
+                + "\r\n"
+                + "3,plain,\"\"\n"
+                + "4,last,no-newline";
+        try (CsvReader reader = CsvReader.open(write(content), CsvFormat.RFC4180)) {
+            assertEquals(List.of("id", "text", "note"), reader.header());
+            assertEquals(List.of(
+                    List.of("1", "a, b", "say \"hi\""),
+                    List.of("2", "multi\nline", ""),
+                    List.of("3", "plain", ""),
+                    List.of("4", "last", "no-newline")), readAll(reader));
+        }
+    }
+
+    @Test
+    void projectsColumnsByNameAndIndex() throws Exception {
+        Path file = write("a;b;c;d\n1;2;3;4\n5;6;\"7;x\";8\n9\n");
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180.withDelimiter(';').select("d", "b"))) {
+            assertEquals(List.of(List.of("4", "2"), List.of("8", "6"), List.of("", "")), readAll(reader));
+        }
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180.withDelimiter(';').withHeader(false).selectIndexes(2))) {
+            assertEquals(List.of(List.of("c"), List.of("3"), List.of("7;x"), List.of("")), readAll(reader));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> CsvReader.open(file, CsvFormat.RFC4180.withDelimiter(';').select("missing")));
+    }
+
+    @Test
+    void parsesNumbersWithoutDecoding() throws Exception {
+        Path file = write("n,x\n-42,3.25\n9223372036854775807,1e3\n+7,-0.1\n");
+        List<Long> longs = new ArrayList<>();
+        List<Double> doubles = new ArrayList<>();
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180)) {
+            reader.forEach(row -> {
+                longs.add(row.getLong(0));
+                doubles.add(row.getDouble(1));
+            });
+        }
+        assertEquals(List.of(-42L, Long.MAX_VALUE, 7L), longs);
+        assertEquals(List.of(3.25, 1000.0, -0.1), doubles);
+    }
+
+    @Test
+    void parallelChunksMatchSequentialParsing() throws Exception {
+        Random random = new Random(3);
+        StringBuilder content = new StringBuilder("id,payload,amount\n");
+        for (int i = 0; i < 5_000; i++) {
+            String payload = switch (random.nextInt(4)) {
+                case 0 -> "plain" + i;
+                case 1 -> "\"with,comma " + i + "\"";
+                case 2 -> "\"line\nbreak \"\"" + i + "\"\"\"";
+                default -> "\"\"";
+            };
+            content.append(i).append(',').append(payload).append(',').append(i * 0.5).append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+        Path file = write(content.toString());
+
+        List<List<String>> sequential;
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180)) {
+            assertEquals(1, reader.chunks());
+            sequential = readAll(reader);
+        }
+        try (CsvReader reader = CsvReader.open(file, CsvFormat.RFC4180, 997)) {
+            assertTrue(reader.chunks() > 50);
+            List<List<List<String>>> perChunk = reader.parallelForEach(ArrayList::new, (rows, row) -> rows.add(row.toList()));
+            List<List<String>> parallel = new ArrayList<>();
+            perChunk.forEach(parallel::addAll);
+            assertEquals(sequential, parallel);
+            assertEquals(sequential, readAll(reader));
+        }
+        assertEquals(5_000, sequential.size());
+        for (int i = 0; i < sequential.size(); i++) assertEquals(String.valueOf(i), sequential.get(i).get(0));
+    }
+
+    @Test
+    void rejectsUnterminatedQuotes() throws Exception {
+        try (CsvReader reader = CsvReader.open(write("a,b\n1,\"open\n"), CsvFormat.RFC4180)) {
+            assertThrows(IllegalStateException.class, () -> reader.forEach(row -> { }));
+        }
+    }
+
+    @Test
+    void emptyFileHasNoRows() throws Exception {
+        try (CsvReader reader = CsvReader.open(write(""), CsvFormat.RFC4180)) {
+            assertEquals(List.of(), reader.header());
+            assertEquals(0, reader.forEach(row -> fail()));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// JMH: Fixture.formatCurrency vs the cached CurrencyFormatter (double path and minor-unit fast path)
+// mvn -P bench test-compile exec:exec -Djmh.args="CurrencyFormatterBenchmark"
+
+package j07;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CurrencyFormatterBenchmark {
+
+    private final StringBuilder line = new StringBuilder(64);
+    private long[] hundredths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(13);
+        hundredths = new long[1024];
+        for (int i = 0; i < hundredths.length; i++) hundredths[i] = random.nextLong(100_000_000L);
+    }
+
+    private long nextAmount() {
+        return hundredths[next++ & (hundredths.length - 1)];
+    }
+
+    @Benchmark
+    public String fixture() {
+        return Fixture.formatCurrency(nextAmount() / 100.0, "BRL", "pt-BR");
+    }
+
+    @Benchmark
+    public String cachedDouble() {
+        return CurrencyFormatter.formatCurrency(nextAmount() / 100.0, "BRL", "pt-BR");
+    }
+
+    @Benchmark
+    public int minorIntoBuilder() {
+        line.setLength(0);
+        CurrencyFormatter.of("BRL", "pt-BR").formatMinor(nextAmount(), line);
+        return line.length();
+    }
+}
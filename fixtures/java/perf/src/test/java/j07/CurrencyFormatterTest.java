@@ -0,0 +1,99 @@
+// Tests for CurrencyFormatter: identical output to NumberFormat for every available locale
+
+package j07;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrencyFormatterTest {
+
+    private static final List<String> CURRENCIES = List.of("BRL", "USD", "EUR", "JPY", "INR", "CHF");
+    private static final long[] HUNDREDTHS = {
+            0, 1, -1, 5, 99, 100, -100, 123_456, -123_456, 100_000_000, 123_456_789_012L,
+            Long.MAX_VALUE, Long.MIN_VALUE,
+    };
+    private static final double[] AMOUNTS = {0, 0.005, 0.015, -0.004, 1.005, 1234.5, -1234.567, 9_999_999.995, 1e15};
+
+    @Test
+    void formatMatchesFixtureForEveryLocale() {
+        for (Locale locale : NumberFormat.getAvailableLocales()) {
+            String tag = locale.toLanguageTag();
+            for (String currency : CURRENCIES) {
+                CurrencyFormatter formatter = CurrencyFormatter.of(currency, tag);
+                for (double amount : AMOUNTS) {
+                    assertEquals(Fixture.formatCurrency(amount, currency, tag), formatter.format(amount), tag + " " + currency + " " + amount);
+                }
+            }
+        }
+    }
+
+    @Test
+    void formatMinorMatchesNumberFormatForEveryLocale() {
+        for (Locale locale : NumberFormat.getAvailableLocales()) {
+            String tag = locale.toLanguageTag();
+            for (String currency : CURRENCIES) {
+                NumberFormat reference = NumberFormat.getCurrencyInstance(Locale.forLanguageTag(tag));
+                reference.setCurrency(Currency.getInstance(currency));
+                reference.setMinimumFractionDigits(2);
+                reference.setMaximumFractionDigits(2);
+                CurrencyFormatter formatter = CurrencyFormatter.of(currency, tag);
+                for (long hundredths : HUNDREDTHS) {
+                    assertEquals(reference.format(BigDecimal.valueOf(hundredths, 2)), formatter.formatMinor(hundredths),
+                            tag + " " + currency + " " + hundredths);
+                }
+            }
+        }
+    }
+
+    @Test
+    void appendsToCallerBuffers() {
+        CurrencyFormatter brl = CurrencyFormatter.of("BRL", "pt-BR");
+        StringBuilder line = new StringBuilder("Total: ");
+        brl.formatMinor(123_456, line);
+        assertEquals("Total: " + Fixture.formatCurrency(1234.56), line.toString());
+
+        StringWriter writer = new StringWriter();
+        brl.formatMinor(-5, writer);
+        assertEquals(Fixture.formatCurrency(-0.05), writer.toString());
+    }
+
+    @Test
+    void sharesOneFormatterPerKeyAndRejectsUnknownCurrencies() {
+        assertSame(CurrencyFormatter.of("USD", "en-US"), CurrencyFormatter.of("USD", "en-US"));
+        assertNotSame(CurrencyFormatter.of("USD", "en-US"), CurrencyFormatter.of("USD", "pt-BR"));
+        assertThrows(IllegalArgumentException.class, () -> CurrencyFormatter.of("XYZ1", "en-US"));
+    }
+
+    @Test
+    void formatIsSafeAcrossThreads() throws Exception {
+        CurrencyFormatter eur = CurrencyFormatter.of("EUR", "de-DE");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        double amount = (seed * 5_000 + i) / 100.0;
+                        assertEquals(Fixture.formatCurrency(amount, "EUR", "de-DE"), eur.format(amount));
+                    }
+                }));
+            }
+            for (Future<?> result : results) result.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// JMH: scalar calculateShipping per row vs the columnar ShippingQuotes batch (sequential and parallel)
+// mvn -P bench test-compile exec:exec -Djmh.args="ShippingQuotesBenchmark -p size=1000000"
+
+package j07;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ShippingQuotesBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    int size;
+
+    double[] weights;
+    double[] distances;
+    long[] express;
+    double[] out;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(31);
+        weights = new double[size];
+        distances = new double[size];
+        express = new long[(size + 63) / 64];
+        out = new double[size];
+        for (int i = 0; i < size; i++) {
+            // About 1% invalid rows, as with bad cart data
+            weights[i] = random.nextInt(100) == 0 ? 0 : random.nextDouble(0.1, 30);
+            distances[i] = random.nextDouble(1, 1_500);
+            if (random.nextBoolean()) express[i >>> 6] |= 1L << i;
+        }
+    }
+
+    @Benchmark
+    public int scalar() {
+        int errors = 0;
+        for (int i = 0; i < size; i++) {
+            try {
+                out[i] = Fixture.calculateShipping(weights[i], distances[i], (express[i >>> 6] >>> i & 1) != 0);
+            } catch (IllegalArgumentException e) {
+                out[i] = Double.NaN;
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public long[] bulk() {
+        return ShippingQuotes.quote(weights, distances, express, out);
+    }
+
+    @Benchmark
+    public long[] bulkParallel() {
+        return ShippingQuotes.quoteParallel(weights, distances, express, out);
+    }
+}
@@ -0,0 +1,82 @@
+// Tests for ShippingQuotes: bit-identical prices to calculateShipping and the error mask
+
+package j07;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShippingQuotesTest {
+
+    private static final double[] SPECIAL = {
+            -1, 0, -0.0, Double.MIN_VALUE, 1e-9, 0.01, 0.5, 1, 499.99, 500, 500.0000000001, 1e6, 1e15, 1e17,
+            Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN,
+    };
+
+    private static double randomValue(SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> SPECIAL[random.nextInt(SPECIAL.length)];
+            case 1 -> Math.round(random.nextDouble(0, 100_000)) / 100.0;     // two-decimal inputs
+            case 2 -> random.nextDouble(0, 2_000);
+            default -> Math.scalb(random.nextDouble(), random.nextInt(-20, 60));
+        };
+    }
+
+    @Test
+    void matchesScalarPricesAndFlagsInvalidRows() {
+        SplittableRandom random = new SplittableRandom(23);
+        int n = 100_003;                                 // not a multiple of 64 or of a block
+        double[] weights = new double[n];
+        double[] distances = new double[n];
+        BitSet express = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            weights[i] = randomValue(random);
+            distances[i] = randomValue(random);
+            express.set(i, random.nextBoolean());
+        }
+        double[] out = new double[n];
+        long[] expressBits = Arrays.copyOf(express.toLongArray(), (n + 63) / 64);
+        long[] errors = ShippingQuotes.quote(weights, distances, expressBits, out);
+
+        BitSet invalid = BitSet.valueOf(errors);
+        for (int i = 0; i < n; i++) {
+            String row = weights[i] + " kg, " + distances[i] + " km, express=" + express.get(i);
+            if (Double.isNaN(weights[i]) || Double.isNaN(distances[i]) || weights[i] <= 0 || distances[i] <= 0) {
+                assertTrue(invalid.get(i), row);
+                assertTrue(Double.isNaN(out[i]), row);
+            } else {
+                assertFalse(invalid.get(i), row);
+                assertEquals(Fixture.calculateShipping(weights[i], distances[i], express.get(i)), out[i], 0.0, row);
+            }
+        }
+        assertEquals(invalid.cardinality(), ShippingQuotes.errorCount(errors));
+    }
+
+    @Test
+    void parallelMatchesSequential() {
+        SplittableRandom random = new SplittableRandom(29);
+        int n = 3 * ShippingQuotes.PARALLEL_CHUNK + 17;
+        double[] weights = random.doubles(n, -1, 50).toArray();
+        double[] distances = random.doubles(n, -10, 1_000).toArray();
+        long[] express = random.longs((n + 63) / 64).toArray();
+        double[] sequential = new double[n];
+        double[] parallel = new double[n];
+
+        long[] errors = ShippingQuotes.quote(weights, distances, express, sequential);
+        assertArrayEquals(errors, ShippingQuotes.quoteParallel(weights, distances, express, parallel));
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    void rejectsShortColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ShippingQuotes.quote(new double[65], new double[65], new long[1], new double[65]));
+        assertThrows(IllegalArgumentException.class,
+                () -> ShippingQuotes.quote(new double[2], new double[1], new long[1], new double[2]));
+        assertEquals(0, ShippingQuotes.quote(new double[0], new double[0], new long[0], new double[0]).length);
+    }
+}
@@ -0,0 +1,53 @@
+// JMH: Fixture.generateSlug vs the single-pass Slugger, per title and batched into one buffer
+// mvn -P bench test-compile exec:exec -Djmh.args="SluggerBenchmark"
+
+package j07;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SluggerBenchmark {
+
+    private static final int COUNT = 10_000;
+
+    List<String> titles;
+    StringBuilder buffer = new StringBuilder();
+    int[] ends = new int[COUNT];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(19);
+        titles = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) titles.add(SluggerTest.randomTitle(random));
+    }
+
+    /** ops/s are batches of 10 000 product titles per second in every benchmark. */
+    @Benchmark
+    public int fixture() {
+        int length = 0;
+        for (String title : titles) length += Fixture.generateSlug(title).length();
+        return length;
+    }
+
+    @Benchmark
+    public int slugPerTitle() {
+        int length = 0;
+        for (String title : titles) length += Slugger.slug(title).length();
+        return length;
+    }
+
+    @Benchmark
+    public int slugAllIntoBuffer() {
+        return Slugger.slugAll(titles, Slugger.DEFAULT_MAX_LENGTH, buffer, ends).length();
+    }
+}
@@ -0,0 +1,72 @@
+// Tests for Slugger: identical output to Fixture.generateSlug on a randomized multilingual corpus
+
+package j07;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SluggerTest {
+
+    // Pieces the corpus is assembled from: separators, accents, other scripts, special cases
+    private static final String[] PIECES = {
+            "a", "Z", "7", " ", "  ", "\t", "\n", "-", "--", " - ", "_", ".", "!", "&", "'",
+            "Café", "ÀÉÎÕÜ", "ção", "Æsir", "ß", "Øre", "ÿ", "Ĳ", "ŉ", "Ǆ", "ǅ", "ȘȚ", "Tiếng Việt", "ḉ",
+            "İstanbul", "İ", "é", " ", " ", "K", "Ω", "ﬁ", "Ａ", "²", "½",
+            "Ελληνικά", "ΣΑΣ", "Русский", "日本語", "한국어", "عربى", "٣", "😀", "𝐀", "\ud800",
+    };
+
+    static String randomTitle(SplittableRandom random) {
+        StringBuilder title = new StringBuilder();
+        for (int i = random.nextInt(12); i > 0; i--) {
+            title.append(random.nextInt(3) == 0 ? PIECES[random.nextInt(PIECES.length)] : "word" + random.nextInt(100));
+            if (random.nextBoolean()) title.append(' ');
+        }
+        return title.toString();
+    }
+
+    @Test
+    void matchesFixtureOnKnownTitles() {
+        String[] titles = {
+                "Hello World", "  Café com Leite -- Especial  ", "-leading hyphen", "trailing hyphen -",
+                "Ação & Reação: 2ª Edição", "   ", "", "a\tb\nc", "ÀÉÎÕÜ àéîõü ñ ç", "x - - - y",
+        };
+        for (String title : titles) {
+            for (int max : new int[] {0, 1, 5, 8, 60}) {
+                assertEquals(Fixture.generateSlug(title, max), Slugger.slug(title, max), title + " / " + max);
+            }
+        }
+        assertEquals(Fixture.generateSlug("Ação Especial"), Slugger.slug("Ação Especial"));
+    }
+
+    @Test
+    void matchesFixtureOnRandomCorpus() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int n = 0; n < 100_000; n++) {
+            String title = randomTitle(random);
+            int max = random.nextInt(4) == 0 ? random.nextInt(12) : 60;
+            assertEquals(Fixture.generateSlug(title, max), Slugger.slug(title, max), title + " / " + max);
+        }
+    }
+
+    @Test
+    void slugAllWritesIntoOneReusableBuffer() {
+        List<String> titles = List.of("Primeiro Produto", "", "Segundo — Édição", "   Terceiro   ");
+        StringBuilder buffer = new StringBuilder("stale");
+        int[] ends = new int[titles.size()];
+        Slugger.slugAll(titles, 60, buffer, ends);
+
+        List<String> slugs = new ArrayList<>();
+        for (int i = 0, from = 0; i < titles.size(); from = ends[i++]) slugs.add(buffer.substring(from, ends[i]));
+        List<String> expected = new ArrayList<>();
+        for (String title : titles) expected.add(Fixture.generateSlug(title));
+        assertEquals(expected, slugs);
+
+        assertThrows(IllegalArgumentException.class, () -> Slugger.slugAll(titles, 60, buffer, new int[1]));
+        assertThrows(IllegalArgumentException.class, () -> Slugger.slug("x", -1));
+    }
+}
@@ -0,0 +1,89 @@
+// JMH: MigrationEngine throughput in files/s over a synthetic tree (default 20 000 files)
+// mvn -P bench test-compile exec:exec -Djmh.args="MigrationEngineBenchmark -p files=20000"
+
+package j08;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MigrationEngineBenchmark {
+
+    @Param({"20000"})
+    int files;
+
+    private Path pending;          // never migrated: every run scans everything
+    private Path migrated;         // migrated once in setup: every run is hash-and-skip
+    private Path state;
+
+    /** Reports files processed per second next to the ops/s score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double files;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path root = Files.createTempDirectory("migration-bench");
+        pending = root.resolve("pending");
+        migrated = root.resolve("migrated");
+        state = root.resolve("state.tsv");
+        String legacy = SourceMigratorTest.fixtureSource();
+        for (Path tree : new Path[] {pending, migrated}) {
+            for (int i = 0; i < files; i++) {
+                Path dir = Files.createDirectories(tree.resolve("module" + i % 50).resolve("src/main/java/com/acme/p" + i % 200));
+                // One file in four needs migrating, like a typical service codebase
+                String source = i % 4 == 0 ? legacy.replace("class User", "class User" + i) : plainSource(i);
+                Files.writeString(dir.resolve("Type" + i + ".java"), source);
+            }
+        }
+        new MigrationEngine(migrated, state).run(true);
+    }
+
+    private static String plainSource(int i) {
+        StringBuilder source = new StringBuilder("package com.acme;\n\nimport java.util.List;\n\n");
+        source.append("/** Generated type ").append(i).append(" with no legacy APIs. */\n");
+        source.append("public class Type").append(i).append(" {\n");
+        for (int m = 0; m < 20; m++) {
+            source.append("    public int method").append(m).append("(List<String> values) {\n")
+                    .append("        return values.size() * ").append(m).append("; // \"javax\" is not mentioned\n")
+                    .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(pending.getParent())) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    /** Full scan and diff of every file, nothing written. */
+    @Benchmark
+    public long dryRun(Throughput throughput) throws IOException {
+        MigrationReport report = new MigrationEngine(pending, null).run(false);
+        throughput.files += report.files().size();
+        return report.count(MigrationReport.Status.MIGRATED);
+    }
+
+    /** Re-run over an already migrated tree: read + SHA-256 per file, no scanning. */
+    @Benchmark
+    public long incrementalRerun(Throughput throughput) throws IOException {
+        MigrationReport report = new MigrationEngine(migrated, state).run(true);
+        throughput.files += report.files().size();
+        return report.count(MigrationReport.Status.SKIPPED);
+    }
+}
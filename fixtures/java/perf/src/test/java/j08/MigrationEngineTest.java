@@ -0,0 +1,96 @@
+// Tests for MigrationEngine: dry run vs apply, hash-based skipping, diffs and failures
+
+package j08;
+
+import j08.MigrationReport.FileResult;
+import j08.MigrationReport.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MigrationEngineTest {
+
+    @TempDir
+    Path dir;
+
+    private Path tree() throws Exception {
+        Path src = Files.createDirectories(dir.resolve("src/main/java/app"));
+        Files.writeString(src.resolve("HttpClient.java"), SourceMigratorTest.fixtureSource());
+        Files.writeString(src.resolve("Plain.java"), "package app;\n\nclass Plain {}\n");
+        Files.writeString(src.resolve("Repo.java"), "package app;\n\nimport javax.persistence.EntityManager;\n\nclass Repo {}\n");
+        Files.writeString(src.resolve("notes.txt"), "import javax.persistence.Entity;\n");
+        return src;
+    }
+
+    private static FileResult result(MigrationReport report, String name) {
+        return report.files().stream().filter(file -> file.path().endsWith(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void dryRunReportsDiffsWithoutWriting() throws Exception {
+        Path src = tree();
+        String before = Files.readString(src.resolve("Repo.java"));
+        MigrationReport report = new MigrationEngine(dir, dir.resolve("state.tsv")).run(false);
+
+        assertEquals(3, report.files().size());                        // .java files only
+        assertEquals(2, report.count(Status.MIGRATED));
+        assertEquals(1, report.count(Status.CLEAN));
+        assertEquals(before, Files.readString(src.resolve("Repo.java")));
+        assertEquals("""
+                --- a/src/main/java/app/Repo.java
+                +++ b/src/main/java/app/Repo.java
+                @@ -1,5 +1,5 @@
+                 package app;
+                \s
+                -import javax.persistence.EntityManager;
+                +import jakarta.persistence.EntityManager;
+                \s
+                 class Repo {}
+                """, result(report, "Repo.java").diff());
+        assertTrue(report.summary().contains("JAKARTA_NAMESPACE: 11"), report.summary());
+    }
+
+    @Test
+    void applyWritesFilesAndLaterRunsSkipUnchangedOnes() throws Exception {
+        Path src = tree();
+        Path state = dir.resolve("state.tsv");
+        MigrationReport first = new MigrationEngine(dir, state).run(true);
+        assertEquals(2, first.count(Status.MIGRATED));
+        assertTrue(Files.readString(src.resolve("Repo.java")).contains("import jakarta.persistence.EntityManager;"));
+
+        MigrationReport second = new MigrationEngine(dir, state).run(true);
+        assertEquals(3, second.count(Status.SKIPPED), second.summary());
+
+        Files.writeString(src.resolve("Plain.java"), "package app;\n\nimport javax.validation.Valid;\n\nclass Plain {}\n");
+        MigrationReport third = new MigrationEngine(dir, state).run(true);
+        assertEquals(Status.MIGRATED, result(third, "Plain.java").status());
+        assertEquals(2, third.count(Status.SKIPPED));
+    }
+
+    @Test
+    void applyKeepsFilePermissions() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path repo = tree().resolve("Repo.java");
+        Files.setPosixFilePermissions(repo, PosixFilePermissions.fromString("rwxr-x---"));
+        new MigrationEngine(dir, null).run(true);
+        assertTrue(Files.readString(repo).contains("import jakarta.persistence.EntityManager;"));
+        assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(repo)));
+    }
+
+    @Test
+    void reportsUndecodableFilesAndKeepsGoing() throws Exception {
+        Path src = tree();
+        Files.write(src.resolve("Latin1.java"), new byte[] {'c', 'l', 'a', 's', 's', ' ', (byte) 0xe9, '{', '}'});
+        MigrationReport report = new MigrationEngine(dir, null).run(false);
+        assertEquals(Status.FAILED, result(report, "Latin1.java").status());
+        assertEquals(2, report.count(Status.MIGRATED));
+        assertTrue(report.summary().contains("Latin1.java: not valid UTF-8"));
+    }
+}
@@ -0,0 +1,203 @@
+// Tests for SourceMigrator: the j08 fixture end to end, token precision and manual-migration findings
+
+package j08;
+
+import j08.SourceMigrator.Result;
+import j08.SourceMigrator.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceMigratorTest {
+
+    private final SourceMigrator migrator = new SourceMigrator();
+
+    static String fixtureSource() throws Exception {
+        try (InputStream in = SourceMigratorTest.class.getResourceAsStream("HttpClient.java.txt")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** The fixture's own source with comments removed, so checks only see code. */
+    private static String code(String source) {
+        return source.replaceAll("//[^\n]*", "");
+    }
+
+    @Test
+    void migratesTheFixture() throws Exception {
+        Result result = migrator.migrate(fixtureSource());
+        String code = code(result.output());
+
+        // The same expectations as fixtures/java/j08/tests/HttpClientTest
+        assertFalse(code.contains("javax.servlet") || code.contains("javax.persistence") || code.contains("javax.validation"));
+        assertTrue(code.contains("import jakarta.servlet.http.HttpServletRequest;"));
+        assertFalse(code.contains("WebSecurityConfigurerAdapter"));
+        assertFalse(code.contains("antMatchers"));
+        assertTrue(code.contains(".requestMatchers(\"/api/admin/**\").hasRole(\"ADMIN\")"));
+        assertTrue(code.contains("@Entity") && code.contains("@RestController") && code.contains("@GetMapping"));
+
+        assertTrue(code.contains("import org.springframework.security.web.SecurityFilterChain;\n"
+                + "import org.springframework.context.annotation.Bean;\n"));
+        assertTrue(code.contains("class SecurityConfig {\n\n"
+                + "    @Bean\n"
+                + "    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {\n"
+                + "        http\n"));
+        assertTrue(code.contains("            .httpBasic();\n        return http.build();\n    }"));
+        assertEquals(Map.of(Rule.JAKARTA_NAMESPACE, 10, Rule.REQUEST_MATCHERS, 3, Rule.AUTHORIZE_HTTP_REQUESTS, 1,
+                Rule.SECURITY_FILTER_CHAIN, 1), result.rewrites());
+        assertTrue(result.findings().isEmpty());
+    }
+
+    @Test
+    void isIdempotent() throws Exception {
+        String once = migrator.migrate(fixtureSource()).output();
+        Result twice = migrator.migrate(once);
+        assertFalse(twice.changed(once));
+        assertTrue(twice.rewrites().isEmpty());
+    }
+
+    @Test
+    void rewritesOnlyMatchingTokens() {
+        String source = """
+                import javax.sql.DataSource;
+                import javax.annotation.processing.Processor;
+                import javax.annotation.PostConstruct;
+                import javax.annotation.PreDestroy;
+                import javax.annotation.security.RolesAllowed;
+                import javax.annotation.CheckForNull;
+                import javax.annotation.concurrent.GuardedBy;
+                import javax.annotation.concurrent.ThreadSafe;
+                import javax.annotation.meta.TypeQualifier;
+                import javax.transaction.Transactional;
+                import javax.transaction.xa.XAResource;
+                class A {
+                    String key = "javax.persistence.jdbc.url";          // javax.servlet in a comment
+                    String text = "call antMatchers() and javax.servletx";
+                    Object myjavax = other.javax.servlet;
+                    void antMatchers() {}
+                    void f() { this.antMatchers(); matchers.antMatchers ("/x"); }
+                }
+                """;
+        String expected = """
+                import javax.sql.DataSource;
+                import javax.annotation.processing.Processor;
+                import jakarta.annotation.PostConstruct;
+                import jakarta.annotation.PreDestroy;
+                import jakarta.annotation.security.RolesAllowed;
+                import javax.annotation.CheckForNull;
+                import javax.annotation.concurrent.GuardedBy;
+                import javax.annotation.concurrent.ThreadSafe;
+                import javax.annotation.meta.TypeQualifier;
+                import jakarta.transaction.Transactional;
+                import javax.transaction.xa.XAResource;
+                class A {
+                    String key = "jakarta.persistence.jdbc.url";          // jakarta.servlet in a comment
+                    String text = "call antMatchers() and javax.servletx";
+                    Object myjavax = other.javax.servlet;
+                    void antMatchers() {}
+                    void f() { this.requestMatchers(); matchers.requestMatchers ("/x"); }
+                }
+                """;
+        assertEquals(expected, migrator.migrate(source).output());
+    }
+
+    @Test
+    void rewritesRegexMatchersAsRegexRequestMatchers() {
+        // requestMatchers(String...) would read these as path patterns and stop matching
+        String source = """
+                package app;
+
+                import org.springframework.http.HttpMethod;
+
+                class Rules {
+                    void f(HttpSecurity http, String dynamic) throws Exception {
+                        http.authorizeHttpRequests()
+                            .regexMatchers("/api/v[0-9]+/.*", "/admin/.*").hasRole("ADMIN")
+                            .regexMatchers(HttpMethod.POST, "/orders/\\d+").authenticated()
+                            .regexMatchers(dynamic).denyAll();
+                    }
+                }
+                """;
+        String expected = """
+                package app;
+
+                import org.springframework.http.HttpMethod;
+                import org.springframework.security.web.util.matcher.RegexRequestMatcher;
+
+                class Rules {
+                    void f(HttpSecurity http, String dynamic) throws Exception {
+                        http.authorizeHttpRequests()
+                            .requestMatchers(RegexRequestMatcher.regexMatcher("/api/v[0-9]+/.*"), RegexRequestMatcher.regexMatcher("/admin/.*")).hasRole("ADMIN")
+                            .requestMatchers(RegexRequestMatcher.regexMatcher(HttpMethod.POST, "/orders/\\d+")).authenticated()
+                            .regexMatchers(dynamic).denyAll();
+                    }
+                }
+                """;
+        Result result = migrator.migrate(source);
+        assertEquals(expected, result.output());
+        assertEquals(Map.of(Rule.REQUEST_MATCHERS, 2), result.rewrites());
+        assertEquals(1, result.findings().size());
+        assertEquals(10, result.findings().get(0).line());
+        assertTrue(result.findings().get(0).message().contains("not string literals"));
+
+        String again = "import org.springframework.security.web.util.matcher.RegexRequestMatcher;\n"
+                + "class B { void f() { m.regexMatchers(\"/a\"); } }\n";
+        assertEquals("import org.springframework.security.web.util.matcher.RegexRequestMatcher;\n"
+                + "class B { void f() { m.requestMatchers(RegexRequestMatcher.regexMatcher(\"/a\")); } }\n",
+                migrator.migrate(again).output());
+    }
+
+    @Test
+    void reportsAdaptersItCannotConvert() {
+        String source = """
+                import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+
+                class Config extends WebSecurityConfigurerAdapter {
+                    @Override
+                    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+                        auth.inMemoryAuthentication();
+                    }
+
+                    @Override
+                    protected void configure(HttpSecurity http) throws Exception {
+                        http.authorizeRequests().anyRequest().authenticated();
+                    }
+                }
+                """;
+        Result result = migrator.migrate(source);
+        assertTrue(result.output().contains("class Config extends WebSecurityConfigurerAdapter {"));
+        assertTrue(result.output().contains("http.authorizeHttpRequests()"));
+        assertEquals(1, result.findings().size());
+        assertEquals(3, result.findings().get(0).line());
+        assertTrue(result.findings().get(0).message().contains("several configure methods"));
+    }
+
+    @Test
+    void reportsTheJavaxAnnotationWildcard() {
+        String source = """
+                import javax.annotation.*;
+                import javax.annotation.processing.*;
+
+                class Service {
+                    @PostConstruct void start() {}
+                }
+                """;
+        Result result = migrator.migrate(source);
+        assertSame(source, result.output());
+        assertEquals(1, result.findings().size());
+        assertEquals(1, result.findings().get(0).line());
+        assertTrue(result.findings().get(0).message().contains("jakarta.annotation"));
+    }
+
+    @Test
+    void leavesUnrelatedFilesAlone() {
+        String source = "class Plain { int x = 1; }\n";
+        Result result = migrator.migrate(source);
+        assertSame(source, result.output());
+        assertTrue(result.rewrites().isEmpty());
+    }
+}
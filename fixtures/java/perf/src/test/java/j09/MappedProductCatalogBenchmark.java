@@ -0,0 +1,88 @@
+// JMH: product lookups from the heap HashMap vs the mapped catalog, plus the time to open the catalog
+// mvn -P bench test-compile exec:exec -Djmh.args="MappedProductCatalogBenchmark -p skus=1000000"
+
+package j09;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MappedProductCatalogBenchmark {
+
+    @Param({"1000000"})
+    int skus;
+
+    private Path dir;
+    private Path file;
+    private String[] ids;
+    private Map<String, Product> heap;
+    private MappedProductCatalog mapped;
+
+    @State(Scope.Thread)
+    public static class Lookup {
+        final SplittableRandom random = new SplittableRandom();
+        final MappedProductCatalog.ProductView view = new MappedProductCatalog.ProductView();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("catalog-bench");
+        Path csv = dir.resolve("products.csv");
+        file = dir.resolve("products.catalog");
+        ids = new String[skus];
+        heap = new HashMap<>();
+        try (Writer out = Files.newBufferedWriter(csv)) {
+            out.write("id,name,price,stock\n");
+            for (int i = 0; i < skus; i++) {
+                ids[i] = "SKU-" + (1_000_000_000L + i * 7919L);
+                String name = "Product " + i + " from the generated catalog";
+                double price = 1 + i % 10_000 / 100.0;
+                out.write(ids[i] + ',' + name + ',' + price + ',' + 1000 + '\n');
+                heap.put(ids[i], new Product(ids[i], name, price, 1000));
+            }
+        }
+        CatalogBuilder.build(csv, file);
+        mapped = MappedProductCatalog.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mapped = null;
+        Files.deleteIfExists(dir.resolve("products.csv"));
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public double heapLookup(Lookup lookup) {
+        return heap.get(ids[lookup.random.nextInt(skus)]).getPrice();
+    }
+
+    @Benchmark
+    public double mappedLookup(Lookup lookup) {
+        return mapped.find(ids[lookup.random.nextInt(skus)], lookup.view) ? lookup.view.getPrice() : 0;
+    }
+
+    /** Opening only reads the header and maps the file, whatever its size (single shots: mappings outlive the call). */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public long open() throws IOException {
+        return MappedProductCatalog.open(file).size();
+    }
+}
@@ -0,0 +1,129 @@
+// Tests for CatalogBuilder and MappedProductCatalog: lookups, CSV edge cases, stock and OrderService wiring
+
+package j09;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedProductCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    private MappedProductCatalog build(String csv) throws IOException {
+        Path source = dir.resolve("products.csv");
+        Files.writeString(source, csv);
+        Path catalog = dir.resolve("products.catalog");
+        CatalogBuilder.build(source, catalog);
+        return MappedProductCatalog.open(catalog);
+    }
+
+    @Test
+    void findsEveryProductOfALargeCatalog() throws IOException {
+        StringBuilder csv = new StringBuilder("stock,price,name,id,warehouse\n");
+        int products = 200_000;
+        for (int i = 0; i < products; i++) {
+            csv.append(i % 1000).append(',').append(i / 100.0).append(",Product ").append(i).append(",SKU-").append(i).append(",W1\n");
+        }
+        MappedProductCatalog catalog = build(csv.toString());
+        assertEquals(products, catalog.size());
+
+        MappedProductCatalog.ProductView view = new MappedProductCatalog.ProductView();
+        for (int i = 0; i < products; i++) {
+            assertTrue(catalog.find("SKU-" + i, view), "SKU-" + i);
+            assertEquals(i / 100.0, view.getPrice());
+            assertEquals(i % 1000, view.getStock());
+        }
+        assertTrue(catalog.find("SKU-123456", view));
+        assertEquals("SKU-123456", view.getId());
+        assertEquals("Product 123456", view.getName());
+        assertFalse(catalog.find("SKU-" + products, view));
+        assertFalse(catalog.find("SKU-1234567", view));
+        assertFalse(catalog.find("", view));
+        assertEquals("SKU-123456", view.getId(), "a miss leaves the view where it was");
+    }
+
+    @Test
+    void keepsQuotedAndUnicodeNames() throws IOException {
+        MappedProductCatalog catalog = build("""
+                id,name,price,stock
+                prod-1,Widget,29.99,100
+                prod-2,"Gadget, \"\"deluxe\"\"",49.99,5
+                prod-3,Café crème ☕,3.5,0
+                """);
+        MappedProductCatalog.ProductView view = new MappedProductCatalog.ProductView();
+        assertTrue(catalog.find("prod-2", view));
+        assertEquals("Gadget, \"deluxe\"", view.getName());
+        assertTrue(catalog.find("prod-3", view));
+        assertEquals("Café crème ☕", view.getName());
+        assertEquals(0, view.getStock());
+        assertTrue(catalog.find("prod-1", view));
+        assertEquals("Widget", view.getName());
+    }
+
+    @Test
+    void stockChangesStayInTheProcess() throws IOException {
+        MappedProductCatalog catalog = build("id,name,price,stock\nprod-2,Gadget,49.99,5\n");
+        MappedProductCatalog.ProductView view = new MappedProductCatalog.ProductView();
+        assertTrue(catalog.find("prod-2", view));
+        assertTrue(view.tryReserve(3));
+        assertFalse(view.tryReserve(3));
+        view.release(1);
+        assertTrue(view.tryReserve(3));
+        assertEquals(0, view.getStock());
+
+        MappedProductCatalog reopened = MappedProductCatalog.open(dir.resolve("products.catalog"));
+        assertTrue(reopened.find("prod-2", view));
+        assertEquals(5, view.getStock(), "the file is never written");
+    }
+
+    @Test
+    void rejectsBadRowsAndLeavesTheOldCatalog() throws IOException {
+        build("id,name,price,stock\nprod-1,Widget,29.99,100\n");
+        assertThrows(IllegalArgumentException.class, () -> build("id,name,price,stock\na,A,1,1\nb,B,2,2\na,C,3,3\n"));
+        assertThrows(IllegalArgumentException.class, () -> build("id,name,price,stock\nprodé,A,1,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> build("id,name,price,stock\na,A,1,-1\n"));
+        assertThrows(IllegalArgumentException.class, () -> build("id,name,price,stock\na,A,cheap,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> build("id,name,stock\na,A,1\n"));
+
+        MappedProductCatalog.ProductView view = new MappedProductCatalog.ProductView();
+        assertTrue(MappedProductCatalog.open(dir.resolve("products.catalog")).find("prod-1", view));
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count(), "no temp files left behind");
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotCatalogs() throws IOException {
+        Path file = Files.writeString(dir.resolve("products.csv"), "id,name,price,stock\n");
+        assertThrows(IOException.class, () -> MappedProductCatalog.open(file));
+        MappedProductCatalog empty = build("id,name,price,stock\n");
+        assertEquals(0, empty.size());
+        assertFalse(empty.find("prod-1", new MappedProductCatalog.ProductView()));
+    }
+
+    @Test
+    void orderServiceReadsAndReservesFromTheMappedCatalog() throws IOException {
+        MappedProductCatalog catalog = build("id,name,price,stock\nprod-1,Widget,29.99,100\nprod-2,Gadget,49.99,5\nmapped-only,Thing,1,1\n");
+        OrderService.useCatalog(catalog);
+        try {
+            OrderResult result = OrderService.processOrder(new Order("prod-2", 3));
+            assertEquals("confirmed", result.getStatus());
+            assertEquals("Gadget", result.getProductName());
+            assertEquals(149.97, result.getTotal(), 0.01);
+            assertEquals("rejected", OrderService.processOrder(new Order("prod-2", 3)).getStatus());
+            assertEquals(2, OrderService.findProduct("prod-2").getStock());
+            assertEquals("confirmed", OrderService.processOrder(new Order("mapped-only", 1)).getStatus());
+            assertThrows(IllegalArgumentException.class, () -> OrderService.processOrder(new Order("ids-1", 1)));
+        } finally {
+            OrderService.useCatalog(null);
+        }
+        assertNull(OrderService.findProduct("mapped-only"));
+    }
+}
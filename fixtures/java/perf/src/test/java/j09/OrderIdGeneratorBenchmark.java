@@ -0,0 +1,41 @@
+// JMH: OrderIdGenerator throughput, single thread and 4 threads sharing one generator
+// mvn -P bench test-compile exec:exec -Djmh.args="OrderIdGeneratorBenchmark"
+
+package j09;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderIdGeneratorBenchmark {
+
+    private final OrderIdGenerator generator = new OrderIdGenerator(1);
+
+    /** The fixture's id: collides for orders in the same millisecond. */
+    @Benchmark
+    public String fixture() {
+        return "ORD-" + System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String nextOrderId() {
+        return generator.nextOrderId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdContended() {
+        return generator.nextId();
+    }
+}
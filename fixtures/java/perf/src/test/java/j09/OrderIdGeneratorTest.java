@@ -0,0 +1,115 @@
+// Tests for OrderIdGenerator: uniqueness under contention, clock regression, sequence overflow, encoding
+
+package j09;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdGeneratorTest {
+
+    private static final long NOW = OrderIdGenerator.EPOCH_MILLIS + 86_400_000L * 365;
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 250_000;
+        OrderIdGenerator generator = new OrderIdGenerator(7);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) ids[i] = generator.nextId();
+                    return ids;
+                }));
+            }
+            start.countDown();
+            long[] all = new long[threads * perThread];
+            int n = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 1; i < ids.length; i++) assertTrue(ids[i] > ids[i - 1], "per-thread order");
+                System.arraycopy(ids, 0, all, n, ids.length);
+                n += ids.length;
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) assertNotEquals(all[i - 1], all[i], "duplicate id");
+            for (long id : new long[] {all[0], all[all.length - 1]}) {
+                assertEquals(7, OrderIdGenerator.nodeId(id));
+                assertTrue(Math.abs(OrderIdGenerator.timestampMillis(id) - System.currentTimeMillis()) < 60_000);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void clockRegressionNeverRepeatsOrReordersIds() {
+        AtomicLong clock = new AtomicLong(NOW);
+        OrderIdGenerator generator = new OrderIdGenerator(1, clock::get);
+        long before = generator.nextId();
+        clock.set(NOW - 5_000);                                       // NTP stepped back 5s
+        long during = generator.nextId();
+        assertTrue(during > before);
+        assertEquals(NOW, OrderIdGenerator.timestampMillis(during));   // holds the last timestamp
+        clock.set(NOW + 10);
+        long after = generator.nextId();
+        assertEquals(NOW + 10, OrderIdGenerator.timestampMillis(after));
+        assertEquals(0, OrderIdGenerator.sequence(after));
+    }
+
+    @Test
+    void sequenceOverflowCarriesIntoTheNextMillisecond() {
+        OrderIdGenerator generator = new OrderIdGenerator(1023, () -> NOW);
+        long previous = -1;
+        for (int i = 0; i < 4096 * 3; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(1023, OrderIdGenerator.nodeId(id));
+            assertEquals(NOW + i / 4096, OrderIdGenerator.timestampMillis(id));
+            assertEquals(i % 4096, OrderIdGenerator.sequence(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void encodingRoundTripsAndSortsLikeTheIds() {
+        long[] ids = {0, 1, 61, 62, 3843, 1L << 40, 123_456_789_012_345L, Long.MAX_VALUE};
+        String previous = null;
+        for (long id : ids) {
+            String encoded = OrderIdGenerator.encode(id);
+            assertEquals(15, encoded.length());
+            assertTrue(encoded.startsWith("ORD-"));
+            assertEquals(id, OrderIdGenerator.decode(encoded));
+            if (previous != null) assertTrue(previous.compareTo(encoded) < 0, previous + " < " + encoded);
+            previous = encoded;
+        }
+        assertEquals("ORD-0000000000Z", OrderIdGenerator.encode(35));
+        assertEquals("ORD-0000000000z", OrderIdGenerator.encode(61));
+    }
+
+    @Test
+    void rejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> OrderIdGenerator.encode(-1));
+        assertThrows(IllegalArgumentException.class, () -> OrderIdGenerator.decode("ORD-1700000000000"));
+        assertThrows(IllegalArgumentException.class, () -> OrderIdGenerator.decode("ORD-0000000000-"));
+        assertThrows(IllegalArgumentException.class, () -> OrderIdGenerator.decode("ORD-zzzzzzzzzzz"));   // > 2^63
+        OrderIdGenerator beforeEpoch = new OrderIdGenerator(0, () -> OrderIdGenerator.EPOCH_MILLIS - 1);
+        assertThrows(IllegalStateException.class, beforeEpoch::nextId);
+    }
+}
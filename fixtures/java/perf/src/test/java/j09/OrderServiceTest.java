@@ -0,0 +1,87 @@
+// Tests for the j09 copy: distinct order ids and atomic stock reservation under contention
+
+package j09;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderServiceTest {
+
+    @Test
+    void ordersGetDistinctSortableIds() {
+        OrderService.addProduct(new Product("ids-1", "Widget", 29.99, 1_000_000));
+        Set<String> ids = new HashSet<>();
+        String previous = "";
+        for (int i = 0; i < 10_000; i++) {
+            OrderResult result = OrderService.processOrder(new Order("ids-1", 2));
+            assertEquals(59.98, result.getTotal(), 0.01);
+            assertTrue(result.getOrderId().startsWith("ORD-"));
+            assertTrue(ids.add(result.getOrderId()), "duplicate " + result.getOrderId());
+            assertTrue(result.getOrderId().compareTo(previous) > 0);
+            previous = result.getOrderId();
+        }
+        assertEquals(1_000_000 - 20_000, OrderService.findProduct("ids-1").getStock());
+    }
+
+    @Test
+    void rejectsOrdersTheStockCannotCover() {
+        OrderService.addProduct(new Product("stock-1", "Gadget", 49.99, 5));
+        assertEquals("confirmed", OrderService.processOrder(new Order("stock-1", 3)).getStatus());
+        OrderResult rejected = OrderService.processOrder(new Order("stock-1", 3));
+        assertEquals("rejected", rejected.getStatus());
+        assertNull(rejected.getOrderId());
+        assertEquals(0, rejected.getTotal());
+        assertEquals(2, OrderService.findProduct("stock-1").getStock());
+        assertEquals(149.97 - 49.99, OrderService.processOrder(new Order("stock-1", 2)).getTotal(), 0.01);
+        assertEquals(0, OrderService.findProduct("stock-1").getStock());
+
+        OrderService.findProduct("stock-1").release(1);
+        assertEquals("confirmed", OrderService.processOrder(new Order("stock-1", 1)).getStatus());
+    }
+
+    @Test
+    void rejectsUnknownProductsAndBadQuantities() {
+        Exception missing = assertThrows(IllegalArgumentException.class, () -> OrderService.processOrder(new Order("nope", 1)));
+        assertTrue(missing.getMessage().contains("not found"));
+        assertThrows(IllegalArgumentException.class, () -> OrderService.processOrder(new Order("prod-1", 0)));
+        assertThrows(IllegalArgumentException.class, () -> OrderService.processOrder(new Order("prod-1", -5)));
+    }
+
+    @Test
+    void sixtyFourThreadsRaceForFiveUnits() throws Exception {
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String sku = "race-" + round;
+                OrderService.addProduct(new Product(sku, "Last units", 9.99, 5));
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                List<Future<OrderResult>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        barrier.await();
+                        return OrderService.processOrder(new Order(sku, 1));
+                    }));
+                }
+                int confirmed = 0;
+                for (Future<OrderResult> future : futures) {
+                    if (future.get().getStatus().equals("confirmed")) confirmed++;
+                }
+                assertEquals(5, confirmed, "round " + round);
+                assertEquals(0, OrderService.findProduct(sku).getStock());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
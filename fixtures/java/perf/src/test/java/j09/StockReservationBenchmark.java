@@ -0,0 +1,73 @@
+// JMH: stock reservation over 100k SKUs, per-product CAS vs one global lock, 1 and 4 threads
+// mvn -P bench test-compile exec:exec -Djmh.args="StockReservationBenchmark -p skus=100000"
+
+package j09;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockReservationBenchmark {
+
+    @Param({"100000"})
+    int skus;
+
+    private String[] ids;
+    private Product[] products;
+    private int[] lockedStock;                     // baseline: one array guarded by one monitor
+    private final Object lock = new Object();
+
+    @State(Scope.Thread)
+    public static class Picker {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ids = new String[skus];
+        products = new Product[skus];
+        lockedStock = new int[skus];
+        for (int i = 0; i < skus; i++) {
+            ids[i] = "sku-" + i;
+            products[i] = new Product(ids[i], "Product " + i, 1 + i % 100, Integer.MAX_VALUE);
+            lockedStock[i] = Integer.MAX_VALUE;
+            OrderService.addProduct(products[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean casReserve(Picker picker) {
+        return products[picker.random.nextInt(skus)].tryReserve(1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean casReserveContended(Picker picker) {
+        return products[picker.random.nextInt(skus)].tryReserve(1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean globalLockContended(Picker picker) {
+        int sku = picker.random.nextInt(skus);
+        synchronized (lock) {
+            if (lockedStock[sku] < 1) return false;
+            lockedStock[sku]--;
+            return true;
+        }
+    }
+
+    /** Whole order path: catalog lookup, reservation, id and result. */
+    @Benchmark
+    @Threads(4)
+    public OrderResult processOrder(Picker picker) {
+        return OrderService.processOrder(new Order(ids[picker.random.nextInt(skus)], 1));
+    }
+}
@@ -0,0 +1,66 @@
+// Tests for BatchLoader: deduplication, memoization, missing keys and failed batches
+
+package j10;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+
+    private final List<List<Integer>> batches = new ArrayList<>();
+    private final BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+        batches.add(keys);
+        Map<Integer, String> values = new HashMap<>();
+        for (int key : keys) if (key >= 0) values.put(key, "v" + key);
+        return values;
+    });
+
+    @Test
+    void deduplicatesKeysIntoOneBatch() {
+        CompletableFuture<String> a = loader.load(3);
+        CompletableFuture<String> b = loader.load(1);
+        CompletableFuture<String> c = loader.load(3);
+        CompletableFuture<String> missing = loader.load(-1);
+        assertSame(a, c);
+        assertFalse(a.isDone());
+        assertTrue(batches.isEmpty(), "nothing is queried before dispatch");
+
+        loader.dispatch();
+        assertEquals(List.of(List.of(3, 1, -1)), batches);
+        assertEquals("v3", a.join());
+        assertEquals("v1", b.join());
+        assertNull(missing.join());
+    }
+
+    @Test
+    void loadedKeysAreNotQueriedAgain() {
+        loader.load(1);
+        loader.dispatch();
+        CompletableFuture<String> cached = loader.load(1);
+        assertTrue(cached.isDone());
+        loader.load(2);
+        loader.dispatch();
+        loader.dispatch();                                                     // nothing pending
+        assertEquals(List.of(List.of(1), List.of(2)), batches);
+        assertEquals("v1", cached.join());
+    }
+
+    @Test
+    void failedBatchFailsItsFuturesAndAllowsRetry() {
+        BatchLoader<Integer, String> failing = new BatchLoader<>(keys -> {
+            throw new IllegalStateException("database down");
+        });
+        CompletableFuture<String> future = failing.load(1);
+        assertThrows(IllegalStateException.class, failing::dispatch);
+        assertThrows(CompletionException.class, future::join);
+        assertNotSame(future, failing.load(1), "a failed key is loaded again");
+    }
+}
@@ -0,0 +1,151 @@
+// Tests for EntityCache: LRU/weight bounds, TTL, single-flight loads, batch misses and invalidation races
+
+package j10;
+
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private EntityCache<Integer, String> cache(long maxWeight) {
+        return new EntityCache<>(maxWeight, v -> 1, 60_000, clock::get, new MetricsRegistry(), "cache");
+    }
+
+    private String load(int key) {
+        loads.incrementAndGet();
+        return key < 0 ? null : "v" + key;
+    }
+
+    @Test
+    void servesHitsUntilTheTtlRunsOut() {
+        EntityCache<Integer, String> cache = cache(1000);
+        assertEquals("v1", cache.get(1, this::load));
+        assertEquals("v1", cache.get(1, this::load));
+        assertNull(cache.get(-1, this::load));
+        assertNull(cache.get(-1, this::load));                              // absent rows are not cached
+        clock.addAndGet(60_000);
+        assertEquals("v1", cache.get(1, this::load));
+        assertEquals(4, loads.get());
+        EntityCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(4, stats.misses());
+        assertEquals(0.2, stats.hitRate());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesByCountOrWeight() {
+        EntityCache<Integer, String> cache = cache(16);                     // one entry per segment
+        for (int key = 0; key < 1000; key++) cache.get(key, this::load);
+        EntityCache.Stats stats = cache.stats();
+        assertTrue(stats.size() <= 16, "size " + stats.size());
+        assertEquals(1000 - stats.size(), stats.evictions());
+
+        EntityCache<Integer, String> weighted = new EntityCache<>(16 * 100, String::length, 60_000, clock::get, new MetricsRegistry(), "w");
+        for (int key = 0; key < 10_000; key++) weighted.get(key, k -> "x".repeat(10 + k % 40));
+        assertTrue(weighted.stats().weight() <= 1600, "weight " + weighted.stats().weight());
+        assertTrue(weighted.stats().size() > 16);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        EntityCache<Integer, String> cache = cache(1000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(7, key -> {
+                loading.countDown();
+                await(release);
+                return load(key);
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 15; i++) results.add(pool.submit(() -> cache.get(7, this::load)));
+            Thread.sleep(50);                                               // let them queue behind the load
+            release.countDown();
+            for (Future<String> result : results) assertEquals("v7", result.get());
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.stats().loads());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void getAllBatchesOnlyTheMisses() {
+        EntityCache<Integer, String> cache = cache(1000);
+        cache.get(2, this::load);
+        List<List<Integer>> batches = new ArrayList<>();
+        Map<Integer, String> found = cache.getAll(List.of(1, 2, 3, 1, -5), keys -> {
+            batches.add(keys);
+            Map<Integer, String> rows = new HashMap<>();
+            for (int key : keys) if (key >= 0) rows.put(key, "v" + key);
+            return rows;
+        });
+        assertEquals(Map.of(1, "v1", 2, "v2", 3, "v3"), found);
+        assertEquals(List.of(List.of(1, 3, -5)), batches);
+        assertEquals("v3", cache.get(3, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidationDuringALoadKeepsTheStaleRowOut() throws Exception {
+        EntityCache<Integer, String> cache = cache(1000);
+        Map<Integer, String> table = new HashMap<>(Map.of(1, "old"));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = pool.submit(() -> cache.get(1, key -> {
+                String row = table.get(key);                                // reads the old row...
+                loading.countDown();
+                await(release);
+                return row;
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            table.put(1, "new");                                            // ...which is updated meanwhile
+            cache.invalidate(1);
+            assertEquals("new", cache.get(1, table::get), "does not join the stale load");
+            release.countDown();
+            assertEquals("old", slow.get());
+            assertEquals("new", cache.get(1, table::get), "the late, stale load was not cached");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedLoadsPropagateAndAreNotCached() {
+        EntityCache<Integer, String> cache = cache(1000);
+        assertThrows(IllegalStateException.class, () -> cache.get(1, key -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals("v1", cache.get(1, this::load));
+        assertThrows(IllegalArgumentException.class, () -> cache(8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+// JMH: getOrdersWithDetails one query per order, batched, and batched with the shared customer cache
+// Queries issued are reported as an aux counter, so queries per call = queries / score
+// mvn -P bench test-compile exec:exec -Djmh.args="j10.OrderServiceBenchmark -p orders=1000"
+
+package j10;
+
+import metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+
+    @Param({"1000"})
+    int orders;
+
+    private OrderService service;
+    private OrderService cached;
+
+    /** Repository queries issued, reported next to the calls/s score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Queries {
+        public double queries;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Order> rows = new ArrayList<>();
+        Map<Integer, List<OrderItem>> items = new HashMap<>();
+        Map<Integer, Customer> customers = new HashMap<>();
+        for (int i = 0; i < orders; i++) {
+            rows.add(new Order(i, i % 100, "pending"));
+            items.put(i, List.of(new OrderItem(i, "Item " + i, 1, 10)));
+        }
+        for (int c = 0; c < 100; c++) customers.put(c, new Customer(c, "Customer " + c, c + "@example.com"));
+        OrderRepository repo = new OrderRepository(rows, items, customers);
+        service = new OrderService(repo);
+        cached = new OrderService(repo, new EntityCache<>(10_000, c -> 1, 60_000, System::currentTimeMillis,
+                new MetricsRegistry(), "bench.customers"));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> oneByOne(Queries queries) {
+        QueryCounter.reset();
+        List<Map<String, Object>> details = service.getOrdersWithDetailsOneByOne();
+        queries.queries += QueryCounter.getCount();
+        return details;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> batched(Queries queries) {
+        QueryCounter.reset();
+        List<Map<String, Object>> details = service.getOrdersWithDetails();
+        queries.queries += QueryCounter.getCount();
+        return details;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> batchedWithCustomerCache(Queries queries) {
+        QueryCounter.reset();
+        List<Map<String, Object>> details = cached.getOrdersWithDetails();
+        queries.queries += QueryCounter.getCount();
+        return details;
+    }
+}
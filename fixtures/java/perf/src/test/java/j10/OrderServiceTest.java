@@ -0,0 +1,108 @@
+// Tests for the j10 copy: query counting, the repository metrics and batched detail loading
+
+package j10;
+
+import metrics.MetricsRegistry;
+import metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderServiceTest {
+
+    @Test
+    void repositoryCallsAreCountedAndTimed() {
+        MetricsSnapshot before = MetricsRegistry.global().snapshot();
+        QueryCounter.reset();
+
+        List<Map<String, Object>> details = new OrderService().getOrdersWithDetailsOneByOne();
+
+        MetricsSnapshot after = MetricsRegistry.global().snapshot();
+        assertEquals(3, details.size());
+        assertEquals(7, QueryCounter.getCount(), "1 + N + N queries for 3 orders");
+        assertEquals(7, after.counter("j10.queries") - before.counter("j10.queries"));
+        assertEquals(3, countOf(after, "j10.findItemsByOrderId.latency") - countOf(before, "j10.findItemsByOrderId.latency"));
+        assertEquals(3, countOf(after, "j10.findCustomerById.latency") - countOf(before, "j10.findCustomerById.latency"));
+    }
+
+    @Test
+    void batchedDetailsTakeThreeQueriesAndMatchTheOneByOneResult() {
+        OrderService service = new OrderService();
+        List<Map<String, Object>> expected = service.getOrdersWithDetailsOneByOne();
+        MetricsSnapshot before = MetricsRegistry.global().snapshot();
+        QueryCounter.reset();
+
+        List<Map<String, Object>> details = service.getOrdersWithDetails();
+
+        MetricsSnapshot after = MetricsRegistry.global().snapshot();
+        assertEquals(3, QueryCounter.getCount());
+        assertEquals(expected, details);
+        assertEquals("Alice", ((Customer) details.get(2).get("customer")).getName());
+        assertEquals(1, countOf(after, "j10.findCustomersByIds.latency") - countOf(before, "j10.findCustomersByIds.latency"));
+    }
+
+    @Test
+    void queryCountDoesNotGrowWithOrdersAndKeysAreDeduplicated() {
+        List<Order> orders = new ArrayList<>();
+        Map<Integer, List<OrderItem>> items = new HashMap<>();
+        Map<Integer, Customer> customers = new HashMap<>();
+        for (int i = 1; i <= 1000; i++) {
+            orders.add(new Order(i, i % 50, "pending"));
+            if (i % 3 != 0) items.put(i, List.of(new OrderItem(i, "Item " + i, 1, i)));
+        }
+        for (int c = 1; c < 50; c++) customers.put(c, new Customer(c, "Customer " + c, c + "@example.com"));   // customer 0 is missing
+
+        List<Integer> batchSizes = new ArrayList<>();
+        OrderRepository repo = new OrderRepository(orders, items, customers) {
+            @Override
+            Map<Integer, Customer> findCustomersByIds(Collection<Integer> customerIds) {
+                batchSizes.add(customerIds.size());
+                return super.findCustomersByIds(customerIds);
+            }
+        };
+        QueryCounter.reset();
+        List<Map<String, Object>> details = new OrderService(repo).getOrdersWithDetails();
+
+        assertEquals(3, QueryCounter.getCount());
+        assertEquals(List.of(50), batchSizes);
+        assertEquals(1000, details.size());
+        assertEquals(List.of(), details.get(2).get("items"));                 // order 3 has no items
+        assertEquals(1, ((List<?>) details.get(0).get("items")).size());
+        assertNull(details.get(49).get("customer"));                          // order 50 -> customer 0
+        assertEquals("Customer 7", ((Customer) details.get(6).get("customer")).getName());
+    }
+
+    @Test
+    void cachedCustomersAreNotQueriedAgainUntilUpdated() {
+        EntityCache<Integer, Customer> cache = new EntityCache<>(1000, c -> 1, 60_000, System::currentTimeMillis, new MetricsRegistry(), "customers");
+        OrderService service = new OrderService(new OrderRepository(), cache);
+
+        QueryCounter.reset();
+        service.getOrdersWithDetails();
+        assertEquals(3, QueryCounter.getCount());
+        QueryCounter.reset();
+        service.getOrdersWithDetails();
+        assertEquals(2, QueryCounter.getCount(), "orders + items; customers come from the cache");
+        assertEquals("Bob", service.findCustomer(2).getName());
+        assertEquals(2, QueryCounter.getCount());
+
+        service.updateCustomer(new Customer(2, "Robert", "bob@example.com"));
+        QueryCounter.reset();
+        List<Map<String, Object>> details = service.getOrdersWithDetails();
+        assertEquals(3, QueryCounter.getCount(), "customer 2 was invalidated");
+        assertEquals("Robert", ((Customer) details.get(1).get("customer")).getName());
+        assertEquals("Alice", ((Customer) details.get(0).get("customer")).getName());
+        assertEquals(3, cache.stats().loads(), "Alice, Bob, then Robert");
+    }
+
+    // Histograms are registered when OrderRepository is first loaded, possibly after "before"
+    private static long countOf(MetricsSnapshot snapshot, String histogram) {
+        return snapshot.histogram(histogram) == null ? 0 : snapshot.histogram(histogram).count();
+    }
+}
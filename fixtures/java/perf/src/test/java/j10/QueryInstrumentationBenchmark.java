@@ -0,0 +1,53 @@
+// JMH: cost of recording one query, outside a request scope and inside one, 1 and 4 threads
+// mvn -P bench test-compile exec:exec -Djmh.args="QueryInstrumentationBenchmark"
+
+package j10;
+
+import metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryInstrumentationBenchmark {
+
+    private final QueryInstrumentation instrumentation = new QueryInstrumentation(new MetricsRegistry(), "bench", 5);
+    private final QueryInstrumentation.Query query = instrumentation.query("findCustomerById");
+
+    /** A request scope per thread, reopened every iteration so its query list stays bounded. */
+    @State(Scope.Thread)
+    public static class Request {
+        QueryInstrumentation.RequestScope scope;
+
+        @Setup(Level.Iteration)
+        public void open(QueryInstrumentationBenchmark benchmark) {
+            scope = benchmark.instrumentation.begin("bench");
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() {
+            scope.close();
+        }
+    }
+
+    @Benchmark
+    public void unscoped() {
+        query.record(System.nanoTime(), 1);
+    }
+
+    @Benchmark
+    public void scoped(Request request) {
+        query.record(System.nanoTime(), 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void scopedContended(Request request) {
+        query.record(System.nanoTime(), 1);
+    }
+}
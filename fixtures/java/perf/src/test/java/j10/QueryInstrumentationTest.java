@@ -0,0 +1,129 @@
+// Tests for QueryInstrumentation: per-request attribution, N+1 flags, nesting and concurrent recording
+
+package j10;
+
+import j10.QueryInstrumentation.NPlusOne;
+import j10.QueryInstrumentation.Query;
+import j10.QueryInstrumentation.RequestScope;
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryInstrumentationTest {
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final QueryInstrumentation instrumentation = new QueryInstrumentation(metrics, "test", 3);
+    private final Query findUser = instrumentation.query("findUser");
+    private final Query findAll = instrumentation.query("findAll");
+
+    @Test
+    void attributesQueriesToTheOpenScopeAndAggregatesGlobally() {
+        findAll.record(System.nanoTime(), 10);                                // outside any scope
+        try (RequestScope scope = instrumentation.begin("GET /users")) {
+            findAll.record(System.nanoTime(), 2);
+            findUser.record(System.nanoTime(), 1);
+            assertSame(scope, instrumentation.currentScope());
+            assertEquals(2, scope.queryCount());
+            assertEquals(3, scope.totalRows());
+            assertEquals(List.of("findAll", "findUser"), scope.queries().stream().map(QueryInstrumentation.QueryRecord::query).toList());
+            assertTrue(scope.nPlusOnes().isEmpty());
+        }
+        assertNull(instrumentation.currentScope());
+        assertEquals(3, metrics.snapshot().counter("test.queries"));
+        assertEquals(12, metrics.snapshot().counter("test.findAll.rows"));
+        assertEquals(2, metrics.snapshot().histogram("test.findAll.latency").count());
+    }
+
+    @Test
+    void flagsAShapeOnceItRepeatsMoreThanTheThreshold() {
+        try (RequestScope scope = instrumentation.begin("GET /orders")) {
+            findAll.record(System.nanoTime(), 3);
+            for (int i = 0; i < 3; i++) findUser.record(System.nanoTime(), 1);
+            assertTrue(scope.nPlusOnes().isEmpty(), "3 is not more than 3");
+            for (int i = 0; i < 7; i++) findUser.record(System.nanoTime(), 1);
+            assertEquals(List.of(new NPlusOne("GET /orders", "findUser", 10)), scope.nPlusOnes());
+            assertEquals(Map.of("findAll", 1, "findUser", 10), scope.counts());
+            assertTrue(scope.toString().contains("N+1: [findUser]"), scope.toString());
+        }
+        assertEquals(1, metrics.snapshot().counter("test.nplusone"));
+    }
+
+    @Test
+    void scopesNestAndMustBeClosedInnermostFirst() {
+        RequestScope outer = instrumentation.begin("outer");
+        RequestScope inner = instrumentation.begin("inner");
+        findUser.record(System.nanoTime(), 1);
+        assertThrows(IllegalStateException.class, outer::close);
+        inner.close();
+        findUser.record(System.nanoTime(), 1);
+        assertEquals(1, inner.queryCount());
+        assertEquals(1, outer.queryCount());
+        outer.close();
+        outer.close();                                                        // idempotent
+        assertNull(instrumentation.currentScope());
+    }
+
+    @Test
+    void concurrentRequestsAreCountedSeparatelyAndExactly() throws Exception {
+        int threads = 8;
+        int perRequest = 5_000;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int queries = perRequest + t;
+                counts.add(pool.submit(() -> {
+                    start.await();
+                    try (RequestScope scope = instrumentation.begin("request")) {
+                        for (int i = 0; i < queries; i++) findUser.record(System.nanoTime(), 1);
+                        return scope.queryCount();
+                    }
+                }));
+            }
+            int expected = 0;
+            for (int t = 0; t < threads; t++) {
+                assertEquals(perRequest + t, counts.get(t).get());
+                expected += perRequest + t;
+            }
+            assertEquals(expected, metrics.snapshot().counter("test.queries"));
+            assertEquals(expected, metrics.snapshot().histogram("test.findUser.latency").count());
+            assertEquals(threads, metrics.snapshot().counter("test.nplusone"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void detectsTheFixturesNPlusOneButNotTheBatchedPath() {
+        OrderService service = new OrderService();
+        try (RequestScope scope = QueryInstrumentation.global().begin("oneByOne")) {
+            service.getOrdersWithDetailsOneByOne();
+            assertEquals(7, scope.queryCount());
+            assertEquals(3, scope.queryCount("findCustomerById"));
+        }
+        // 3 orders stay under the default threshold; a larger page does not
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) orders.add(new Order(i, i % 2 + 1, "pending"));
+        OrderService page = new OrderService(new OrderRepository(orders, Map.of(), Map.of()));
+        try (RequestScope scope = QueryInstrumentation.global().begin("large oneByOne")) {
+            page.getOrdersWithDetailsOneByOne();
+            assertEquals(List.of("findItemsByOrderId", "findCustomerById"), scope.nPlusOnes().stream().map(NPlusOne::query).toList());
+        }
+        try (RequestScope scope = QueryInstrumentation.global().begin("batched")) {
+            page.getOrdersWithDetails();
+            assertEquals(3, scope.queryCount());
+            assertTrue(scope.nPlusOnes().isEmpty());
+            assertEquals(20, scope.totalRows(), "20 orders, no items or customers in this repository");
+        }
+    }
+}
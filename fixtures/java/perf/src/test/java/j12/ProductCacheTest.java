@@ -0,0 +1,133 @@
+// Tests for ProductCache: LRU bounds, loads racing with writes, and concurrent readers against a writer
+
+package j12;
+
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest {
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final ProductRepository repository = new ProductRepository();
+
+    private static ProductRequest request(String name) {
+        return new ProductRequest(name, "", BigDecimal.ONE, 1, 1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        ProductCache cache = new ProductCache(16, 4, metrics, "lru");         // one product per segment
+        for (int i = 1; i <= 1000; i++) repository.insert(request("P" + i));
+        for (long i = 1; i <= 1000; i++) {
+            long id = i;
+            cache.product(id, () -> repository.findActiveById(id));
+        }
+        for (int i = 0; i < 10; i++) {
+            int page = i;
+            cache.page(page, 10, () -> repository.findActivePage(page, 10));
+        }
+        ProductCache.Stats stats = cache.stats();
+        assertTrue(stats.products() <= 16, "products " + stats.products());
+        assertEquals(4, stats.pages());
+        assertEquals(1000 - stats.products() + 6, stats.evictions());
+        assertEquals(stats.evictions(), metrics.snapshot().counter("lru.evictions"));
+    }
+
+    @Test
+    void aLoadThatReadBeforeAWriteIsNotCached() throws Exception {
+        ProductCache cache = new ProductCache(1000, 100, metrics, "race");
+        ProductService service = new ProductService(repository, cache, Clock.systemUTC());
+        Product original = service.createProduct(request("Old"));
+        CountDownLatch read = new CountDownLatch(2);
+        CountDownLatch written = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Product>> slowGet = executor.submit(() -> cache.product(original.id(), () -> {
+                Optional<Product> row = repository.findActiveById(original.id());
+                read.countDown();
+                await(written);                                             // the update lands before the put
+                return row;
+            }));
+            Future<ProductPage> slowPage = executor.submit(() -> cache.page(0, 10, () -> {
+                ProductPage page = repository.findActivePage(0, 10);
+                read.countDown();
+                await(written);
+                return page;
+            }));
+            assertTrue(read.await(5, TimeUnit.SECONDS));
+            service.updateProduct(original.id(), request("New"));
+            written.countDown();
+            assertEquals("Old", slowGet.get(5, TimeUnit.SECONDS).orElseThrow().name());
+            assertEquals("Old", slowPage.get(5, TimeUnit.SECONDS).content().get(0).name());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("New", service.getProduct(original.id()).orElseThrow().name());
+        assertEquals("New", service.listProducts(0, 10).content().get(0).name());
+    }
+
+    @Test
+    void readersNeverSeeAWriteUndoneAfterItReturns() throws Exception {
+        ProductCache cache = new ProductCache(1000, 100, metrics, "concurrent");
+        ProductService service = new ProductService(repository, cache, Clock.systemUTC());
+        for (int i = 0; i < 100; i++) service.createProduct(request("v0"));
+        AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        for (long id = 1; id <= 100; id++) service.getProduct(id);
+                        for (int page = 0; page < 10; page++) service.listProducts(page, 10);
+                    }
+                }));
+            }
+            for (int version = 1; version <= 200; version++) {
+                long id = 1 + version % 100;
+                String name = "v" + version;
+                service.updateProduct(id, request(name));
+                assertEquals(name, service.getProduct(id).orElseThrow().name());
+                ProductPage page = service.listProducts((int) (id - 1) / 10, 10);
+                assertEquals(name, page.content().get((int) (id - 1) % 10).name());
+            }
+            service.deleteProduct(50);
+            assertTrue(service.getProduct(50).isEmpty());
+            assertEquals(10, service.listProducts(4, 10).content().size());
+            assertFalse(service.listProducts(4, 10).contains(50));
+            done.set(true);
+            for (Future<?> reader : readers) reader.get(10, TimeUnit.SECONDS);
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+        ProductService direct = new ProductService(repository);
+        for (long id = 1; id <= 100; id++) assertEquals(direct.getProduct(id), service.getProduct(id));
+        for (int page = 0; page < 10; page++) assertEquals(direct.listProducts(page, 10), service.listProducts(page, 10));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
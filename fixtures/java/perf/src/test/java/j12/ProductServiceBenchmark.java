@@ -0,0 +1,66 @@
+// JMH load test: per-request latency distribution (p50/p99/p999) of a read-heavy product API, with and without the cache
+// Each repository call parks for roundTripMicros, standing in for a PostgreSQL round trip
+// mvn -P bench test-compile exec:exec -Djmh.args="j12.ProductServiceBenchmark -t 4"
+
+package j12;
+
+import metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One request per invocation: 90% {@code GET /{id}} and 9% {@code GET ?page=&size=20}, both
+ * skewed towards low ids and early pages, 1% writes split between {@code PUT} and a
+ * {@code DELETE} followed by a {@code POST} (so the active catalog keeps its size). Look at the
+ * {@code p0.99} rows of the output.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    @Param({"10000"})
+    int products;
+
+    @Param({"200"})
+    int roundTripMicros;
+
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductRepository repository = new ProductRepository(roundTripMicros, TimeUnit.MICROSECONDS);
+        ProductCache cache = cached ? new ProductCache(products, 1000, new MetricsRegistry(), "bench.products") : null;
+        service = new ProductService(repository, cache, Clock.systemUTC());
+        for (int i = 0; i < products; i++) service.createProduct(request(i));
+    }
+
+    private static ProductRequest request(int i) {
+        return new ProductRequest("Product " + i, "Description of product " + i, BigDecimal.valueOf(100 + i % 900, 2), 10, i % 50);
+    }
+
+    @Benchmark
+    public Object request() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(1000);
+        double skew = random.nextDouble() * random.nextDouble();
+        if (dice < 900) return service.getProduct(1 + (long) (skew * products));
+        if (dice < 990) return service.listProducts((int) (skew * 50), 20);
+        long id = 1 + (long) (skew * products);
+        if (dice < 995) return service.updateProduct(id, request(random.nextInt(products)));
+        Optional<Product> product = service.getProduct(id);
+        if (product.isEmpty() || !service.deleteProduct(id)) return product;
+        return service.createProduct(request(random.nextInt(products)));
+    }
+}
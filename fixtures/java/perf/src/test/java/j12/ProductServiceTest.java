@@ -0,0 +1,145 @@
+// Tests for ProductService: fixture semantics with and without the cache, and precise invalidation on writes
+
+package j12;
+
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductServiceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private final ProductRepository repository = new ProductRepository();
+    private final ProductCache cache = new ProductCache(1000, 100, new MetricsRegistry(), "products");
+    private final ProductService cached = new ProductService(repository, cache, CLOCK);
+    private final ProductService direct = new ProductService(repository);
+
+    private static ProductRequest request(String name, String price) {
+        return new ProductRequest(name, name + " description", new BigDecimal(price), 10, 1);
+    }
+
+    private void createProducts(int count) {
+        for (int i = 1; i <= count; i++) cached.createProduct(request("Product " + i, "9.99"));
+    }
+
+    private static List<Long> ids(ProductPage page) {
+        return page.content().stream().map(Product::id).toList();
+    }
+
+    @Test
+    void servesRepeatedReadsFromTheCache() {
+        createProducts(30);
+        long before = repository.queries();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Product 7", cached.getProduct(7).orElseThrow().name());
+            assertEquals(List.of(21L, 22L, 23L, 24L, 25L), ids(cached.listProducts(4, 5)));
+            assertTrue(cached.getProduct(99).isEmpty());                    // 404s are cached too
+        }
+        assertEquals(3, repository.queries() - before);
+        assertEquals(12, cache.stats().hits());
+        assertEquals(0.8, cache.stats().hitRate());
+    }
+
+    @Test
+    void readsMatchTheUncachedServiceAcrossWrites() {
+        createProducts(45);
+        cached.updateProduct(3, request("Renamed", "1.00"));
+        cached.deleteProduct(4);
+        cached.deleteProduct(44);
+        cached.createProduct(request("New", "2.00"));
+        for (int page = 0; page < 4; page++) {
+            assertEquals(direct.listProducts(page, 20), cached.listProducts(page, 20));
+            cached.deleteProduct(page * 10 + 1);
+            cached.updateProduct(page * 10 + 2, request("Again " + page, "3.00"));
+            assertEquals(direct.listProducts(page, 20), cached.listProducts(page, 20));
+        }
+        for (long id = 1; id <= 47; id++) assertEquals(direct.getProduct(id), cached.getProduct(id), "product " + id);
+        assertEquals(List.of(2L, 3L, 5L, 6L), ids(cached.listProducts(0, 4)));
+        assertEquals(List.of(42L, 43L, 45L, 46L), ids(cached.listProducts(6, 6)));
+        assertFalse(cached.listProducts(6, 6).hasNext());
+    }
+
+    @Test
+    void updateEvictsTheProductAndOnlyThePagesContainingIt() {
+        createProducts(50);
+        for (int page = 0; page < 5; page++) cached.listProducts(page, 10);
+        cached.getProduct(15);
+        cached.getProduct(35);
+
+        assertTrue(cached.updateProduct(15, request("Updated", "5.00")).isPresent());
+        assertEquals(2, cache.stats().invalidations());                     // product 15 and page 1
+        assertEquals(4, cache.stats().pages());
+        assertEquals(new BigDecimal("5.00"), cached.getProduct(15).orElseThrow().price());
+        assertEquals("Updated", cached.listProducts(1, 10).content().get(4).name());
+        assertEquals("Product 35", cached.getProduct(35).orElseThrow().name());
+
+        assertTrue(cached.updateProduct(99, request("Missing", "1.00")).isEmpty());
+        assertEquals(2, cache.stats().invalidations());
+    }
+
+    @Test
+    void softDeleteEvictsTheProductAndThePagesItShifts() {
+        createProducts(50);
+        for (int page = 0; page < 5; page++) cached.listProducts(page, 10);
+        cached.listProducts(1, 20);
+        assertEquals("Product 25", cached.getProduct(25).orElseThrow().name());
+
+        assertTrue(cached.deleteProduct(25));
+        // product 25, pages 2..4 of size 10 and page 1 of size 20 (rows 21..40); pages 0 and 1 stay
+        assertEquals(5, cache.stats().invalidations());
+        assertEquals(2, cache.stats().pages());
+        assertTrue(cached.getProduct(25).isEmpty());
+        assertFalse(ids(cached.listProducts(2, 10)).contains(25L));
+        assertEquals(31L, ids(cached.listProducts(2, 10)).get(9));
+        assertEquals(9, cached.listProducts(4, 10).content().size());
+        assertTrue(direct.getProduct(25).isEmpty());
+
+        long invalidations = cache.stats().invalidations();
+        assertFalse(cached.deleteProduct(25));                              // already deleted: 404, nothing evicted
+        assertTrue(cached.updateProduct(25, request("Back", "1.00")).isEmpty());
+        assertEquals(invalidations, cache.stats().invalidations());
+    }
+
+    @Test
+    void deletingTheRowJustAfterAPageEvictsThatPage() {
+        createProducts(21);
+        ProductPage first = cached.listProducts(0, 20);
+        assertEquals(21, first.nextId());
+        cached.deleteProduct(21);
+        ProductPage reloaded = cached.listProducts(0, 20);
+        assertNotSame(first, reloaded);
+        assertFalse(reloaded.hasNext());
+    }
+
+    @Test
+    void createEvictsOnlyTheLastPages() {
+        createProducts(25);
+        for (int page = 0; page < 4; page++) cached.listProducts(page, 10);
+        Optional<Product> empty = cached.getProduct(26);
+        assertTrue(empty.isEmpty());
+
+        Product created = cached.createProduct(request("Fresh", "4.50"));
+        assertEquals(26, created.id());
+        assertEquals(2, cache.stats().pages());                             // pages 2 (rows 21..25) and 3 (empty) evicted
+        assertEquals(created, cached.getProduct(26).orElseThrow());
+        assertEquals(List.of(21L, 22L, 23L, 24L, 25L, 26L), ids(cached.listProducts(2, 10)));
+    }
+
+    @Test
+    void rejectsInvalidPagesAndRequests() {
+        assertThrows(IllegalArgumentException.class, () -> cached.listProducts(-1, 20));
+        assertThrows(IllegalArgumentException.class, () -> cached.listProducts(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> cached.listProducts(0, ProductService.MAX_PAGE_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> request(" ", "1.00"));
+        assertThrows(IllegalArgumentException.class, () -> request("Negative", "-0.01"));
+    }
+}
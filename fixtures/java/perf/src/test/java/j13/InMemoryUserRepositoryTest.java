@@ -0,0 +1,154 @@
+// Tests for InMemoryUserRepository: the keyset scan built on findPage and the expiry index
+
+package j13;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserRepositoryTest {
+
+    private static final Instant CHANGED = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static User user(String id) {
+        return new User(id, id + "@test.com", "User " + id, CHANGED, null);
+    }
+
+    private static List<String> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+
+    @Test
+    void pagesByIdAfterTheLastIdSeen() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(user("c"), user("a"), user("e"), user("b"), user("d")));
+        assertEquals(List.of("a", "b"), ids(repository.findPage(null, 2)));
+        assertEquals(List.of("c", "d"), ids(repository.findPage("b", 2)));
+        assertEquals(List.of("e"), ids(repository.findPage("d", 2)));
+        assertEquals(List.of("c", "d", "e"), ids(repository.findPage("bb", 10)));
+        assertTrue(repository.findPage("e", 2).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repository.findPage(null, 0));
+    }
+
+    @Test
+    void scansEveryUserOncePageByPage() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        for (int i = 999; i >= 0; i--) repository.insert(user(String.format("%04d", i)));
+        List<String> scanned = repository.scan(64).map(User::getId).toList();
+        assertEquals(1000, scanned.size());
+        assertEquals(ids(repository.findAll()), scanned);
+        assertEquals(List.of("0000", "0001"), repository.scan(1).limit(2).map(User::getId).toList());
+        assertEquals(0, new InMemoryUserRepository().scan(10).count());
+    }
+
+    @Test
+    void defaultFindPageFallsBackToFindAll() {
+        List<User> users = List.of(user("b"), user("c"), user("a"));
+        UserRepository minimal = new UserRepository() {
+            public List<User> findAll() { return users; }
+            public User update(String userId, User data) { return null; }
+        };
+        assertEquals(List.of("a", "b", "c"), minimal.scan(2).map(User::getId).toList());
+        assertEquals(List.of("c"), ids(minimal.findPage("b", 5)));
+    }
+
+    @Test
+    void storesCopiesAndUpdatesOnlyExistingUsers() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(user("a"), user("b")));
+        repository.findById("a").setPasswordNotificationSentAt(CHANGED);
+        assertNull(repository.findById("a").getPasswordNotificationSentAt());
+
+        User renamed = new User("ignored", "new@test.com", "Renamed", CHANGED, null);
+        assertEquals("a", repository.update("a", renamed).getId());
+        assertEquals("Renamed", repository.findById("a").getName());
+        assertNull(repository.update("zz", renamed));
+        assertEquals(2, repository.size());
+
+        Instant sent = Instant.parse("2024-06-01T00:00:00Z");
+        assertEquals(2, repository.updatePasswordNotificationSentAt(List.of(user("a"), user("b"), user("zz")), sent));
+        assertEquals(sent, repository.findById("b").getPasswordNotificationSentAt());
+        assertEquals("Renamed", repository.findById("a").getName());        // only the timestamp changes
+        assertNull(repository.findById("zz"));
+    }
+
+    private static User changedDaysAfter(String id, int days, Instant notifiedAt) {
+        return new User(id, id + "@test.com", "User " + id, CHANGED.plus(days, ChronoUnit.DAYS), notifiedAt);
+    }
+
+    private static List<String> expiring(UserRepository repository, int fromDay, int toDay) {
+        Instant expiry = CHANGED.plus(User.PASSWORD_MAX_AGE);
+        return repository.scanUnnotifiedExpiring(expiry.plus(fromDay, ChronoUnit.DAYS), expiry.plus(toDay, ChronoUnit.DAYS), 10)
+                .map(User::getId).toList();
+    }
+
+    @Test
+    void indexesUnnotifiedUsersByExpiry() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(
+                changedDaysAfter("d3", 3, null), changedDaysAfter("d1b", 1, null), changedDaysAfter("d1a", 1, null),
+                changedDaysAfter("d2", 2, null), changedDaysAfter("notified", 2, CHANGED.plus(200, ChronoUnit.DAYS))));
+        assertEquals(4, repository.pendingNotifications());
+        assertEquals(List.of("d1a", "d1b", "d2", "d3"), expiring(repository, 0, 10));
+        assertEquals(List.of("d1a", "d1b", "d2"), expiring(repository, 1, 2));          // both bounds inclusive
+        assertEquals(List.of(), expiring(repository, 4, 10));
+        assertEquals(List.of(), expiring(repository, 2, 1));
+
+        // Marking a user notified drops it; a password change moves it; a new user joins
+        repository.updatePasswordNotificationSentAt(List.of(changedDaysAfter("d2", 2, null)), CHANGED.plus(100, ChronoUnit.DAYS));
+        repository.update("d1a", changedDaysAfter("d1a", 5, null));
+        repository.insert(changedDaysAfter("d4", 4, null));
+        assertEquals(List.of("d1b", "d3", "d4", "d1a"), expiring(repository, 0, 10));
+        assertEquals(4, repository.pendingNotifications());
+
+        // The index agrees with the unindexed default on the same rows
+        UserRepository unindexed = new UserRepository() {
+            public List<User> findAll() { return repository.findAll(); }
+            public User update(String userId, User data) { return null; }
+        };
+        assertEquals(expiring(unindexed, 0, 10).stream().sorted().toList(), expiring(repository, 0, 10).stream().sorted().toList());
+        assertEquals(expiring(unindexed, 3, 4), expiring(repository, 3, 4));
+    }
+
+    @Test
+    void concurrentUpdatesLeaveTheIndexMatchingTheRows() throws Exception {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        for (int i = 0; i < 50; i++) repository.insert(changedDaysAfter("u" + i, i, null));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                writers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int n = 0; n < 20_000; n++) {
+                        String id = "u" + random.nextInt(50);
+                        int day = random.nextInt(30);
+                        if (random.nextBoolean()) {
+                            repository.update(id, changedDaysAfter(id, day, random.nextBoolean() ? null : CHANGED.plus(40, ChronoUnit.DAYS)));
+                        } else {
+                            repository.updatePasswordNotificationSentAt(List.of(changedDaysAfter(id, 0, null)), CHANGED.plus(day, ChronoUnit.DAYS));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) writer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        List<String> pending = repository.findAll().stream()
+                .filter(user -> !user.isNotifiedForCurrentPassword())
+                .sorted(Comparator.comparing(User::getPasswordExpiresAt).thenComparing(User::getId))
+                .map(User::getId)
+                .toList();
+        assertEquals(pending, expiring(repository, -100, 100));
+        assertEquals(pending.size(), repository.pendingNotifications());
+    }
+}
@@ -0,0 +1,98 @@
+// JMH: one password-expiry run, as the fixture's findAll + sequential send/update loop, as the streaming job, and as a
+// daily incremental run reading only the expiry-index range since a checkpoint one day back
+// Each email parks for sendMicros; run with -prof gc to compare allocation per run
+// mvn -P bench test-compile exec:exec -Djmh.args="j13.PasswordNotificationBenchmark -p users=100000"
+
+package j13;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordNotificationBenchmark {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+    @Param({"20000"})
+    int users;
+
+    /** One user in this many has an expired password; expiries are spread over the last 10 days. */
+    @Param({"10"})
+    int expiredOneIn;
+
+    @Param({"200"})
+    int sendMicros;
+
+    private InMemoryUserRepository repository;
+    private EmailService email;
+    private NotificationCheckpoint checkpoint;
+
+    @Setup(Level.Trial)
+    public void createCheckpoint() {
+        try {
+            checkpoint = new NotificationCheckpoint(Files.createTempDirectory("j13-bench").resolve("checkpoint"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Every run notifies the same users, so the repository is rebuilt before each one
+    @Setup(Level.Invocation)
+    public void setUp() {
+        repository = new InMemoryUserRepository();
+        for (int i = 0; i < users; i++) {
+            long days = i % expiredOneIn == 0 ? 90 + (i / expiredOneIn) % 10 : 10;
+            repository.insert(new User(String.format("user-%08d", i), "user" + i + "@example.com", "User " + i,
+                    NOW.minus(days, ChronoUnit.DAYS), null));
+        }
+        checkpoint.store(NOW.minus(1, ChronoUnit.DAYS));
+        long sendNanos = TimeUnit.MICROSECONDS.toNanos(sendMicros);
+        email = new EmailService() {
+            @Override
+            public boolean sendPasswordExpiryNotification(User user) {
+                LockSupport.parkNanos(sendNanos);
+                return true;
+            }
+        };
+    }
+
+    @Benchmark
+    public int findAllSequential() {
+        AuthService auth = new AuthService(repository);
+        int notified = 0;
+        for (User user : auth.getAllUsers()) {
+            if (PasswordNotificationService.needsNotification(user, NOW) && email.sendPasswordExpiryNotification(user)) {
+                user.setPasswordNotificationSentAt(NOW);
+                auth.updateUser(user.getId(), user);
+                notified++;
+            }
+        }
+        return notified;
+    }
+
+    @Benchmark
+    public PasswordNotificationService.Result streaming() {
+        return new PasswordNotificationService(new AuthService(repository), email, Clock.fixed(NOW, ZoneOffset.UTC),
+                1000, 8, 64, 500).run();
+    }
+
+    @Benchmark
+    public PasswordNotificationService.Result checkpointed() {
+        return new PasswordNotificationService(new AuthService(repository), email, Clock.fixed(NOW, ZoneOffset.UTC),
+                1000, 8, 64, 500, checkpoint).run();
+    }
+}
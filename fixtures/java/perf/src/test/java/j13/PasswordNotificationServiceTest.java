@@ -0,0 +1,261 @@
+// Tests for PasswordNotificationService: the fixture's acceptance criteria, backpressure, batching, failures and checkpoints
+
+package j13;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PasswordNotificationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    /** Counts sends and the most that ran at once; users "bounce" and "throw" fail. */
+    private static final class RecordingEmailService extends EmailService {
+        final List<String> sent = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public boolean sendPasswordExpiryNotification(User user) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                LockSupport.parkNanos(20_000);
+                if (user.getEmail().startsWith("bounce@")) return false;
+                if (user.getEmail().startsWith("throw@")) throw new IllegalStateException("SMTP down");
+                synchronized (sent) {
+                    sent.add(user.getId());
+                }
+                return true;
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private static User user(String id, long daysSinceChange, Instant notifiedAt) {
+        return new User(id, id + "@test.com", "User " + id, NOW.minus(daysSinceChange, ChronoUnit.DAYS), notifiedAt);
+    }
+
+    // The acceptance criteria of fixtures/java/j13/tests, against a mocked repository that only implements findAll/update
+    @Test
+    void meetsTheFixtureAcceptanceCriteriaWithAMockedRepository() {
+        Instant ninetyOneDaysAgo = Instant.now().minus(91, ChronoUnit.DAYS);
+        Instant tenDaysAgo = Instant.now().minus(10, ChronoUnit.DAYS);
+        List<User> users = Arrays.asList(
+                new User("1", "expired@test.com", "Expired User", ninetyOneDaysAgo, null),
+                new User("2", "fresh@test.com", "Fresh User", tenDaysAgo, null),
+                new User("3", "notified@test.com", "Already Notified", ninetyOneDaysAgo, Instant.now()));
+        UserRepository userRepository = mock(UserRepository.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        doReturn(users).when(userRepository).findAll();
+        doAnswer(invocation -> users.stream().filter(u -> u.getId().equals(invocation.getArgument(0))).findFirst().orElse(null))
+                .when(userRepository).update(anyString(), any(User.class));
+        EmailService emailService = spy(new EmailService());
+
+        new PasswordNotificationService(new AuthService(userRepository), emailService).run();
+
+        verify(emailService).sendPasswordExpiryNotification(argThat(user -> "expired@test.com".equals(user.getEmail())));
+        verify(emailService, never()).sendPasswordExpiryNotification(argThat(user -> "fresh@test.com".equals(user.getEmail())));
+        verify(emailService, never()).sendPasswordExpiryNotification(argThat(user -> "notified@test.com".equals(user.getEmail())));
+        verify(userRepository).update(eq("1"), argThat(user -> user.getPasswordNotificationSentAt() != null));
+    }
+
+    @Test
+    void notifiesEachExpiredUserOnceAcrossRuns() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(
+                user("a", 90, null),                                        // exactly 90 days: due
+                user("b", 89, null),
+                user("c", 120, NOW.minus(10, ChronoUnit.DAYS)),             // already notified
+                user("d", 100, NOW.minus(150, ChronoUnit.DAYS))));          // notified for an older password
+        RecordingEmailService email = new RecordingEmailService();
+        PasswordNotificationService job = new PasswordNotificationService(new AuthService(repository), email, CLOCK, 2, 2, 2, 10);
+
+        PasswordNotificationService.Result first = job.run();
+        assertEquals(new PasswordNotificationService.Result(4, 2, 2, 0, 2, 1), first);
+        assertEquals(List.of("a", "d"), email.sent.stream().sorted().toList());
+        assertEquals(NOW, repository.findById("a").getPasswordNotificationSentAt());
+        assertEquals(NOW, repository.findById("d").getPasswordNotificationSentAt());
+        assertNull(repository.findById("b").getPasswordNotificationSentAt());
+
+        assertEquals(0, job.run().due());
+        assertEquals(2, email.sent.size());
+    }
+
+    @Test
+    void boundsConcurrentSendsAndBatchesTheUpdates() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        for (int i = 0; i < 5000; i++) repository.insert(user(String.format("u%05d", i), i % 2 == 0 ? 100 : 10, null));
+        AtomicInteger batchCalls = new AtomicInteger();
+        AtomicInteger largestBatch = new AtomicInteger();
+        AtomicInteger pages = new AtomicInteger();
+        UserRepository counting = new UserRepository() {
+            public List<User> findAll() { throw new AssertionError("the job must not load every user"); }
+            public User update(String userId, User data) { throw new AssertionError("updates must be batched"); }
+
+            public List<User> findPage(String afterId, int limit) {
+                pages.incrementAndGet();
+                return repository.findPage(afterId, limit);
+            }
+
+            public int updatePasswordNotificationSentAt(List<User> users, Instant sentAt) {
+                batchCalls.incrementAndGet();
+                largestBatch.accumulateAndGet(users.size(), Math::max);
+                return repository.updatePasswordNotificationSentAt(users, sentAt);
+            }
+        };
+        RecordingEmailService email = new RecordingEmailService();
+
+        PasswordNotificationService.Result result =
+                new PasswordNotificationService(new AuthService(counting), email, CLOCK, 100, 4, 8, 300).run();
+
+        assertEquals(new PasswordNotificationService.Result(5000, 2500, 2500, 0, 2500, 9), result);
+        assertEquals(51, pages.get());                                      // 50 full pages and an empty one
+        assertEquals(9, batchCalls.get());
+        assertEquals(300, largestBatch.get());
+        assertTrue(email.maxRunning.get() <= 4, "senders " + email.maxRunning.get());
+        assertEquals(2500, email.sent.stream().distinct().count());
+    }
+
+    @Test
+    void leavesFailedSendsForTheNextRun() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(
+                user("ok", 100, null), user("bounce", 100, null), user("throw", 100, null)));
+        RecordingEmailService email = new RecordingEmailService();
+        PasswordNotificationService job = new PasswordNotificationService(new AuthService(repository), email, CLOCK, 10, 2, 4, 10);
+
+        assertEquals(new PasswordNotificationService.Result(3, 3, 1, 2, 1, 1), job.run());
+        assertNull(repository.findById("bounce").getPasswordNotificationSentAt());
+        assertEquals(2, job.run().failed());
+    }
+
+    @Test
+    void reportsBatchWriteFailuresAfterTheRun() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(user("a", 100, null), user("b", 100, null)));
+        UserRepository failing = new UserRepository() {
+            public List<User> findAll() { return repository.findAll(); }
+            public User update(String userId, User data) { return repository.update(userId, data); }
+            public List<User> findPage(String afterId, int limit) { return repository.findPage(afterId, limit); }
+            public int updatePasswordNotificationSentAt(List<User> users, Instant sentAt) {
+                throw new IllegalStateException("database unavailable");
+            }
+        };
+        RecordingEmailService email = new RecordingEmailService();
+        PasswordNotificationService job = new PasswordNotificationService(new AuthService(failing), email, CLOCK, 10, 1, 1, 1);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, job::run);
+        assertEquals("database unavailable", e.getCause().getMessage());
+        assertEquals(2, email.sent.size());                                 // every send still ran
+    }
+
+    @Test
+    void marksTheUsersAlreadyEmailedWhenTheScanFails() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(
+                user("a", 100, null), user("b", 100, null), user("c", 100, null), user("d", 100, null)));
+        UserRepository failing = new UserRepository() {
+            public List<User> findAll() { return repository.findAll(); }
+            public User update(String userId, User data) { return repository.update(userId, data); }
+            public List<User> findPage(String afterId, int limit) {
+                if (afterId != null) throw new IllegalStateException("connection reset");
+                return repository.findPage(afterId, limit);
+            }
+            public int updatePasswordNotificationSentAt(List<User> users, Instant sentAt) {
+                return repository.updatePasswordNotificationSentAt(users, sentAt);
+            }
+        };
+        RecordingEmailService email = new RecordingEmailService();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                new PasswordNotificationService(new AuthService(failing), email, CLOCK, 2, 2, 2, 10)::run);
+        assertEquals("connection reset", e.getMessage());
+        assertEquals(List.of("a", "b"), email.sent.stream().sorted().toList());
+        assertNotNull(repository.findById("a").getPasswordNotificationSentAt());
+        assertNotNull(repository.findById("b").getPasswordNotificationSentAt());
+
+        new PasswordNotificationService(new AuthService(repository), email, CLOCK, 2, 2, 2, 10).run();
+        assertEquals(List.of("a", "b", "c", "d"), email.sent.stream().sorted().toList());
+    }
+
+    private static PasswordNotificationService checkpointed(UserRepository repository, EmailService email,
+                                                            Instant now, NotificationCheckpoint checkpoint) {
+        return new PasswordNotificationService(new AuthService(repository), email, Clock.fixed(now, ZoneOffset.UTC),
+                100, 2, 4, 100, checkpoint);
+    }
+
+    @Test
+    void checkpointedRunsReadOnlyPasswordsExpiredSinceTheLastRun(@TempDir Path dir) throws Exception {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        for (int i = 0; i < 1000; i++) repository.insert(user(String.format("fresh%04d", i), 10, null));
+        repository.insert(user("old", 120, null));                          // expired 30 days ago
+        repository.insert(user("bounce", 100, null));                       // expired 10 days ago, send fails
+        repository.insert(user("soon", 89, null));                          // expires in 1 day
+        repository.insert(user("later", 85, null));                        // expires in 5 days
+        RecordingEmailService email = new RecordingEmailService();
+        NotificationCheckpoint checkpoint = new NotificationCheckpoint(dir.resolve("password-expiry.checkpoint"));
+        assertNull(checkpoint.load());
+
+        // First run: everything expired so far; the failed send holds the checkpoint at its expiry
+        assertEquals(new PasswordNotificationService.Result(2, 2, 1, 1, 1, 1), checkpointed(repository, email, NOW, checkpoint).run());
+        Instant bounceExpiry = NOW.minus(10, ChronoUnit.DAYS);
+        assertEquals(bounceExpiry, checkpoint.load());
+
+        Instant twoDaysOn = NOW.plus(2, ChronoUnit.DAYS);
+        assertEquals(new PasswordNotificationService.Result(2, 2, 1, 1, 1, 1), checkpointed(repository, email, twoDaysOn, checkpoint).run());
+        assertEquals(new PasswordNotificationService.Result(1, 1, 0, 1, 0, 0), checkpointed(repository, email, twoDaysOn, checkpoint).run());
+        assertEquals(List.of("old", "soon"), email.sent.stream().sorted().toList());
+
+        // A password change moves the user out of the range; the checkpoint then catches up
+        User bounce = repository.findById("bounce");
+        repository.update("bounce", new User("bounce", bounce.getEmail(), bounce.getName(), twoDaysOn, null));
+        Instant sixDaysOn = NOW.plus(6, ChronoUnit.DAYS);
+        assertEquals(new PasswordNotificationService.Result(1, 1, 1, 0, 1, 1), checkpointed(repository, email, sixDaysOn, checkpoint).run());
+        assertEquals(sixDaysOn, checkpoint.load());
+        assertEquals(sixDaysOn + "\n", Files.readString(dir.resolve("password-expiry.checkpoint")));
+        assertEquals(0, checkpointed(repository, email, sixDaysOn, checkpoint).run().scanned());
+        assertEquals(List.of("later", "old", "soon"), email.sent.stream().sorted().toList());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());                                 // no temp files left behind
+        }
+    }
+
+    @Test
+    void keepsTheCheckpointWhenMarkingFails(@TempDir Path dir) {
+        InMemoryUserRepository repository = new InMemoryUserRepository(List.of(user("a", 100, null)));
+        UserRepository failing = new UserRepository() {
+            public List<User> findAll() { return repository.findAll(); }
+            public User update(String userId, User data) { return repository.update(userId, data); }
+            public Stream<User> scanUnnotifiedExpiring(Instant from, Instant to, int pageSize) {
+                return repository.scanUnnotifiedExpiring(from, to, pageSize);
+            }
+            public int updatePasswordNotificationSentAt(List<User> users, Instant sentAt) {
+                throw new IllegalStateException("database unavailable");
+            }
+        };
+        NotificationCheckpoint checkpoint = new NotificationCheckpoint(dir.resolve("checkpoint"));
+        checkpoint.store(NOW.minus(30, ChronoUnit.DAYS));
+
+        assertThrows(IllegalStateException.class, () -> checkpointed(failing, new RecordingEmailService(), NOW, checkpoint).run());
+        assertEquals(NOW.minus(30, ChronoUnit.DAYS), checkpoint.load());
+    }
+
+    @Test
+    void rejectsACorruptCheckpoint(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("checkpoint"), "yesterday\n");
+        assertThrows(IllegalStateException.class, () -> new NotificationCheckpoint(dir.resolve("checkpoint")).load());
+    }
+}
@@ -0,0 +1,84 @@
+// Tests for the j16 copy: pipeline results and the processPipeline metrics
+
+package j16;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataPipelineTest {
+
+    private DataPipeline pipeline(boolean userExists) {
+        Database db = (id, cb) -> cb.accept(null, userExists ? new UserData(id, id + "@test.com", "User " + id) : null);
+        Enricher enricher = (user, cb) -> {
+            user.setEnriched(true);
+            cb.accept(null, user);
+        };
+        Cache cache = (key, value, cb) -> cb.accept(null, null);
+        Notifier notifier = (email, message, cb) -> cb.accept(null, null);
+        return new DataPipeline(db, enricher, cache, notifier);
+    }
+
+    @Test
+    void recordsLatencyAndOutcomeOfEveryRun() {
+        MetricsSnapshot before = MetricsRegistry.global().snapshot();
+        AtomicReference<PipelineResult> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+
+        pipeline(true).processPipeline("u1", (err, r) -> result.set(r));
+        pipeline(false).processPipeline("u2", (err, r) -> error.set(err));
+
+        MetricsSnapshot after = MetricsRegistry.global().snapshot();
+        assertEquals("complete", result.get().getStatus());
+        assertEquals("User not found", error.get().getMessage());
+        assertEquals(1, after.counter("j16.pipeline.completed") - before.counter("j16.pipeline.completed"));
+        assertEquals(1, after.counter("j16.pipeline.failed") - before.counter("j16.pipeline.failed"));
+        assertEquals(0, after.gauge("j16.pipeline.inFlight"));
+        LatencyHistogram.Snapshot latency = after.histogram("j16.processPipeline.latency");
+        assertEquals(2, latency.count() - countOf(before.histogram("j16.processPipeline.latency")));
+    }
+
+    @Test
+    void stagesThatThrowAreRecordedAsFailures() {
+        MetricsSnapshot before = MetricsRegistry.global().snapshot();
+        Database db = (id, cb) -> cb.accept(null, new UserData(id, id + "@test.com", "User " + id));
+        Enricher nullEnrichment = (user, cb) -> cb.accept(null, null);    // NPE on getEmail()
+        Enricher throwing = (user, cb) -> { throw new IllegalStateException("enricher down"); };
+        Cache cache = (key, value, cb) -> cb.accept(null, null);
+        Notifier notifier = (email, message, cb) -> cb.accept(null, null);
+        List<Exception> errors = new ArrayList<>();
+
+        new DataPipeline(db, nullEnrichment, cache, notifier).processPipeline("u3", (err, r) -> errors.add(err));
+        new DataPipeline(db, throwing, cache, notifier).processPipeline("u4", (err, r) -> errors.add(err));
+
+        MetricsSnapshot after = MetricsRegistry.global().snapshot();
+        assertEquals(2, errors.size());
+        assertInstanceOf(NullPointerException.class, errors.get(0));
+        assertEquals("enricher down", errors.get(1).getMessage());
+        assertEquals(2, after.counter("j16.pipeline.failed") - before.counter("j16.pipeline.failed"));
+        assertEquals(0, after.gauge("j16.pipeline.inFlight"));
+    }
+
+    @Test
+    void aThrowingCallbackIsNotReportedTwice() {
+        MetricsSnapshot before = MetricsRegistry.global().snapshot();
+        assertThrows(IllegalStateException.class, () -> pipeline(true).processPipeline("u5", (err, r) -> {
+            throw new IllegalStateException("caller bug");
+        }));
+        MetricsSnapshot after = MetricsRegistry.global().snapshot();
+        assertEquals(1, after.counter("j16.pipeline.completed") - before.counter("j16.pipeline.completed"));
+        assertEquals(0, after.counter("j16.pipeline.failed") - before.counter("j16.pipeline.failed"));
+        assertEquals(0, after.gauge("j16.pipeline.inFlight"));
+    }
+
+    private static long countOf(LatencyHistogram.Snapshot snapshot) {
+        return snapshot == null ? 0 : snapshot.count();
+    }
+}
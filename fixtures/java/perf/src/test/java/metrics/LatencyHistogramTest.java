@@ -0,0 +1,70 @@
+// Tests for bucket layout, percentile accuracy and concurrent recording of LatencyHistogram
+
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverTheWholeRangeAndAreMonotonic() {
+        long[] probes = {0, 1, 63, 64, 66, 1_000, 1_000_000, 1L << 40, Long.MAX_VALUE};
+        int previous = -1;
+        for (long value : probes) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket > previous, "bucket of " + value);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value);
+            previous = bucket;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentilesAreWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long v = 1; v <= 100_000; v++) histogram.recordNanos(v * 1_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(100_000_000, snapshot.max());
+        assertEquals(50_000_500, snapshot.mean(), 1);
+        assertEquals(50_000_000, snapshot.p50(), 50_000_000 * 0.03);
+        assertEquals(99_000_000, snapshot.p99(), 99_000_000 * 0.03);
+        assertEquals(99_900_000, snapshot.p999(), 99_900_000 * 0.03);
+    }
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram("empty").snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.p99());
+        assertEquals(0, snapshot.mean());
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("concurrent");
+        int threads = 8;
+        int perThread = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long value = (t + 1) * 100L;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) histogram.recordNanos(value);
+            }));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) threads * perThread, snapshot.count());
+        assertEquals(800, snapshot.max());
+    }
+}
@@ -0,0 +1,43 @@
+// JMH: cost of recording into the shared metrics under contention
+// mvn -P bench test-compile exec:exec -Djmh.args="MetricsBenchmark -t 8"
+
+package metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final CounterMetric counter = registry.counter("bench.counter");
+    private final LatencyHistogram histogram = registry.histogram("bench.latency");
+
+    /** Baseline: the clock read every timed call site pays anyway. */
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void counterIncrement() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void histogramRecordSince() {
+        histogram.recordSince(System.nanoTime() - 1_500);
+    }
+
+    /** Looking a metric up by name on every call instead of holding it in a field. */
+    @Benchmark
+    public void registryLookupAndIncrement() {
+        registry.counter("bench.counter").increment();
+    }
+}
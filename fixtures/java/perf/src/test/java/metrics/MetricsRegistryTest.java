@@ -0,0 +1,90 @@
+// Tests for metric registration, snapshots and the text/JSON exporter
+
+package metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void returnsTheSameMetricForTheSameName() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<CounterMetric>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) futures.add(executor.submit(() -> registry.counter("requests")));
+        CounterMetric first = futures.get(0).get();
+        for (Future<CounterMetric> f : futures) assertSame(first, f.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void rejectsANameRegisteredWithAnotherType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("orders");
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("orders"));
+    }
+
+    @Test
+    void snapshotSamplesGaugesAndCounters() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("orders").add(3);
+        registry.gauge("queue.depth").set(7);
+        registry.gauge("heap.used", () -> 42);
+        registry.histogram("latency").recordNanos(1_000);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(3, snapshot.counter("orders"));
+        assertEquals(7, snapshot.gauge("queue.depth"));
+        assertEquals(42, snapshot.gauge("heap.used"));
+        assertEquals(1, snapshot.histogram("latency").count());
+        assertThrows(IllegalStateException.class, () -> registry.gauge("heap.used").set(1));
+    }
+
+    @Test
+    void snapshotIsNotChangedByLaterUpdates() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("orders").add(3);
+        registry.gauge("queue.depth").set(7);
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        registry.counter("orders").add(5);
+        registry.gauge("queue.depth").set(1);
+        assertEquals(3, snapshot.counter("orders"));
+        assertEquals(7, snapshot.gauge("queue.depth"));
+        assertEquals("counter orders 3\ngauge queue.depth 7\n", snapshot.toText());
+        assertEquals(8, registry.snapshot().counter("orders"));
+    }
+
+    @Test
+    void exportsTextAndJson(@TempDir Path dir) throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("orders.processed").add(2);
+        registry.histogram("process.latency").recordNanos(5_000);
+
+        Path text = dir.resolve("metrics.txt");
+        Path json = dir.resolve("metrics.json");
+        new MetricsExporter(registry, text, MetricsExporter.Format.TEXT).export();
+        try (MetricsExporter exporter = new MetricsExporter(registry, json, MetricsExporter.Format.JSON)) {
+            exporter.start(10);
+        }
+
+        assertTrue(Files.readString(text).contains("counter orders.processed 2\n"));
+        assertTrue(Files.readString(text).contains("histogram process.latency count=1"));
+        String body = Files.readString(json);
+        assertTrue(body.contains("\"orders.processed\": 2"), body);
+        assertTrue(body.contains("\"process.latency\": {\"count\": 1"), body);
+        assertTrue(body.contains("\"gauges\": {}"), body);
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count(), "no temp files left behind");
+        }
+    }
+}